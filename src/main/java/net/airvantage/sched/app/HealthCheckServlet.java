@@ -1,6 +1,8 @@
 package net.airvantage.sched.app;
 
 import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Clock;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,19 +15,35 @@ import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.db.ConnectionPool;
+import net.airvantage.sched.db.ReplicaSet;
+import net.airvantage.sched.db.TrafficClass;
+import net.airvantage.sched.quartz.SchedulerShards;
+import net.airvantage.sched.services.tech.JobExecutionHelper;
 
 public class HealthCheckServlet extends HttpServlet {
 
     private static final long serialVersionUID = 1L;
 
     private JsonMapper jsonMapper;
-    private Scheduler scheduler;
+    private SchedulerShards schedulers;
+    private Map<TrafficClass, ConnectionPool> connectionPools;
+    private ReplicaSet replicaSet;
+    private JobExecutionHelper jobExecutionHelper;
+    private JobLockDao jobLockDao;
+    private Clock clock;
 
     @Override
     public void init() throws ServletException {
 
         jsonMapper = ServiceLocator.getInstance().getJsonMapper();
-        scheduler = ServiceLocator.getInstance().getScheduler();
+        schedulers = ServiceLocator.getInstance().getSchedulerShards();
+        connectionPools = ServiceLocator.getInstance().getConnectionPools();
+        replicaSet = ServiceLocator.getInstance().getReplicaSet();
+        jobExecutionHelper = ServiceLocator.getInstance().geJobExecutionHelper();
+        jobLockDao = ServiceLocator.getInstance().getJobLockDao();
+        clock = ServiceLocator.getInstance().getClock();
     }
 
     @Override
@@ -33,14 +51,37 @@ public class HealthCheckServlet extends HttpServlet {
 
         Map<String, Object> map = new HashMap<String, Object>();
         try {
+            Scheduler scheduler = schedulers.getMain();
             map.put("quartz.started", scheduler.getMetaData().isStarted());
             map.put("quartz.started.from", scheduler.getMetaData().getRunningSince());
             map.put("quartz.pool.size", scheduler.getMetaData().getThreadPoolSize());
-            map.put("quartz.nb.job.executed", scheduler.getMetaData().getNumberOfJobsExecuted());
+            map.put("quartz.shards", schedulers.getAll().size());
+
+            int executed = 0;
+            for (Scheduler shard : schedulers.getAll()) {
+                executed += shard.getMetaData().getNumberOfJobsExecuted();
+            }
+            map.put("quartz.nb.job.executed", executed);
+            map.put("cron.fires.by.second", jobExecutionHelper.getCronFiresBySecond());
+
+            for (Map.Entry<String, Object> metric : jobLockDao.getMetrics(clock.millis()).entrySet()) {
+                map.put("locks." + metric.getKey(), metric.getValue());
+            }
+
+            for (Map.Entry<TrafficClass, ConnectionPool> pool : connectionPools.entrySet()) {
+                for (Map.Entry<String, Object> metric : pool.getValue().getMetrics().entrySet()) {
+                    map.put("db.pool." + pool.getKey().getKey() + "." + metric.getKey(), metric.getValue());
+                }
+            }
+            if (replicaSet != null) {
+                for (Map.Entry<String, Object> metric : replicaSet.getMetrics().entrySet()) {
+                    map.put("db.replica." + metric.getKey(), metric.getValue());
+                }
+            }
 
             map.put("app.status", "OK");
 
-        } catch (SchedulerException e) {
+        } catch (SchedulerException | SQLException e) {
             map.put("app.status", "KO - " + e.getMessage());
         }
 
@@ -11,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.WorkloadCapture;
 import net.airvantage.sched.model.JobId;
 import net.airvantage.sched.services.JobSchedulingService;
 
@@ -30,6 +31,7 @@ public class JobActionServlet extends HttpServlet {
 
     private JobSchedulingService jobService;
     private JsonMapper jsonMapper;
+    private WorkloadCapture workloadCapture;
 
     @Override
     public void init() throws ServletException {
@@ -37,6 +39,7 @@ public class JobActionServlet extends HttpServlet {
 
         jobService = ServiceLocator.getInstance().getJobSchedulingService();
         jsonMapper = ServiceLocator.getInstance().getJsonMapper();
+        workloadCapture = ServiceLocator.getInstance().getWorkloadCapture();
     }
 
     @Override
@@ -57,6 +60,7 @@ public class JobActionServlet extends HttpServlet {
 
             JobId jobId = jsonMapper.jobId(req.getInputStream());
             jobService.ackJob(jobId.getId());
+            workloadCapture.jobAck(jobId.getId());
 
         } catch (AppException e) {
             LOG.debug("Exception while acknowledging job", e);
@@ -74,6 +78,7 @@ public class JobActionServlet extends HttpServlet {
 
             JobId jobId = jsonMapper.jobId(req.getInputStream());
             boolean triggered = jobService.triggerJob(jobId.getId());
+            workloadCapture.jobTrigger(jobId.getId());
             res.put("triggered", triggered);
 
         } catch (AppException e) {
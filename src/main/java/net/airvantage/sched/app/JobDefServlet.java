@@ -1,7 +1,9 @@
 package net.airvantage.sched.app;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -11,6 +13,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.WorkloadCapture;
 import net.airvantage.sched.model.JobDef;
 import net.airvantage.sched.model.JobId;
 import net.airvantage.sched.services.JobSchedulingService;
@@ -23,6 +26,7 @@ import org.slf4j.LoggerFactory;
  * 
  * <ul>
  * <li>POST - / : create and schedule a new job.</li>
+ * <li>POST - /job-defs : create and schedule a list of jobs, returns the outcome of each job.</li>
  * <li>DELETE - / : unschedule a job and delete its configuration.</li> </li>
  * </ul>
  */
@@ -37,6 +41,7 @@ public class JobDefServlet extends HttpServlet {
 
     private JobSchedulingService jobService;
     private JsonMapper jsonMapper;
+    private WorkloadCapture workloadCapture;
 
     @Override
     public void init() throws ServletException {
@@ -44,6 +49,7 @@ public class JobDefServlet extends HttpServlet {
 
         jobService = ServiceLocator.getInstance().getJobSchedulingService();
         jsonMapper = ServiceLocator.getInstance().getJsonMapper();
+        workloadCapture = ServiceLocator.getInstance().getWorkloadCapture();
     }
 
     /**
@@ -52,6 +58,11 @@ public class JobDefServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
+        if (req.getServletPath().endsWith("job-defs")) {
+            scheduleJobs(req, resp);
+            return;
+        }
+
         Map<String, Object> res = new HashMap<String, Object>();
         try {
 
@@ -59,6 +70,10 @@ public class JobDefServlet extends HttpServlet {
 
             jobService.scheduleJob(jobDef);
 
+            if (workloadCapture.isEnabled()) {
+                workloadCapture.jobDef(jobDef.getConfig().getId(), jsonMapper.writeValueAsString(jobDef));
+            }
+
             // Return the job id
             res.put("id", jobDef.getConfig().getId());
 
@@ -72,6 +87,47 @@ public class JobDefServlet extends HttpServlet {
         resp.getWriter().println(jsonMapper.writeValueAsString(res));
     }
 
+    /**
+     * Schedule a list of jobs.
+     */
+    private void scheduleJobs(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+
+        Object res;
+        try {
+
+            List<JobDef> jobDefs = jsonMapper.jobDefs(req.getInputStream());
+
+            List<AppException> errors = jobService.scheduleJobs(jobDefs);
+
+            // Return the outcome of each job, an invalid element has no identifier
+            List<Map<String, Object>> outcomes = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < jobDefs.size(); i++) {
+
+                JobDef jobDef = jobDefs.get(i);
+                String id = (jobDef != null && jobDef.getConfig() != null) ? jobDef.getConfig().getId() : null;
+                AppException error = errors.get(i);
+
+                Map<String, Object> outcome = (error != null) ? error.asMap() : new HashMap<String, Object>();
+                outcome.put("id", id);
+                outcome.put("scheduled", error == null);
+                outcomes.add(outcome);
+
+                if (error == null && workloadCapture.isEnabled()) {
+                    workloadCapture.jobDef(id, jsonMapper.writeValueAsString(jobDef));
+                }
+            }
+            res = outcomes;
+
+        } catch (AppException e) {
+            LOG.debug("Exception while scheduling jobs", e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            res = e.asMap();
+        }
+
+        resp.setContentType("application/json");
+        resp.getWriter().println(jsonMapper.writeValueAsString(res));
+    }
+
     /**
      * Unschedule a job.
      */
@@ -83,6 +139,7 @@ public class JobDefServlet extends HttpServlet {
 
             JobId jobId = jsonMapper.jobId(req.getInputStream());
             boolean deleted = jobService.unscheduleJob(jobId.getId());
+            workloadCapture.jobDelete(jobId.getId());
 
             res.put("id", jobId.getId());
             res.put("deleted", deleted);
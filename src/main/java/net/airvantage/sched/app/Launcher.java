@@ -21,6 +21,16 @@ import org.slf4j.LoggerFactory;
  * The database is automatically updated if needed before to start the application. The <b>--clear</b> parameter can be
  * used to remove all existing data.
  * </p>
+ * 
+ * <p>
+ * The <b>--reshard-wakeups</b> parameter moves the wake-ups of the previous shards layout to the current one, and
+ * exits without starting the application : the running nodes keep scheduling meanwhile.
+ * </p>
+ * 
+ * <p>
+ * The <b>--migrate-cron-jobs</b> parameter moves the CRON jobs scheduled with Quartz to the table recurrence engine,
+ * and exits : it is run once the nodes have been restarted with {@code av-sched.cron.engine=table}.
+ * </p>
  */
 public class Launcher {
 
@@ -29,6 +39,28 @@ public class Launcher {
 
     public static void main(String[] args) throws Exception {
 
+        try {
+            if (args.length > 0 && "--reshard-wakeups".equals(args[0])) {
+                reshardWakeups();
+            } else if (args.length > 0 && "--migrate-cron-jobs".equals(args[0])) {
+                migrateCronJobs();
+            } else {
+                start(args);
+            }
+
+        } catch (Exception ex) {
+
+            LOG.error("AvSched application failure.", ex);
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Start the AvSched application and return the running server. The server is stopped if the startup fails.
+     */
+    public static Server start(String[] args) throws Exception {
+
         long start = System.currentTimeMillis();
         JobDefServlet.startupTime = start;
 
@@ -51,6 +83,7 @@ public class Launcher {
             // Start AvSched application
             
             ServiceLocator.getInstance().servicesPreload();
+            ServiceLocator.getInstance().startConfigurationReloading();
             server = createAndConfigureServer();
             server.start();
 
@@ -68,14 +101,46 @@ public class Launcher {
 
         } catch (Exception ex) {
 
-            LOG.error("AvSched application failure.", ex);
-            ex.printStackTrace();
-
             if (server != null) {
                 server.setStopTimeout(60_000);
                 server.stop();
             }
-            System.exit(1);
+            throw ex;
+        }
+
+        return server;
+    }
+
+    /**
+     * Move the wake-ups of the shards listed by {@code av-sched.wakeup.shards.previous.urls} to their shard in
+     * {@code av-sched.wakeup.shards.urls}.
+     */
+    public static long reshardWakeups() {
+
+        ServiceLocator.getInstance().init();
+
+        long moved = ServiceLocator.getInstance().getWakeupResharder().reshard();
+        LOG.info("[AV-SCHED] Wake-ups resharded, {} moved.", moved);
+
+        return moved;
+    }
+
+    /**
+     * Move the CRON jobs scheduled with Quartz to the {@code sched_cron_jobs} table.
+     */
+    public static long migrateCronJobs() throws Exception {
+
+        ServiceLocator.getInstance().init();
+        ServiceLocator.getInstance().getSchemaMigrator().migrate();
+
+        try {
+            long moved = ServiceLocator.getInstance().getCronTriggerMigrator().migrate();
+            LOG.info("[AV-SCHED] CRON jobs migrated, {} moved.", moved);
+
+            return moved;
+
+        } finally {
+            ServiceLocator.getInstance().getSchedulerShards().shutdown(true);
         }
     }
 
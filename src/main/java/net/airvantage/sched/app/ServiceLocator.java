@@ -1,39 +1,67 @@
 package net.airvantage.sched.app;
 
-import java.util.Properties;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.app.exceptions.ServiceRuntimeException;
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.CaptureLogWriter;
+import net.airvantage.sched.capture.WorkloadCapture;
 import net.airvantage.sched.conf.ConfigurationManager;
 import net.airvantage.sched.conf.Keys;
+import net.airvantage.sched.dao.CronGroupDao;
+import net.airvantage.sched.dao.EmbeddedJobWakeupDao;
+import net.airvantage.sched.dao.InMemoryJobWakeupDao;
 import net.airvantage.sched.dao.JobConfigDao;
 import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobRecurrenceDao;
 import net.airvantage.sched.dao.JobSchedulingDao;
 import net.airvantage.sched.dao.JobWakeupDao;
+import net.airvantage.sched.dao.MappedJobWakeupDao;
+import net.airvantage.sched.dao.MysqlJobWakeupDao;
+import net.airvantage.sched.dao.PartitionedJobWakeupDao;
+import net.airvantage.sched.dao.ShardedJobWakeupDao;
+import net.airvantage.sched.dao.WakeupResharder;
+import net.airvantage.sched.db.ConnectionPool;
+import net.airvantage.sched.db.ReplicaSet;
+import net.airvantage.sched.db.RoutingDataSource;
 import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.db.TrafficClass;
+import net.airvantage.sched.quartz.CronTriggerMigrator;
 import net.airvantage.sched.quartz.DefaultJobListener;
 import net.airvantage.sched.quartz.DefaultTriggerListener;
 import net.airvantage.sched.quartz.QuartzClusteredSchedulerFactory;
+import net.airvantage.sched.quartz.QuartzProfile;
+import net.airvantage.sched.quartz.ResizableThreadPool;
+import net.airvantage.sched.quartz.SchedulerShards;
 import net.airvantage.sched.services.JobSchedulingService;
 import net.airvantage.sched.services.JobStateService;
 import net.airvantage.sched.services.impl.JobSchedulingServiceImpl;
 import net.airvantage.sched.services.impl.JobStateServiceImpl;
+import net.airvantage.sched.services.tech.EndpointCache;
+import net.airvantage.sched.services.tech.FanOutDispatcher;
+import net.airvantage.sched.services.tech.IdGenerator;
 import net.airvantage.sched.services.tech.JobExecutionHelper;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
 import net.airvantage.sched.services.tech.RemoteServiceConnector;
 import net.airvantage.sched.services.tech.RetryPolicyHelper;
+import net.airvantage.sched.services.tech.SimulatedClock;
+import net.airvantage.sched.services.tech.WakeupDispatcher;
+import net.airvantage.sched.services.tech.WakeupLeveler;
 
-import org.apache.commons.dbcp2.ConnectionFactory;
-import org.apache.commons.dbcp2.DriverManagerConnectionFactory;
-import org.apache.commons.dbcp2.PoolableConnection;
-import org.apache.commons.dbcp2.PoolableConnectionFactory;
-import org.apache.commons.dbcp2.PoolingDataSource;
-import org.apache.commons.pool2.impl.GenericObjectPool;
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.quartz.JobListener;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
@@ -49,21 +77,35 @@ public class ServiceLocator {
     private static ServiceLocator instance;
 
     private ConfigurationManager configManager;
-    private Scheduler scheduler;
+    private SchedulerShards schedulerShards;
     private SchemaMigrator schemaMigrator;
+    private Map<TrafficClass, ConnectionPool> connectionPools;
     private DataSource dataSource;
+    private ReplicaSet replicaSet;
+    private Map<String, ConnectionPool> wakeupShardPools = new HashMap<>();
+    private Map<String, MysqlJobWakeupDao> wakeupShards = new HashMap<>();
     private JsonMapper jsonMapper;
     private CloseableHttpClient httpClient;
+    private PoolingHttpClientConnectionManager httpCnxManager;
+    private Clock clock;
+    private IdGenerator idGenerator;
+    private WorkloadCapture workloadCapture;
 
     private JobStateService jobStateService;
     private JobSchedulingService jobService;
     private RetryPolicyHelper retryPolicyHelper;
     private JobExecutionHelper jobExecutionHelper;
+    private RecurrenceHelper recurrenceHelper;
+    private FanOutDispatcher fanOutDispatcher;
+    private WakeupLeveler wakeupLeveler;
+    private WakeupDispatcher wakeupDispatcher;
 
     private JobSchedulingDao jobSchedulingDao;
     private JobConfigDao jobConfigDao;
     private JobWakeupDao jobWakeupDao;
     private JobLockDao jobLockDao;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private CronGroupDao cronGroupDao;
 
     // ----------------------------------------------- Initialization -------------------------------------------------
 
@@ -78,20 +120,35 @@ public class ServiceLocator {
 
         instance = this;
         configManager = new ConfigurationManager();
+        configManager.registerReloadListener(this::resizeResources);
+    }
+
+    /**
+     * Start checking the configuration file for changes, the pools created so far are then resized live.
+     */
+    public void startConfigurationReloading() {
+        getConfigManager().startReloading(getConfigManager().get().getLong(Keys.RELOAD_PERIOD, 10_000L));
     }
 
     public void servicesPreload() throws AppException {
 
         // Load internal jobs
         ((JobSchedulingServiceImpl) getJobSchedulingService()).loadInternalJobs();
+
+        // Recover the CRON group fires of the stopped nodes
+        if (getEnabledCronGroupDao() != null) {
+            getFanOutDispatcher();
+        }
     }
 
     // -------------------------------------------------- Services ----------------------------------------------------
 
     public JobSchedulingService getJobSchedulingService() {
         if (jobService == null) {
-            jobService = new JobSchedulingServiceImpl(getScheduler(), getJobStateService(), getJobConfigDao(),
-                    getJobLockDao(), getJobSchedulingDao(), getJobWakeupDao(), getWakeupJobCron());
+            jobService = new JobSchedulingServiceImpl(getSchedulerShards(), getJobStateService(), getJobConfigDao(),
+                    getJobLockDao(), getJobSchedulingDao(), getJobWakeupDao(), getWakeupJobCron(), getClock(),
+                    getIdGenerator(), getEnabledJobRecurrenceDao(), getEnabledCronGroupDao(), getCronSplay(),
+                    getLockExpiryJobCron(), getEnabledWakeupDispatcher(), isCronSkipMisfires());
         }
         return jobService;
     }
@@ -99,14 +156,15 @@ public class ServiceLocator {
     public RetryPolicyHelper getRetryPolicyHelper() {
         if (retryPolicyHelper == null) {
             retryPolicyHelper = new RetryPolicyHelper(getJobStateService(), getJobSchedulingService(),
-                    getJobWakeupDao());
+                    getJobWakeupDao(), getClock());
         }
         return retryPolicyHelper;
     }
 
     public JobStateService getJobStateService() {
         if (jobStateService == null) {
-            jobStateService = new JobStateServiceImpl(getJobConfigDao(), getJobLockDao(), getJobSchedulingDao());
+            jobStateService = new JobStateServiceImpl(getJobConfigDao(), getJobLockDao(), getJobSchedulingDao(),
+                    getSchedulerShards(), getClock());
 
         }
         return jobStateService;
@@ -114,7 +172,8 @@ public class ServiceLocator {
 
     public JobSchedulingDao getJobSchedulingDao() {
         if (jobSchedulingDao == null) {
-            jobSchedulingDao = new JobSchedulingDao(getScheduler());
+            jobSchedulingDao = new JobSchedulingDao(getSchedulerShards(), getEnabledJobRecurrenceDao(),
+                    getEnabledCronGroupDao());
 
         }
         return jobSchedulingDao;
@@ -128,6 +187,37 @@ public class ServiceLocator {
         return jobLockDao;
     }
 
+    public JobRecurrenceDao getJobRecurrenceDao() {
+        if (jobRecurrenceDao == null) {
+            jobRecurrenceDao = new JobRecurrenceDao(getDataSource());
+
+        }
+        return jobRecurrenceDao;
+    }
+
+    /**
+     * Return the CRON jobs DAO if the table recurrence engine is enabled, {@code null} if the CRON jobs are scheduled
+     * with Quartz.
+     */
+    public JobRecurrenceDao getEnabledJobRecurrenceDao() {
+        return "table".equals(getCronEngine()) ? getJobRecurrenceDao() : null;
+    }
+
+    public CronGroupDao getCronGroupDao() {
+        if (cronGroupDao == null) {
+            cronGroupDao = new CronGroupDao(getDataSource());
+
+        }
+        return cronGroupDao;
+    }
+
+    /**
+     * Return the CRON groups DAO if the groups are enabled for the Quartz CRON jobs, {@code null} otherwise.
+     */
+    public CronGroupDao getEnabledCronGroupDao() {
+        return (isCronGroups() && getEnabledJobRecurrenceDao() == null) ? getCronGroupDao() : null;
+    }
+
     public JobConfigDao getJobConfigDao() {
         if (jobConfigDao == null) {
             jobConfigDao = new JobConfigDao(getDataSource());
@@ -138,8 +228,48 @@ public class ServiceLocator {
 
     public JobWakeupDao getJobWakeupDao() {
         if (jobWakeupDao == null) {
-            jobWakeupDao = new JobWakeupDao(getDataSource());
-
+            String store = getWakeupStore();
+            switch (store) {
+            case "mysql":
+                jobWakeupDao = new MysqlJobWakeupDao(getDataSource(), getEndpointCacheSize(),
+                        isWakeupCallbackColumn(), getClock());
+                break;
+
+            case "memory":
+                jobWakeupDao = new InMemoryJobWakeupDao(getClock());
+                break;
+
+            case "embedded":
+                jobWakeupDao = new EmbeddedJobWakeupDao(Paths.get(getWakeupStoreDir()), getDbCnxPoolMax(),
+                        getEndpointCacheSize(), getClock());
+                break;
+
+            case "mapped":
+                jobWakeupDao = new MappedJobWakeupDao(Paths.get(getWakeupStoreDir()),
+                        getConfigManager().get().getInt(Keys.Wakeup.STORE_SEGMENT_SIZE, 64 * 1024 * 1024),
+                        getConfigManager().get().getBoolean(Keys.Wakeup.STORE_SYNC, false), getClock());
+                break;
+
+            case "sharded":
+                jobWakeupDao = new ShardedJobWakeupDao(getWakeupShards(Keys.Wakeup.SHARD_URLS),
+                        getWakeupShards(Keys.Wakeup.PREVIOUS_SHARD_URLS));
+                break;
+
+            case "partitioned":
+                long day = 24 * 60 * 60 * 1000L;
+                PartitionedJobWakeupDao partitioned = new PartitionedJobWakeupDao(getDataSource(),
+                        getConfigManager().get().getLong(Keys.Wakeup.PARTITION_INTERVAL, day),
+                        getConfigManager().get().getLong(Keys.Wakeup.PARTITION_AHEAD, 2 * day),
+                        getEndpointCacheSize(), getClock());
+                partitioned.start(getConfigManager().get().getLong(Keys.Wakeup.PARTITION_MAINTENANCE_PERIOD,
+                        10 * 60 * 1000L));
+                jobWakeupDao = partitioned;
+                break;
+
+            default:
+                throw new ServiceRuntimeException("Unknown wake-up store " + store);
+            }
+            LOG.info("Using the {} wake-up store", store);
         }
         return jobWakeupDao;
     }
@@ -149,26 +279,266 @@ public class ServiceLocator {
 
             RemoteServiceConnector connector = new RemoteServiceConnector(this.getHttpClient(), 7);
             jobExecutionHelper = new JobExecutionHelper(getJobStateService(), connector, getSchedSecret(),
-                    getJsonMapper(), getJobConfigDao(), getRetryPolicyHelper());
+                    getJsonMapper(), getJobConfigDao(), getRetryPolicyHelper(), getWorkloadCapture(),
+                    new EndpointCache(getEndpointCacheSize()), getClock());
         }
         return jobExecutionHelper;
     }
 
+    public RecurrenceHelper getRecurrenceHelper() {
+        if (recurrenceHelper == null) {
+            recurrenceHelper = new RecurrenceHelper(geJobExecutionHelper(), getJobLockDao(), getJobRecurrenceDao(),
+                    getClock());
+        }
+        return recurrenceHelper;
+    }
+
+    /**
+     * Returns the leveler of the dispatched wake-ups, {@code null} if no target rate is configured.
+     */
+    public synchronized WakeupLeveler getWakeupLeveler() {
+        if (wakeupLeveler == null) {
+
+            int targetRate = getConfigManager().get().getInt(Keys.Wakeup.TARGET_RATE, 0);
+            if (targetRate <= 0) {
+                return null;
+            }
+            wakeupLeveler = new WakeupLeveler(targetRate, getClock());
+        }
+        return wakeupLeveler;
+    }
+
+    public synchronized FanOutDispatcher getFanOutDispatcher() {
+        if (fanOutDispatcher == null) {
+            fanOutDispatcher = new FanOutDispatcher(getRecurrenceHelper(), getCronGroupDao(),
+                    getWakeupJobThreadPoolSize(), getClock());
+            fanOutDispatcher.start();
+        }
+        return fanOutDispatcher;
+    }
+
+    /**
+     * Returns the dispatcher of the wake-ups due soon, {@code null} if disabled.
+     */
+    public WakeupDispatcher getEnabledWakeupDispatcher() {
+        long window = getConfigManager().get().getLong(Keys.Wakeup.IMMEDIATE_WINDOW, 10_000L);
+        if (wakeupDispatcher == null && window >= 0) {
+
+            // A queued wake-up would otherwise be fired by the wake-ups timer too, once its claim has expired
+            if (window >= getWakeupClaimLease()) {
+                throw new ServiceRuntimeException("The wake-ups immediate window " + window
+                        + " ms should be lower than the claim lease " + getWakeupClaimLease() + " ms");
+            }
+            wakeupDispatcher = new WakeupDispatcher(this::geJobExecutionHelper, getJobWakeupDao(),
+                    getWakeupJobThreadPoolSize(), window, getWakeupClaimLease(), getClock());
+        }
+        return wakeupDispatcher;
+    }
+
     public CloseableHttpClient getHttpClient() {
         if (httpClient == null) {
 
             int poolSize = this.getOutputCnxPoolSize();
 
-            httpClient = HttpClientBuilder.create().disableContentCompression().setMaxConnPerRoute(poolSize)
-                    .setMaxConnTotal(poolSize * 2).evictExpiredConnections().build();
+            httpCnxManager = new PoolingHttpClientConnectionManager();
+            httpCnxManager.setDefaultMaxPerRoute(poolSize);
+            httpCnxManager.setMaxTotal(poolSize * 2);
+
+            httpClient = HttpClientBuilder.create().disableContentCompression().setConnectionManager(httpCnxManager)
+                    .evictExpiredConnections().build();
         }
         return httpClient;
     }
 
+    /**
+     * Returns the clock used to compute wake-up, retry and lock dates (a {@link SimulatedClock} in simulated mode).
+     */
+    public Clock getClock() {
+        if (clock == null) {
+
+            if ("simulated".equals(getConfigManager().get().getString(Keys.Clock.MODE, "system"))) {
+                long start = getConfigManager().get().getLong(Keys.Clock.START, System.currentTimeMillis());
+                double speed = getConfigManager().get().getDouble(Keys.Clock.SPEED, 1.0);
+
+                clock = new SimulatedClock(start, speed);
+                LOG.warn("Using a simulated clock : start={}, speed={}", start, speed);
+
+            } else {
+                clock = Clock.systemUTC();
+            }
+        }
+        return clock;
+    }
+
+    /**
+     * Returns the generator of the job ids not given by the clients. The node id is required when the wake-ups are
+     * stored in a database shared by several nodes, the default one being a hash of the process name.
+     */
+    public IdGenerator getIdGenerator() {
+        if (idGenerator == null) {
+            int node = getConfigManager().get().getInt(Keys.ID_NODE,
+                    ManagementFactory.getRuntimeMXBean().getName().hashCode() & IdGenerator.MAX_NODE);
+            idGenerator = new IdGenerator(node, getClock());
+            LOG.info("Generating the job ids with node id {}", node);
+        }
+        return idGenerator;
+    }
+
+    /**
+     * Returns the workload capture, which does nothing unless {@link Keys.Capture#ENABLED} is set.
+     * <p>
+     * Synchronized as it may be first called concurrently by the callbacks, and only one writer must own the capture
+     * directory.
+     * </p>
+     */
+    public synchronized WorkloadCapture getWorkloadCapture() {
+        if (workloadCapture == null) {
+
+            if (getConfigManager().get().getBoolean(Keys.Capture.ENABLED, false)) {
+                CaptureLogWriter writer = new CaptureLogWriter(
+                        Paths.get(getConfigManager().get().getString(Keys.Capture.DIR, "capture")),
+                        getConfigManager().get().getInt(Keys.Capture.SEGMENT_SIZE, 64 * 1024 * 1024),
+                        getConfigManager().get().getInt(Keys.Capture.QUEUE_SIZE, 100_000));
+                try {
+                    writer.start();
+                } catch (IOException ex) {
+                    LOG.error("Unable to start workload capture", ex);
+                    throw new ServiceRuntimeException("Unable to start workload capture", ex);
+                }
+
+                workloadCapture = new WorkloadCapture(writer, getClock());
+                Runtime.getRuntime().addShutdownHook(new Thread(workloadCapture::close, "capture-shutdown"));
+
+            } else {
+                workloadCapture = WorkloadCapture.disabled();
+            }
+        }
+        return workloadCapture;
+    }
+
     public ConfigurationManager getConfigManager() {
         return configManager;
     }
 
+    /**
+     * Returns the database connection pools, one by {@link TrafficClass}.
+     */
+    public synchronized Map<TrafficClass, ConnectionPool> getConnectionPools() {
+        if (connectionPools == null) {
+
+            String driver = getConfigManager().get().getString(Keys.Db.DRIVER);
+            if (driver != null) {
+                try {
+                    Class.forName(driver);
+                } catch (ClassNotFoundException ex) {
+                    throw new ServiceRuntimeException("Unknown JDBC driver " + driver, ex);
+                }
+            }
+
+            if (getDbCnxPoolMax(TrafficClass.QUARTZ) < getQuartzCnxNeeded()) {
+                LOG.warn("The Quartz connection pool ({} connections) is smaller than its {} shards may use ({}), "
+                        + "their threads will wait for connections", getDbCnxPoolMax(TrafficClass.QUARTZ),
+                        getQuartzShards(), getQuartzCnxNeeded());
+            }
+
+            Map<TrafficClass, ConnectionPool> pools = new EnumMap<>(TrafficClass.class);
+            for (TrafficClass trafficClass : TrafficClass.values()) {
+                pools.put(trafficClass, new ConnectionPool(getJdbcUrl(),
+                        getConfigManager().get().getString(Keys.Db.USER),
+                        getConfigManager().get().getString(Keys.Db.PASSWORD, ""), getDbCnxPoolMin(trafficClass),
+                        getDbCnxPoolMax(trafficClass),
+                        getConfigManager().get().getLong(Keys.Db.VALIDATION_INTERVAL, 30_000L)));
+            }
+            connectionPools = pools;
+        }
+        return connectionPools;
+    }
+
+    public ConnectionPool getConnectionPool(TrafficClass trafficClass) {
+        return getConnectionPools().get(trafficClass);
+    }
+
+    /**
+     * Returns the read replicas, {@code null} if none is configured.
+     */
+    public synchronized ReplicaSet getReplicaSet() {
+        if (replicaSet == null) {
+
+            String[] urls = getConfigManager().get().getStringArray(Keys.Db.REPLICA_URLS);
+            if (urls.length == 0) {
+                return null;
+            }
+
+            List<DataSource> replicas = new ArrayList<>();
+            for (String url : urls) {
+                replicas.add(new ConnectionPool(url, getConfigManager().get().getString(Keys.Db.USER),
+                        getConfigManager().get().getString(Keys.Db.PASSWORD, ""),
+                        getDbCnxPoolMin(TrafficClass.API_READ), getDbCnxPoolMax(TrafficClass.API_READ),
+                        getConfigManager().get().getLong(Keys.Db.VALIDATION_INTERVAL, 30_000L)).getDataSource());
+            }
+
+            replicaSet = new ReplicaSet(getConnectionPool(TrafficClass.DISPATCH).getDataSource(), replicas,
+                    getConfigManager().get().getLong(Keys.Db.REPLICA_MAX_LAG, 5_000L),
+                    ManagementFactory.getRuntimeMXBean().getName(), getClock());
+            replicaSet.start(getConfigManager().get().getLong(Keys.Db.REPLICA_CHECK_INTERVAL, 1_000L));
+
+            LOG.info("Serving the API reads from {} replicas", urls.length);
+        }
+        return replicaSet;
+    }
+
+    /**
+     * Returns the wake-up shards listed by the given configuration key, one DAO by schema. The schema of a shard is
+     * created or migrated when first used, the primary database can also be used as a shard.
+     */
+    public synchronized List<MysqlJobWakeupDao> getWakeupShards(String key) {
+
+        List<MysqlJobWakeupDao> shards = new ArrayList<>();
+        for (String url : getConfigManager().get().getStringArray(key)) {
+
+            MysqlJobWakeupDao shard = wakeupShards.get(url);
+            if (shard == null) {
+                DataSource shardDataSource;
+                if (url.equals(getJdbcUrl())) {
+                    shardDataSource = getDataSource();
+
+                } else {
+                    ConnectionPool pool = new ConnectionPool(url, getConfigManager().get().getString(Keys.Db.USER),
+                            getConfigManager().get().getString(Keys.Db.PASSWORD, ""), getWakeupShardPoolMin(),
+                            getWakeupShardPoolMax(), getConfigManager().get().getLong(Keys.Db.VALIDATION_INTERVAL,
+                                    30_000L));
+                    SchemaMigrator migrator = new SchemaMigrator(pool.getDataSource(), "db/wakeup-shard",
+                            "schema_version_wakeup_shard");
+                    if (isSurrogateKeys()) {
+                        migrator.then("schema_version_surrogate_keys", "db/surrogate-keys/wakeups");
+                    }
+                    if (!isWakeupCallbackColumn()) {
+                        migrator.then("schema_version_drop_callback", "db/drop-callback");
+                    }
+                    migrator.migrate();
+
+                    wakeupShardPools.put(url, pool);
+                    shardDataSource = pool.getDataSource();
+                }
+
+                shard = new MysqlJobWakeupDao(shardDataSource, getEndpointCacheSize(), isWakeupCallbackColumn(),
+                        getClock());
+                wakeupShards.put(url, shard);
+            }
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    public WakeupResharder getWakeupResharder() {
+        return new WakeupResharder(getWakeupShards(Keys.Wakeup.SHARD_URLS),
+                getWakeupShards(Keys.Wakeup.PREVIOUS_SHARD_URLS), 1000);
+    }
+
+    public CronTriggerMigrator getCronTriggerMigrator() {
+        return new CronTriggerMigrator(getSchedulerShards(), getJobRecurrenceDao(), getClock());
+    }
+
     public JsonMapper getJsonMapper() {
         if (jsonMapper == null) {
             jsonMapper = new JsonMapper();
@@ -179,31 +549,57 @@ public class ServiceLocator {
     public SchemaMigrator getSchemaMigrator() {
         if (schemaMigrator == null) {
             schemaMigrator = new SchemaMigrator(getDataSource());
+            if (isSurrogateKeys()) {
+                schemaMigrator.then("schema_version_surrogate_keys", "db/surrogate-keys/wakeups",
+                        "db/surrogate-keys/configs");
+            }
+            if ("partitioned".equals(getWakeupStore())) {
+                schemaMigrator.then("schema_version_partitioned_wakeups", "db/partitioned-wakeups");
+            }
+            if (!isWakeupCallbackColumn()) {
+                schemaMigrator.then("schema_version_drop_callback", "db/drop-callback");
+            }
         }
         return schemaMigrator;
     }
 
+    /**
+     * Return the scheduler running the internal jobs.
+     */
     public Scheduler getScheduler() {
-        if (scheduler == null) {
+        return getSchedulerShards().getMain();
+    }
+
+    public SchedulerShards getSchedulerShards() {
+        if (schedulerShards == null) {
             try {
-                scheduler = QuartzClusteredSchedulerFactory.buildScheduler(getConfigManager().get());
+                List<Scheduler> schedulers = new ArrayList<>();
+                for (int i = 0; i < getQuartzShards(); i++) {
+                    schedulers.add(QuartzClusteredSchedulerFactory.buildScheduler(getConfigManager().get(),
+                            getConnectionPool(TrafficClass.QUARTZ).getDataSource(), SchedulerShards.schedulerName(i)));
+                }
 
-                scheduler.start();
-                scheduler.getListenerManager().addTriggerListener(getLockTriggerListener());
-                scheduler.getListenerManager().addJobListener(getRetryJobListener());
+                // The listeners services use the shards
+                schedulerShards = new SchedulerShards(schedulers);
+
+                for (Scheduler scheduler : schedulers) {
+                    scheduler.start();
+                    scheduler.getListenerManager().addTriggerListener(getLockTriggerListener());
+                    scheduler.getListenerManager().addJobListener(getRetryJobListener());
+                }
 
             } catch (SchedulerException ex) {
                 LOG.error("Unable to load scheduler", ex);
                 throw new ServiceRuntimeException("Unable to load scheduler", ex);
             }
         }
-        return scheduler;
+        return schedulerShards;
     }
 
     // ------------------------------------------------- Deploy Configuration -----------------------------------------
 
     public String getSchedSecret() {
-        return getConfigManager().get().getString("av-sched.secret");
+        return getConfigManager().get().getString(Keys.SECRET);
     }
 
     public int getPort() {
@@ -219,6 +615,10 @@ public class ServiceLocator {
         return getConfigManager().get().getInt(Keys.Io.OUT_THREAD_POOL_SIZE, 100);
     }
 
+    public int getEndpointCacheSize() {
+        return getConfigManager().get().getInt(Keys.Io.ENDPOINT_CACHE_SIZE, 10_000);
+    }
+
     public int getServletCnxPoolSize() {
         return getConfigManager().get().getInt(Keys.Io.IN_CNX_POOL_SIZE, 60);
     }
@@ -231,48 +631,176 @@ public class ServiceLocator {
         return getConfigManager().get().getInt(Keys.Db.POOL_MAX, 100);
     }
 
+    public int getDbCnxPoolMin(TrafficClass trafficClass) {
+
+        if (trafficClass == TrafficClass.DISPATCH) {
+            return getDbCnxPoolMin();
+        }
+        return getConfigManager().get().getInt(String.format(Keys.Db.CLASS_POOL_MIN, trafficClass.getKey()),
+                trafficClass.getDefaultMin());
+    }
+
+    public int getDbCnxPoolMax(TrafficClass trafficClass) {
+
+        if (trafficClass == TrafficClass.DISPATCH) {
+            return getDbCnxPoolMax();
+        }
+        int defaultMax = trafficClass.getDefaultMax();
+        if (trafficClass == TrafficClass.QUARTZ) {
+            defaultMax = Math.max(defaultMax, getQuartzCnxNeeded());
+        }
+        return getConfigManager().get().getInt(String.format(Keys.Db.CLASS_POOL_MAX, trafficClass.getKey()),
+                defaultMax);
+    }
+
+    /**
+     * Returns the connections the Quartz schedulers may use at once : one per thread of each shard, plus its
+     * scheduler, misfire handler and cluster manager threads.
+     */
+    public int getQuartzCnxNeeded() {
+        return getQuartzShards() * (getQuartzThreadCount() + 3);
+    }
+
+    public int getWakeupShardPoolMin() {
+        return getConfigManager().get().getInt(String.format(Keys.Db.CLASS_POOL_MIN, "wakeup-shard"), 2);
+    }
+
+    public int getWakeupShardPoolMax() {
+        return getConfigManager().get().getInt(String.format(Keys.Db.CLASS_POOL_MAX, "wakeup-shard"), 50);
+    }
+
+    public boolean isSurrogateKeys() {
+        return getConfigManager().get().getBoolean(Keys.Db.SURROGATE_KEYS, false);
+    }
+
+    public boolean isWakeupCallbackColumn() {
+        return getConfigManager().get().getBoolean(Keys.Wakeup.CALLBACK_COLUMN, true);
+    }
+
+    public String getWakeupStore() {
+        return getConfigManager().get().getString(Keys.Wakeup.STORE, "mysql");
+    }
+
+    public String getWakeupStoreDir() {
+        return getConfigManager().get().getString(Keys.Wakeup.STORE_DIR, "data");
+    }
+
+    public long getWakeupClaimLease() {
+        return getConfigManager().get().getLong(Keys.Wakeup.CLAIM_LEASE, 5 * 60 * 1000L);
+    }
+
+    public int getQuartzThreadCount() {
+
+        String profile = getConfigManager().get().getString(Keys.Quartz.PROFILE, "default");
+        return getConfigManager().get().getInt(Keys.Quartz.THREAD_COUNT,
+                QuartzProfile.fromName(profile).getThreadCount());
+    }
+
+    public int getQuartzShards() {
+        return getConfigManager().get().getInt(Keys.Quartz.SHARDS, 1);
+    }
+
     public String getWakeupJobCron() {
         return getConfigManager().get().getString(Keys.Cron.WAKEUP_JOB, "0/10 * * * * ?");
     }
 
-    // ---------------------------------------------------- Private Methods -------------------------------------------
+    public String getLockExpiryJobCron() {
+        return getConfigManager().get().getString(Keys.Cron.LOCK_EXPIRY_JOB, "0/10 * * * * ?");
+    }
 
-    private DataSource getDataSource() {
-        if (dataSource == null) {
+    public boolean isCronGroups() {
+        return getConfigManager().get().getBoolean(Keys.Cron.GROUPS, false);
+    }
 
+    public String getCronEngine() {
+        return getConfigManager().get().getString(Keys.Cron.ENGINE, "quartz");
+    }
+
+    public long getCronSplay() {
+        return getConfigManager().get().getLong(Keys.Cron.SPLAY_MS, 0L);
+    }
+
+    public boolean isCronSkipMisfires() {
+        return getConfigManager().get().getBoolean(Keys.Cron.SKIP_MISFIRES, false);
+    }
+
+    /**
+     * Return the configured JDBC URL, or the MySQL one built from the server, port and database name.
+     */
+    public String getJdbcUrl() {
+
+        String url = getConfigManager().get().getString(Keys.Db.URL);
+        if (url == null) {
             String host = getConfigManager().get().getString(Keys.Db.SERVER);
             int port = getConfigManager().get().getInt(Keys.Db.PORT);
             String dbname = getConfigManager().get().getString(Keys.Db.DB_NAME);
-            String user = getConfigManager().get().getString(Keys.Db.USER);
-            String password = getConfigManager().get().getString(Keys.Db.PASSWORD);
 
-            Properties props = new Properties();
-            props.setProperty("user", user);
-            props.setProperty("password", password);
-            props.setProperty("defaultTransactionIsolation", "NONE");
+            url = "jdbc:mysql://" + host + ":" + port + "/" + dbname + "?tcpKeepAlive=true";
+        }
+        return url;
+    }
+
+    // ---------------------------------------------------- Private Methods -------------------------------------------
 
-            String url = "jdbc:mysql://" + host + ":" + port + "/" + dbname + "?tcpKeepAlive=true";
+    private DataSource getDataSource() {
+        if (dataSource == null) {
+            dataSource = new RoutingDataSource(getConnectionPools(), getReplicaSet());
+        }
+        return dataSource;
+    }
 
-            GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-            poolConfig.setMinIdle(getDbCnxPoolMin());
-            poolConfig.setMaxTotal(getDbCnxPoolMax());
+    /**
+     * Apply the reloaded pool sizes to the resources already created. The wake-up job reads its thread pool size each
+     * time it is fired.
+     */
+    private void resizeResources() {
+
+        if (httpCnxManager != null) {
+            int poolSize = getOutputCnxPoolSize();
+            if (httpCnxManager.getDefaultMaxPerRoute() != poolSize) {
+                httpCnxManager.setDefaultMaxPerRoute(poolSize);
+                httpCnxManager.setMaxTotal(poolSize * 2);
+                LOG.info("HTTP connection pool resized : maxPerRoute={}", poolSize);
+            }
+        }
 
-            ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(url, props);
-            PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(connectionFactory, null);
-            GenericObjectPool<PoolableConnection> connectionPool = new GenericObjectPool<>(poolableConnectionFactory,
-                    poolConfig);
-            poolableConnectionFactory.setPool(connectionPool);
+        if (connectionPools != null) {
+            for (Map.Entry<TrafficClass, ConnectionPool> pool : connectionPools.entrySet()) {
+                pool.getValue().resize(getDbCnxPoolMin(pool.getKey()), getDbCnxPoolMax(pool.getKey()));
+            }
+        }
 
-            dataSource = new PoolingDataSource<>(connectionPool);
+        synchronized (this) {
+            for (ConnectionPool pool : wakeupShardPools.values()) {
+                pool.resize(getWakeupShardPoolMin(), getWakeupShardPoolMax());
+            }
+        }
 
-            LOG.info("Starting wakeup datasource with maxTotal={}", connectionPool.getMaxTotal());
+        if (schedulerShards != null) {
+            for (Scheduler scheduler : schedulerShards.getAll()) {
+                try {
+                    ResizableThreadPool pool = ResizableThreadPool.forScheduler(scheduler.getSchedulerName());
+                    int threadCount = getQuartzThreadCount();
+                    if (pool != null && pool.getThreadCount() != threadCount) {
+                        pool.setThreadCount(threadCount);
+                    }
+                } catch (SchedulerException ex) {
+                    LOG.error("Unable to resize the Quartz thread pool", ex);
+                }
+            }
         }
 
-        return dataSource;
+        if (jobService != null) {
+            try {
+                ((JobSchedulingServiceImpl) jobService).updateWakeupJobCron(getWakeupJobCron());
+            } catch (AppException ex) {
+                LOG.error("Unable to reschedule the wake-ups timer", ex);
+            }
+        }
     }
 
     private TriggerListener getLockTriggerListener() {
-        return new DefaultTriggerListener(getJobStateService());
+        return new DefaultTriggerListener(getJobStateService(), getClock());
     }
 
     private JobListener getRetryJobListener() {
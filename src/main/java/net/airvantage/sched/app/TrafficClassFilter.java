@@ -0,0 +1,48 @@
+package net.airvantage.sched.app;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import net.airvantage.sched.db.TrafficClass;
+
+/**
+ * A filter to serve the API requests database queries with the API connection pools.
+ *
+ * <p>
+ * GET requests use the {@link TrafficClass#API_READ} pool, the other ones the {@link TrafficClass#API_WRITE} pool.
+ * </p>
+ */
+public class TrafficClassFilter implements Filter {
+
+    public TrafficClassFilter() {}
+
+    @Override
+    public void init(FilterConfig arg0) throws ServletException {}
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse resp, FilterChain chain) throws IOException,
+            ServletException {
+
+        String method = ((HttpServletRequest) req).getMethod();
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+
+        TrafficClass.set(read ? TrafficClass.API_READ : TrafficClass.API_WRITE);
+        try {
+            chain.doFilter(req, resp);
+
+        } finally {
+            TrafficClass.set(null);
+        }
+    }
+
+    @Override
+    public void destroy() {}
+
+}
@@ -2,12 +2,14 @@ package net.airvantage.sched.app.mapper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.model.JobDef;
 import net.airvantage.sched.model.JobId;
 import net.airvantage.sched.model.PostHttpJobResult;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -34,6 +36,17 @@ public class JsonMapper {
         }
     }
 
+    public List<JobDef> jobDefs(InputStream is) throws AppException {
+
+        try {
+            return jsonMapper.reader(new TypeReference<List<JobDef>>() {
+            }).readValue(is);
+
+        } catch (IOException ioex) {
+            throw new AppException("invalid.json", ioex);
+        }
+    }
+
     public JobId jobId(InputStream is) throws AppException {
 
         try {
@@ -0,0 +1,117 @@
+package net.airvantage.sched.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sequential reader of a workload capture log written by {@link CaptureLogWriter}.
+ */
+public class CaptureLogReader implements Iterator<CaptureRecord>, Closeable {
+
+    private static final String SEGMENT_PREFIX = "capture-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Iterator<Path> segments;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private CaptureRecord next;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public CaptureLogReader(Path directory) throws IOException {
+        this.segments = segments(directory).iterator();
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Returns the segment files of the given capture directory, in writing order.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+
+        List<Path> res = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path path : stream) {
+                    res.add(path);
+                }
+            }
+        }
+
+        Collections.sort(res);
+        return res;
+    }
+
+    public static Path segmentPath(Path directory, int segment) {
+        return directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        try {
+            while (next == null) {
+                if (buffer != null && buffer.remaining() >= 4) {
+                    int size = buffer.getInt();
+                    if (size > 0 && size <= buffer.remaining()) {
+                        next = CaptureRecord.readFrom(buffer);
+                        continue;
+                    }
+                }
+
+                // End of segment
+                closeSegment();
+                if (!segments.hasNext()) {
+                    return false;
+                }
+                channel = FileChannel.open(segments.next(), StandardOpenOption.READ);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return true;
+
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read capture log", e);
+        }
+    }
+
+    @Override
+    public CaptureRecord next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CaptureRecord record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private void closeSegment() throws IOException {
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package net.airvantage.sched.capture;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only writer of the workload capture log.
+ *
+ * <p>
+ * Records are queued by the request threads and written by a single background thread into memory-mapped segment
+ * files ({@code capture-00000.log}, {@code capture-00001.log}...). Each record is prefixed by its length, a zero
+ * length marks the end of a segment. When the queue is full the records are dropped rather than slowing down the
+ * requests.
+ * </p>
+ */
+public class CaptureLogWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CaptureLogWriter.class);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final BlockingQueue<CaptureRecord> queue;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // Only accessed by the writer thread
+    private int segment;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public CaptureLogWriter(Path directory, int segmentSize, int queueSize) {
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    public synchronized void start() throws IOException {
+
+        Files.createDirectories(directory);
+
+        // Never overwrite a previous capture
+        segment = CaptureLogReader.segments(directory).size();
+        openSegment();
+
+        running = true;
+        thread = new Thread(this::run, "capture-writer");
+        thread.setDaemon(true);
+        thread.start();
+
+        LOG.info("Workload capture started in {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Queue a record, without blocking.
+     */
+    public void append(CaptureRecord record) {
+
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write the pending records and release the current segment.
+     */
+    public synchronized void close() {
+
+        if (thread != null) {
+            running = false;
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+
+            LOG.info("Workload capture stopped : written={}, dropped={}", written.get(), dropped.get());
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private void run() {
+
+        try {
+            while (running || !queue.isEmpty()) {
+                CaptureRecord record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    write(record);
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Workload capture aborted", e);
+
+        } finally {
+            running = false;
+            closeSegment();
+        }
+    }
+
+    private void write(CaptureRecord record) throws IOException {
+
+        int size = record.size();
+        if (size + 8 > segmentSize) {
+            LOG.warn("Capture record too large, dropped : {}", record);
+            dropped.incrementAndGet();
+            return;
+        }
+
+        // Keep room for the end marker
+        if (buffer.remaining() < size + 8) {
+            closeSegment();
+            segment++;
+            openSegment();
+        }
+
+        buffer.putInt(size);
+        record.writeTo(buffer);
+        written.incrementAndGet();
+    }
+
+    private void openSegment() throws IOException {
+
+        file = new RandomAccessFile(CaptureLogReader.segmentPath(directory, segment).toFile(), "rw");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void closeSegment() {
+
+        if (file != null) {
+            try {
+                buffer.putInt(0);
+                buffer.force();
+
+                // Only keep the used part of the segment
+                file.setLength(buffer.position());
+                file.close();
+
+            } catch (IOException e) {
+                LOG.error("Unable to close capture segment " + segment, e);
+            }
+            file = null;
+            buffer = null;
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package net.airvantage.sched.capture;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An entry of the workload capture log.
+ * 
+ * <p>
+ * Binary layout : type (1 byte), timestamp (8 bytes), job id (2 bytes length + UTF-8), data (4 bytes length + bytes),
+ * then for callbacks only : status (1 byte), ack (1 byte), retry (8 bytes), retry date (8 bytes), latency ms (4
+ * bytes).
+ * </p>
+ */
+public class CaptureRecord {
+
+    public enum Type {
+        /** POST /api/job-def, the data is the job definition JSON. */
+        JOB_DEF,
+        /** DELETE /api/job-def */
+        JOB_DELETE,
+        /** POST /api/job-action/ack */
+        JOB_ACK,
+        /** POST /api/job-action/trigger */
+        JOB_TRIGGER,
+        /** Outcome of a job callback. */
+        CALLBACK
+    }
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private Type type;
+    private long timestamp;
+    private String jobId;
+    private byte[] data = NO_DATA;
+
+    private boolean success;
+    private boolean ack;
+    private long retry;
+    private long retryDate;
+    private int latency;
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Size of the encoded record, in bytes.
+     */
+    public int size() {
+
+        int size = 1 + 8 + 2 + utf8(jobId).length + 4 + data.length;
+        if (type == Type.CALLBACK) {
+            size += 1 + 1 + 8 + 8 + 4;
+        }
+        return size;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+
+        byte[] id = utf8(jobId);
+
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(timestamp);
+        buffer.putShort((short) id.length);
+        buffer.put(id);
+        buffer.putInt(data.length);
+        buffer.put(data);
+
+        if (type == Type.CALLBACK) {
+            buffer.put((byte) (success ? 1 : 0));
+            buffer.put((byte) (ack ? 1 : 0));
+            buffer.putLong(retry);
+            buffer.putLong(retryDate);
+            buffer.putInt(latency);
+        }
+    }
+
+    public static CaptureRecord readFrom(ByteBuffer buffer) {
+
+        CaptureRecord record = new CaptureRecord();
+        record.type = Type.values()[buffer.get()];
+        record.timestamp = buffer.getLong();
+
+        byte[] id = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(id);
+        record.jobId = new String(id, StandardCharsets.UTF_8);
+
+        record.data = new byte[buffer.getInt()];
+        buffer.get(record.data);
+
+        if (record.type == Type.CALLBACK) {
+            record.success = buffer.get() == 1;
+            record.ack = buffer.get() == 1;
+            record.retry = buffer.getLong();
+            record.retryDate = buffer.getLong();
+            record.latency = buffer.getInt();
+        }
+        return record;
+    }
+
+    // ---------------------------------------------- Getters and Setters ---------------------------------------------
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = (data != null) ? data : NO_DATA;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public boolean isAck() {
+        return ack;
+    }
+
+    public void setAck(boolean ack) {
+        this.ack = ack;
+    }
+
+    public long getRetry() {
+        return retry;
+    }
+
+    public void setRetry(long retry) {
+        this.retry = retry;
+    }
+
+    public long getRetryDate() {
+        return retryDate;
+    }
+
+    public void setRetryDate(long retryDate) {
+        this.retryDate = retryDate;
+    }
+
+    public int getLatency() {
+        return latency;
+    }
+
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("CaptureRecord [type=");
+        builder.append(type);
+        builder.append(", timestamp=");
+        builder.append(timestamp);
+        builder.append(", jobId=");
+        builder.append(jobId);
+        builder.append(", data=");
+        builder.append(data.length);
+        builder.append(" bytes");
+        if (type == Type.CALLBACK) {
+            builder.append(", success=");
+            builder.append(success);
+            builder.append(", ack=");
+            builder.append(ack);
+            builder.append(", retry=");
+            builder.append(retry);
+            builder.append(", retryDate=");
+            builder.append(retryDate);
+            builder.append(", latency=");
+            builder.append(latency);
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private static byte[] utf8(String value) {
+        return (value != null) ? value.getBytes(StandardCharsets.UTF_8) : NO_DATA;
+    }
+
+}
@@ -0,0 +1,110 @@
+package net.airvantage.sched.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+
+import net.airvantage.sched.capture.CaptureRecord.Type;
+import net.airvantage.sched.quartz.job.JobResult;
+import net.airvantage.sched.quartz.job.JobResult.CallbackStatus;
+
+/**
+ * Records the API calls and the callback outcomes into a {@link CaptureLogWriter}, so the workload can be replayed
+ * later.
+ *
+ * <p>
+ * All the methods return immediately, and do nothing when the capture is disabled.
+ * </p>
+ */
+public class WorkloadCapture {
+
+    private static final WorkloadCapture DISABLED = new WorkloadCapture(null, Clock.systemUTC());
+
+    private final CaptureLogWriter writer;
+    private final Clock clock;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public WorkloadCapture(CaptureLogWriter writer, Clock clock) {
+
+        this.writer = writer;
+        this.clock = clock;
+    }
+
+    public static WorkloadCapture disabled() {
+        return DISABLED;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * A job has been scheduled with the given JSON definition.
+     */
+    public void jobDef(String jobId, String json) {
+
+        if (writer != null) {
+            CaptureRecord record = record(Type.JOB_DEF, jobId);
+            record.setData(json.getBytes(StandardCharsets.UTF_8));
+            writer.append(record);
+        }
+    }
+
+    public void jobDelete(String jobId) {
+
+        if (writer != null) {
+            writer.append(record(Type.JOB_DELETE, jobId));
+        }
+    }
+
+    public void jobAck(String jobId) {
+
+        if (writer != null) {
+            writer.append(record(Type.JOB_ACK, jobId));
+        }
+    }
+
+    public void jobTrigger(String jobId) {
+
+        if (writer != null) {
+            writer.append(record(Type.JOB_TRIGGER, jobId));
+        }
+    }
+
+    /**
+     * A job callback has returned the given result after {@code latency} ms.
+     */
+    public void callback(JobResult result, long latency) {
+
+        if (writer != null && result != null) {
+            CaptureRecord record = record(Type.CALLBACK, result.getJobId());
+            record.setSuccess(result.getStatus() == CallbackStatus.SUCCESS);
+            record.setAck(result.isAck());
+            record.setRetry(result.getRetry());
+            record.setRetryDate(result.getRetryDate());
+            record.setLatency((int) Math.min(Integer.MAX_VALUE, latency));
+            writer.append(record);
+        }
+    }
+
+    public void close() {
+
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private CaptureRecord record(Type type, String jobId) {
+
+        CaptureRecord record = new CaptureRecord();
+        record.setType(type);
+        record.setTimestamp(clock.millis());
+        record.setJobId(jobId);
+        return record;
+    }
+
+}
@@ -0,0 +1,203 @@
+package net.airvantage.sched.conf;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConversionException;
+import org.apache.commons.configuration.PropertyConverter;
+
+/**
+ * Immutable copy of the application configuration, taken when the configuration is loaded or reloaded.
+ *
+ * <p>
+ * Values are resolved (interpolated) and converted once when the snapshot is built, so reads are plain map lookups
+ * without locking. As with the configuration, the string of a multi-valued key is its first value. A snapshot may count the requested keys in a usage map shared with the snapshots which replace it.
+ * </p>
+ */
+public final class ConfigSnapshot {
+
+    private final Map<String, Value> values;
+    private final ConcurrentMap<String, LongAdder> usage;
+
+    private ConfigSnapshot(Map<String, Value> values, ConcurrentMap<String, LongAdder> usage) {
+        this.values = values;
+        this.usage = usage;
+    }
+
+    /**
+     * Copy the current content of the given configuration.
+     *
+     * @param usage the map counting the requested keys, or {@code null} to not track them.
+     */
+    public static ConfigSnapshot of(Configuration conf, ConcurrentMap<String, LongAdder> usage) {
+
+        Map<String, Value> values = new LinkedHashMap<>();
+        Iterator<String> keys = conf.getKeys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            values.put(key, new Value(conf.getStringArray(key)));
+        }
+        return new ConfigSnapshot(Collections.unmodifiableMap(values), usage);
+    }
+
+    /**
+     * Returns the same snapshot, without counting the requested keys.
+     */
+    public ConfigSnapshot withoutTracking() {
+        return (usage == null) ? this : new ConfigSnapshot(values, null);
+    }
+
+    public boolean containsKey(String key) {
+        return values.containsKey(key);
+    }
+
+    public Iterator<String> getKeys() {
+        return values.keySet().iterator();
+    }
+
+    public String getString(String key) {
+        return getString(key, null);
+    }
+
+    public String getString(String key, String defaultValue) {
+
+        Value value = get(key);
+        return (value != null) ? value.string : defaultValue;
+    }
+
+    /**
+     * Returns all the values of a multi-valued key, an empty array if the key is not set.
+     */
+    public String[] getStringArray(String key) {
+
+        Value value = get(key);
+        return (value != null) ? value.array.clone() : new String[0];
+    }
+
+    public int getInt(String key) {
+        return getRequired(key).toInt();
+    }
+
+    public int getInt(String key, int defaultValue) {
+
+        Value value = get(key);
+        return (value != null) ? value.toInt() : defaultValue;
+    }
+
+    public long getLong(String key) {
+        return getRequired(key).toLong();
+    }
+
+    public long getLong(String key, long defaultValue) {
+
+        Value value = get(key);
+        return (value != null) ? value.toLong() : defaultValue;
+    }
+
+    public double getDouble(String key, double defaultValue) {
+
+        Value value = get(key);
+        return (value != null) ? value.toDouble() : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+
+        Value value = get(key);
+        return (value != null) ? value.toBoolean() : defaultValue;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private Value get(String key) {
+
+        if (usage != null) {
+            // Plain get first : computeIfAbsent locks the bin even when the key is present
+            LongAdder counter = usage.get(key);
+            if (counter == null) {
+                counter = usage.computeIfAbsent(key, k -> new LongAdder());
+            }
+            counter.increment();
+        }
+        return values.get(key);
+    }
+
+    private Value getRequired(String key) {
+
+        Value value = get(key);
+        if (value == null) {
+            throw new NoSuchElementException("Configuration key '" + key + "' does not map to an existing object");
+        }
+        return value;
+    }
+
+    /**
+     * The values of a key, with the typed value its first value converts to, {@code null} if it does not : the
+     * conversion is then done again when requested, to throw its error.
+     */
+    private static final class Value {
+
+        private final String string;
+        private final String[] array;
+
+        private final Integer intValue;
+        private final Long longValue;
+        private final Double doubleValue;
+        private final Boolean booleanValue;
+
+        Value(String[] array) {
+            this.array = array;
+            this.string = (array.length > 0) ? array[0] : null;
+
+            Integer i = null;
+            Long l = null;
+            Double d = null;
+            Boolean b = null;
+            if (string != null) {
+                try {
+                    l = PropertyConverter.toLong(string);
+                    i = PropertyConverter.toInteger(string);
+                } catch (ConversionException ex) {
+                    // Not an integer, or out of the int range
+                }
+                try {
+                    d = PropertyConverter.toDouble(string);
+                } catch (ConversionException ex) {
+                    // Not a number
+                }
+                try {
+                    b = PropertyConverter.toBoolean(string);
+                } catch (ConversionException ex) {
+                    // Not a boolean
+                }
+            }
+            this.intValue = i;
+            this.longValue = l;
+            this.doubleValue = d;
+            this.booleanValue = b;
+        }
+
+        int toInt() {
+            return (intValue != null) ? intValue : PropertyConverter.toInteger(string);
+        }
+
+        long toLong() {
+            return (longValue != null) ? longValue : PropertyConverter.toLong(string);
+        }
+
+        double toDouble() {
+            return (doubleValue != null) ? doubleValue : PropertyConverter.toDouble(string);
+        }
+
+        boolean toBoolean() {
+            return (booleanValue != null) ? booleanValue : PropertyConverter.toBoolean(string);
+        }
+
+    }
+
+}
@@ -1,13 +1,18 @@
 package net.airvantage.sched.conf;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import net.airvantage.sched.app.ServiceLocator;
 
@@ -29,6 +34,16 @@ import org.slf4j.LoggerFactory;
  * Configuration works with properties files. One is embedded with the runtime and contains the defaults. And one other
  * may be defined to override those defaults. It is reloadable (scanning content every 10 seconds) but all the
  * properties are not reload compliant.
+ *
+ * <p>
+ * Readers get an immutable {@link ConfigSnapshot}, published through a volatile reference and replaced as a whole when
+ * the file is reloaded, so reading the configuration never locks.
+ * </p>
+ *
+ * <p>
+ * Every node checks its own file with {@link #startReloading(long)} and notifies the registered
+ * {@link ConfigurationUpdateListener} when it changed.
+ * </p>
  */
 public class ConfigurationManager implements ConfigurationListener {
 
@@ -36,9 +51,12 @@ public class ConfigurationManager implements ConfigurationListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConfigurationManager.class);
 
-    private TrackingConfiguration trackConf;
     private Configuration noTrackConf;
 
+    private final ConcurrentMap<String, LongAdder> requestedKeys = new ConcurrentHashMap<>(100);
+    private volatile ConfigSnapshot snapshot;
+    private volatile boolean snapshotStale = false;
+
     private PropertiesConfiguration configLocal;
 
     public ConfigurationManager() {
@@ -68,7 +86,7 @@ public class ConfigurationManager implements ConfigurationListener {
             cConf.addConfiguration(configDefault);
 
             noTrackConf = cConf;
-            trackConf = new TrackingConfiguration(cConf);
+            snapshot = ConfigSnapshot.of(cConf, requestedKeys);
         } catch (ConfigurationException e) {
             e.printStackTrace();
         }
@@ -79,11 +97,16 @@ public class ConfigurationManager implements ConfigurationListener {
     }
 
     public void reload() {
-        trackConf.getString("fake-key-used-to-trigger-reloading"); // triggers an internal reload
+        noTrackConf.getString("fake-key-used-to-trigger-reloading"); // triggers an internal reload
+
+        if (snapshotStale) {
+            snapshotStale = false;
+            snapshot = ConfigSnapshot.of(noTrackConf, requestedKeys);
+        }
         new FailFastConfigurationChecker().failIfNotCorrect(this.get());
     }
 
-    public Configuration get() {
+    public ConfigSnapshot get() {
         return get(true);
     }
 
@@ -93,25 +116,61 @@ public class ConfigurationManager implements ConfigurationListener {
 
     // We can get a configuration without tracking just because when we want to display / dump content we should not
     // increment counters...
-    public Configuration get(boolean withTracking) {
+    public ConfigSnapshot get(boolean withTracking) {
         if (withTracking) {
-            return trackConf;
+            return snapshot;
         } else {
-            return noTrackConf;
+            return snapshot.withoutTracking();
         }
     }
 
-    public Map<String, Integer> getRequestedKeys() {
-        Map<String, Integer> ret = new HashMap<>();
-        for (Entry<String, AtomicInteger> e : trackConf.getRequestedKeys().entrySet()) {
-            ret.put(e.getKey(), e.getValue().get());
+    public Map<String, Long> getRequestedKeys() {
+        Map<String, Long> ret = new HashMap<>();
+        for (Entry<String, LongAdder> e : requestedKeys.entrySet()) {
+            ret.put(e.getKey(), e.getValue().sum());
         }
         return ret;
     }
 
     // ---------- Reload mechanism ----------
-    private boolean needsReload = false;
-    private final List<ConfigurationUpdateListener> changeListeners = new ArrayList<>();
+    private volatile boolean needsReload = false;
+    private final List<ConfigurationUpdateListener> changeListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService reloadExecutor;
+
+    /**
+     * Check the configuration file for changes every {@code period} ms, and notify the listeners of the changes.
+     */
+    public synchronized void startReloading(long period) {
+
+        if (reloadExecutor != null || period <= 0) {
+            return;
+        }
+
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+                notifyReload();
+            } catch (RuntimeException ex) {
+                // Keep checking, a failure would cancel the next executions
+                LOG.error("Unable to reload the configuration", ex);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+
+        LOG.info("Configuration reloading started, period={}ms", period);
+    }
+
+    public synchronized void stopReloading() {
+
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
+        }
+    }
 
     public void registerReloadListener(ConfigurationUpdateListener listener) {
         changeListeners.add(listener);
@@ -120,6 +179,10 @@ public class ConfigurationManager implements ConfigurationListener {
 
     @Override
     public void configurationChanged(ConfigurationEvent event) {
+        if (event.isBeforeUpdate()) {
+            return;
+        }
+        snapshotStale = true;
         needsReload = true;
         LOG.debug("Configuration reloaded, notification should happen soon.");
     }
@@ -130,7 +193,11 @@ public class ConfigurationManager implements ConfigurationListener {
             dumpConfig();
 
             for (ConfigurationUpdateListener listener : changeListeners) {
-                listener.configurationUpdated();
+                try {
+                    listener.configurationUpdated();
+                } catch (RuntimeException ex) {
+                    LOG.error("Unable to apply the configuration update with " + listener, ex);
+                }
             }
             needsReload = false;
         }
@@ -184,10 +251,11 @@ public class ConfigurationManager implements ConfigurationListener {
     }
 
     private void dumpConfig() {
-        Iterator<String> keys = noTrackConf.getKeys();
+        ConfigSnapshot conf = get(false);
+        Iterator<String> keys = conf.getKeys();
         while (keys.hasNext()) {
             String k = keys.next();
-            LOG.info("Config dump > " + k + "=" + noTrackConf.getProperty(k));
+            LOG.info("Config dump > " + k + "=" + conf.getString(k));
         }
 
     }
@@ -2,7 +2,6 @@ package net.airvantage.sched.conf;
 
 import java.util.Set;
 
-import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,7 +12,7 @@ import com.google.common.collect.Sets;
  */
 public class FailFastConfigurationChecker {
 
-    private static final Logger LOG = LoggerFactory.getLogger(TrackingConfiguration.class);
+    private static final Logger LOG = LoggerFactory.getLogger(FailFastConfigurationChecker.class);
 
     private static final String[] MANDATORY_KEYS = new String[] { 
         Keys.SECRET,
@@ -23,7 +22,18 @@ public class FailFastConfigurationChecker {
         Keys.Db.USER,
     };
 
-    public synchronized void failIfNotCorrect(Configuration configuration) {
+    // Wake-up stores of a single node, the only ones where the node id of the generated job ids can be derived from
+    // the process : two nodes could get the same default id
+    private static final Set<String> SINGLE_NODE_STORES = Sets.newHashSet("memory", "embedded", "mapped");
+
+    // Not required when a full JDBC URL is given
+    private static final String[] URL_KEYS = new String[] { 
+        Keys.Db.SERVER,
+        Keys.Db.DB_NAME,
+        Keys.Db.PORT,
+    };
+
+    public synchronized void failIfNotCorrect(ConfigSnapshot configuration) {
 
         Set<String> missing = Sets.newHashSet();
         for (String mandatoryKey : MANDATORY_KEYS) {
@@ -32,6 +42,15 @@ public class FailFastConfigurationChecker {
             }
         }
 
+        if (configuration.containsKey(Keys.Db.URL)) {
+            missing.removeAll(Sets.newHashSet(URL_KEYS));
+        }
+
+        String store = configuration.getString(Keys.Wakeup.STORE, "mysql");
+        if (!SINGLE_NODE_STORES.contains(store) && !configuration.containsKey(Keys.ID_NODE)) {
+            missing.add(Keys.ID_NODE);
+        }
+
         if (missing.size() > 0) {
             LOG.error("FATAL: Missing mandatory configuration keys '{}'", missing);
             LOG.error("FATAL: Exiting");
@@ -4,6 +4,15 @@ public class Keys {
 
     public static final String SECRET = "av-sched.secret";
 
+    /** Delay between two checks of the local configuration file, 0 to disable the reloading. */
+    public static final String RELOAD_PERIOD = "av-sched.conf.reload.period.ms";
+
+    /**
+     * Node id (0 to 1023) of the generated job ids, different on each node. Required unless the wake-ups are stored on
+     * a single node, derived from the process by default.
+     */
+    public static final String ID_NODE = "av-sched.id.node";
+
     public class Db {
 
         public static final String SERVER = "av-sched.db.server";
@@ -12,9 +21,31 @@ public class Keys {
         public static final String USER = "av-sched.db.user";
         public static final String PASSWORD = "av-sched.db.password";
 
+        /** Optional JDBC URL overriding the MySQL URL built from the server, port and db name. */
+        public static final String URL = "av-sched.db.url";
+        public static final String DRIVER = "av-sched.db.driver";
+        /** Quartz driver delegate, for databases not handled by the standard JDBC delegate. */
+        public static final String QUARTZ_DELEGATE = "av-sched.db.quartzDelegate";
+
+        /** Size of the dispatch connection pool. */
         public static final String POOL_MIN = "av-sched.db.cnx.pool.min";
         public static final String POOL_MAX = "av-sched.db.cnx.pool.max";
 
+        /** Size of the pool of a traffic class, e.g. "av-sched.db.cnx.pool.api-read.max". */
+        public static final String CLASS_POOL_MIN = "av-sched.db.cnx.pool.%s.min";
+        public static final String CLASS_POOL_MAX = "av-sched.db.cnx.pool.%s.max";
+        /** Comma separated JDBC URLs of the read replicas serving the API reads, none by default. */
+        public static final String REPLICA_URLS = "av-sched.db.replica.urls";
+        /** Replicas lagging more than this are not read. */
+        public static final String REPLICA_MAX_LAG = "av-sched.db.replica.max.lag.ms";
+        public static final String REPLICA_CHECK_INTERVAL = "av-sched.db.replica.check.interval.ms";
+
+        /** Delay between two validations of the idle connections. */
+        public static final String VALIDATION_INTERVAL = "av-sched.db.cnx.validation.interval.ms";
+
+        /** Convert the jobs and wake-ups tables to a BIGINT surrogate primary key on startup, false by default. */
+        public static final String SURROGATE_KEYS = "av-sched.db.surrogate.keys";
+
     }
 
     public class Io {
@@ -24,12 +55,114 @@ public class Keys {
 
         public static final String IN_CNX_POOL_SIZE = "av-sched.servlet.cnx.pool.size";
 
+        /** Maximum number of parsed callback URLs kept by the node. */
+        public static final String ENDPOINT_CACHE_SIZE = "av-sched.endpoint.cache.size";
+
+    }
+
+    public class Quartz {
+
+        /** "default" or "high-throughput", the defaults of the following keys. */
+        public static final String PROFILE = "av-sched.quartz.profile";
+
+        /** Number of Quartz schedulers of distinct names the CRON jobs are spread over, 1 by default. */
+        public static final String SHARDS = "av-sched.quartz.shards";
+
+        /** Number of threads running the Quartz jobs of each scheduler, reloadable. */
+        public static final String THREAD_COUNT = "av-sched.quartz.thread.count";
+        public static final String THREAD_PRIORITY = "av-sched.quartz.thread.priority";
+
+        public static final String CLUSTER_CHECKIN_INTERVAL = "av-sched.quartz.cluster.checkin.interval.ms";
+        public static final String MISFIRE_THRESHOLD = "av-sched.quartz.misfire.threshold.ms";
+        public static final String MAX_MISFIRES = "av-sched.quartz.misfire.max.per.pass";
+
+        /** Maximum number of triggers acquired at once, and how far ahead of their fire time. */
+        public static final String BATCH_MAX_COUNT = "av-sched.quartz.batch.max.count";
+        public static final String BATCH_TIME_WINDOW = "av-sched.quartz.batch.time.window.ms";
+        public static final String ACQUIRE_WITHIN_LOCK = "av-sched.quartz.acquire.within.lock";
+
+        /** Delay before the scheduler looks for new triggers when none is due. */
+        public static final String IDLE_WAIT_TIME = "av-sched.quartz.idle.wait.ms";
+
     }
 
     public class Cron {
 
         public static final String WAKEUP_JOB = "av-sched.wakeup.job.cron";
 
+        /** The timer releasing the expired locks and resuming the triggers of their jobs. */
+        public static final String LOCK_EXPIRY_JOB = "av-sched.lock.expiry.job.cron";
+
+        /** "quartz" (default) or "table" : CRON jobs stored in a table and fired by the wake-ups timer. */
+        public static final String ENGINE = "av-sched.cron.engine";
+
+        /** Fire the Quartz CRON jobs of a same expression with one shared trigger, false by default. */
+        public static final String GROUPS = "av-sched.cron.groups";
+
+        /** Window in ms the fire times of the CRON jobs registered without one are spread over, 0 by default. */
+        public static final String SPLAY_MS = "av-sched.cron.splay.ms";
+
+        /** Skip the fire times missed by the Quartz CRON jobs instead of firing them once at once, false by default. */
+        public static final String SKIP_MISFIRES = "av-sched.cron.misfire.skip";
+
+    }
+
+    public class Wakeup {
+
+        /** Wake-ups storage : "mysql" (default), "memory", "embedded", "mapped", "sharded" or "partitioned". */
+        public static final String STORE = "av-sched.wakeup.store";
+        public static final String STORE_DIR = "av-sched.wakeup.store.dir";
+
+        /** Segment size of the "mapped" store log, and whether each write is flushed to the disk. */
+        public static final String STORE_SEGMENT_SIZE = "av-sched.wakeup.store.segment.size";
+        public static final String STORE_SYNC = "av-sched.wakeup.store.sync";
+
+        /** Delay before a wake-up claimed by a dispatcher is fired again if not completed. */
+        public static final String CLAIM_LEASE = "av-sched.wakeup.claim.lease.ms";
+
+        /** Wake-ups dispatched per second and per node above which the flexible ones are moved, 0 by default. */
+        public static final String TARGET_RATE = "av-sched.wakeup.target.rate";
+
+        /** Delay after now within which a new wake-up is fired by the receiving node, negative to disable. */
+        public static final String IMMEDIATE_WINDOW = "av-sched.wakeup.immediate.window.ms";
+
+        /**
+         * Whether the callback URLs are still written in the callback column of the wake-ups tables for the nodes of
+         * the previous version, true by default. False once all the nodes are upgraded, which drops the column.
+         */
+        public static final String CALLBACK_COLUMN = "av-sched.wakeup.callback.column";
+
+        /** Comma separated JDBC URLs of the "sharded" store schemas, and of the layout being migrated from. */
+        public static final String SHARD_URLS = "av-sched.wakeup.shards.urls";
+        public static final String PREVIOUS_SHARD_URLS = "av-sched.wakeup.shards.previous.urls";
+
+        /** Time range of a "partitioned" store partition, how long in advance they are created, and how often. */
+        public static final String PARTITION_INTERVAL = "av-sched.wakeup.partition.interval.ms";
+        public static final String PARTITION_AHEAD = "av-sched.wakeup.partition.ahead.ms";
+        public static final String PARTITION_MAINTENANCE_PERIOD = "av-sched.wakeup.partition.maintenance.period.ms";
+
+    }
+
+    public class Capture {
+
+        public static final String ENABLED = "av-sched.capture.enabled";
+        public static final String DIR = "av-sched.capture.dir";
+        public static final String SEGMENT_SIZE = "av-sched.capture.segment.size";
+        public static final String QUEUE_SIZE = "av-sched.capture.queue.size";
+
+    }
+
+    public class Clock {
+
+        /** "system" (default) or "simulated". */
+        public static final String MODE = "av-sched.clock.mode";
+
+        /** Simulated clock start date (epoch ms), now by default. */
+        public static final String START = "av-sched.clock.start";
+
+        /** Simulated milliseconds per real millisecond, 1 by default. */
+        public static final String SPEED = "av-sched.clock.speed";
+
     }
 
 }
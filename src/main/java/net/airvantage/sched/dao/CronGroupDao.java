@@ -0,0 +1,235 @@
+package net.airvantage.sched.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobScheduling;
+import net.airvantage.sched.model.JobSchedulingType;
+
+/**
+ * DAO to manage the CRON jobs fired by the shared trigger of their CRON expression, stored in the
+ * {@code sched_cron_group_members} table.
+ */
+public class CronGroupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(CronGroupDao.class);
+
+    private QueryExecutor queryExecutor;
+
+    public CronGroupDao(DataSource dataSource) {
+        this.queryExecutor = new QueryExecutor(dataSource);
+    }
+
+    /**
+     * Add a job to the group of the given CRON expression, or move it there.
+     *
+     * @param splay the window in ms the fire times of the job are spread over, 0 if not spread.
+     */
+    public void persist(String jobId, String cron, long splay) throws DaoRuntimeException {
+        LOG.debug("persist : jobId={}, cron={}, splay={}", jobId, cron, splay);
+
+        try {
+            queryExecutor.update(
+                    "insert into sched_cron_group_members(job_id,cron_expr,splay_ms) values(?,?,?) on duplicate key update cron_expr=?, splay_ms=?",
+                    jobId, cron, splay, cron, splay);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Remove a job from its group.
+     *
+     * @return true if the job was a member of a group.
+     */
+    public boolean delete(String jobId) throws DaoRuntimeException {
+        LOG.debug("delete : jobId={}", jobId);
+
+        try {
+            return queryExecutor.update("delete from sched_cron_group_members where job_id=?", jobId) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    public void deleteAll() throws DaoRuntimeException {
+
+        try {
+            queryExecutor.update("delete from sched_cron_group_members");
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Return the scheduling of a group member, {@code null} if the job is not a member of a group.
+     */
+    public JobScheduling find(String jobId) throws DaoRuntimeException {
+
+        Map<String, JobScheduling> found = query(
+                "select job_id, cron_expr, splay_ms from sched_cron_group_members where job_id=?", jobId);
+        return found.get(jobId);
+    }
+
+    /**
+     * Return the scheduling of all the group members, by job identifier.
+     */
+    public Map<String, JobScheduling> findAll() throws DaoRuntimeException {
+        return query("select job_id, cron_expr, splay_ms from sched_cron_group_members");
+    }
+
+    /**
+     * Return the {@code limit} first members of a group with an identifier greater than {@code afterId}, ordered by
+     * identifier, with the window in ms their fire times are spread over.
+     */
+    public Map<String, Long> findMembers(String cron, String afterId, int limit) throws DaoRuntimeException {
+        LOG.debug("findMembers : cron={}, afterId={}, limit={}", cron, afterId, limit);
+
+        ResultSetHandler<Map<String, Long>> rsh = new ResultSetHandler<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> handle(ResultSet rs) throws SQLException {
+
+                Map<String, Long> res = new LinkedHashMap<>();
+                while (rs.next()) {
+                    res.put(rs.getString(1), rs.getLong(2));
+                }
+                return res;
+            }
+        };
+
+        try {
+            return queryExecutor.query(
+                    "select job_id, splay_ms from sched_cron_group_members where cron_expr=? and job_id > ? order by job_id LIMIT ?",
+                    rsh, cron, afterId, limit);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Store the pending fire of the given members, at the given time, unless a previous fire is still pending.
+     *
+     * @param fireTimes the fire time of each member, by job identifier.
+     * @return the identifiers of the members whose fire is stored.
+     */
+    public Set<String> addFires(Map<String, Long> fireTimes) throws DaoRuntimeException {
+        LOG.debug("addFires : fireTimes={}", fireTimes.size());
+
+        Set<String> res = new HashSet<>();
+        if (fireTimes.isEmpty()) {
+            return res;
+        }
+
+        Object[][] params = new Object[fireTimes.size()][];
+        int i = 0;
+        for (Map.Entry<String, Long> fire : fireTimes.entrySet()) {
+            params[i++] = new Object[] { fire.getValue(), fire.getKey() };
+        }
+
+        try {
+            int[] counts = queryExecutor.batch(
+                    "update sched_cron_group_members set fire_time=? where job_id=? and fire_time is null", params);
+            for (i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    res.add((String) params[i][1]);
+                }
+            }
+            return res;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Claim the pending fire of a member, to be fired by the caller only.
+     *
+     * @return false if the fire is already claimed, or the job is not a member of a group anymore.
+     */
+    public boolean claimFire(String jobId, long fireTime) throws DaoRuntimeException {
+        LOG.debug("claimFire : jobId={}, fireTime={}", jobId, fireTime);
+
+        try {
+            return queryExecutor.update(
+                    "update sched_cron_group_members set fire_time=null where job_id=? and fire_time=?", jobId,
+                    fireTime) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Return the {@code limit} earliest pending fires at or before the given time, with their fire time by job
+     * identifier.
+     */
+    public Map<String, Long> findFires(long before, int limit) throws DaoRuntimeException {
+        LOG.debug("findFires : before={}, limit={}", before, limit);
+
+        ResultSetHandler<Map<String, Long>> rsh = new ResultSetHandler<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> handle(ResultSet rs) throws SQLException {
+
+                Map<String, Long> res = new LinkedHashMap<>();
+                while (rs.next()) {
+                    res.put(rs.getString(1), rs.getLong(2));
+                }
+                return res;
+            }
+        };
+
+        try {
+            return queryExecutor.query(
+                    "select job_id, fire_time from sched_cron_group_members where fire_time <= ? order by fire_time LIMIT ?",
+                    rsh, before, limit);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private Map<String, JobScheduling> query(String sql, Object... params) {
+
+        ResultSetHandler<Map<String, JobScheduling>> rsh = new ResultSetHandler<Map<String, JobScheduling>>() {
+            @Override
+            public Map<String, JobScheduling> handle(ResultSet rs) throws SQLException {
+
+                Map<String, JobScheduling> res = new HashMap<>();
+                while (rs.next()) {
+                    JobScheduling sched = new JobScheduling();
+                    sched.setType(JobSchedulingType.CRON);
+                    sched.setValue(rs.getString(2));
+                    sched.setSplay(rs.getLong(3));
+                    res.put(rs.getString(1), sched);
+                }
+                return res;
+            }
+        };
+
+        try {
+            return queryExecutor.query(sql, rsh, params);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+}
@@ -59,6 +59,19 @@ public class DummyJobStateDao implements JobStateService {
         states.put(id, st);
     }
 
+    public int releaseExpiredLocks(long now, int limit) {
+
+        int released = 0;
+        for (JobState st : states.values()) {
+            JobLock lock = st.getLock();
+            if (released < limit && lock != null && lock.isLocked() && lock.isExpired(now)) {
+                unlockJob(st.getConfig().getId());
+                released++;
+            }
+        }
+        return released;
+    }
+
     public List<JobState> findAll() throws AppException {
         List<JobState> res = new ArrayList<JobState>();
         res.addAll(states.values());
@@ -0,0 +1,79 @@
+package net.airvantage.sched.dao;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Clock;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+
+/**
+ * {@link JobWakeupDao} storing the wake-ups in an embedded H2 database file, for single-node deployments without
+ * MySQL.
+ *
+ * <p>
+ * The database runs in MySQL compatibility mode so the {@link MysqlJobWakeupDao} queries are reused as is.
+ * </p>
+ */
+public class EmbeddedJobWakeupDao extends MysqlJobWakeupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(EmbeddedJobWakeupDao.class);
+
+    public EmbeddedJobWakeupDao(Path directory, int poolSize, int endpointCacheSize, Clock clock)
+            throws DaoRuntimeException {
+        this(createDataSource(directory, poolSize), endpointCacheSize, clock);
+    }
+
+    private EmbeddedJobWakeupDao(DataSource dataSource, int endpointCacheSize, Clock clock)
+            throws DaoRuntimeException {
+        super(dataSource, endpointCacheSize, false, clock);
+
+        try {
+            QueryExecutor queryExecutor = new QueryExecutor(dataSource);
+            queryExecutor.update("CREATE TABLE IF NOT EXISTS sched_job_wakeups (id VARCHAR(255) PRIMARY KEY, "
+                    + "wakeup_time BIGINT NOT NULL, endpoint_id INT, retry_count INT NOT NULL DEFAULT 0, "
+                    + "deadline BIGINT)");
+            queryExecutor.update("CREATE INDEX IF NOT EXISTS IDX_SCHED_WAKEUP_TIME ON sched_job_wakeups(wakeup_time)");
+            queryExecutor.update("CREATE TABLE IF NOT EXISTS sched_endpoints (id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "url VARCHAR(255) NOT NULL UNIQUE)");
+
+            // Files created when the callbacks were stored in the wake-ups table
+
+            Number callbackColumn = queryExecutor.query("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_NAME='SCHED_JOB_WAKEUPS' AND COLUMN_NAME='CALLBACK'", new ScalarHandler<Number>());
+            if (callbackColumn.intValue() > 0) {
+                LOG.info("Moving the embedded wake-ups callbacks to the endpoints table");
+
+                queryExecutor.update("INSERT INTO sched_endpoints(url) SELECT DISTINCT callback FROM sched_job_wakeups "
+                        + "WHERE callback IS NOT NULL");
+                queryExecutor.update("ALTER TABLE sched_job_wakeups ADD COLUMN IF NOT EXISTS endpoint_id INT");
+                queryExecutor.update("UPDATE sched_job_wakeups SET endpoint_id = (SELECT e.id FROM sched_endpoints e "
+                        + "WHERE e.url = sched_job_wakeups.callback)");
+                queryExecutor.update("ALTER TABLE sched_job_wakeups DROP COLUMN callback");
+            }
+
+            // Files created before the deadlines of the flexible wake-ups
+            queryExecutor.update("ALTER TABLE sched_job_wakeups ADD COLUMN IF NOT EXISTS deadline BIGINT");
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException("Unable to create the embedded wake-ups table", ex);
+        }
+    }
+
+    private static DataSource createDataSource(Path directory, int poolSize) {
+
+        String url = "jdbc:h2:" + directory.resolve("wakeups").toAbsolutePath() + ";MODE=MySQL";
+        LOG.info("Starting embedded wake-ups database {}", url);
+
+        JdbcConnectionPool pool = JdbcConnectionPool.create(url, "sa", "");
+        pool.setMaxConnections(poolSize);
+        return pool;
+    }
+
+}
@@ -0,0 +1,101 @@
+package net.airvantage.sched.dao;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+
+/**
+ * Storage of the callback URLs in the {@code sched_endpoints} table, where each distinct URL is stored once and
+ * referenced by its integer id.
+ *
+ * <p>
+ * The endpoints are never changed once created, so they are cached (the {@code maxCached} most recently used).
+ * </p>
+ */
+public class EndpointDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(EndpointDao.class);
+
+    private final QueryExecutor queryExecutor;
+
+    private final Cache<String, Integer> ids;
+    private final Cache<Integer, String> urls;
+
+    public EndpointDao(DataSource dataSource, int maxCached) {
+        this.queryExecutor = new QueryExecutor(dataSource);
+        this.ids = CacheBuilder.newBuilder().maximumSize(maxCached).build();
+        this.urls = CacheBuilder.newBuilder().maximumSize(maxCached).build();
+    }
+
+    /**
+     * Returns the id of the given URL, created if needed, {@code null} for a {@code null} URL.
+     */
+    public Integer idOf(String url) throws DaoRuntimeException {
+
+        if (url == null) {
+            return null;
+        }
+
+        Integer id = ids.getIfPresent(url);
+        if (id == null) {
+            LOG.debug("idOf : url={}", url);
+
+            try {
+                queryExecutor.update("insert ignore into sched_endpoints(url) values(?)", url);
+                Number found = queryExecutor.query("select id from sched_endpoints where url=?",
+                        new ScalarHandler<Number>(), url);
+
+                id = found.intValue();
+                cache(id, url);
+
+            } catch (SQLException ex) {
+                throw new DaoRuntimeException(ex);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the URL with the given id, {@code null} if none.
+     */
+    public String urlOf(Integer id) throws DaoRuntimeException {
+
+        if (id == null) {
+            return null;
+        }
+
+        String url = urls.getIfPresent(id);
+        if (url == null) {
+            LOG.debug("urlOf : id={}", id);
+
+            try {
+                url = queryExecutor.query("select url from sched_endpoints where id=?", new ScalarHandler<String>(),
+                        id);
+                if (url != null) {
+                    cache(id, url);
+                }
+
+            } catch (SQLException ex) {
+                throw new DaoRuntimeException(ex);
+            }
+        }
+        return url;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private void cache(Integer id, String url) {
+        ids.put(url, id);
+        urls.put(id, url);
+    }
+
+}
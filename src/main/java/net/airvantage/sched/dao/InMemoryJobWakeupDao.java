@@ -0,0 +1,217 @@
+package net.airvantage.sched.dao;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * {@link JobWakeupDao} keeping the wake-ups in memory only : they are lost when the node stops.
+ *
+ * <p>
+ * The wake-ups are stored by id in a {@link ConcurrentHashMap}, and indexed by (wake-up time, id) in a
+ * {@link ConcurrentSkipListSet}. The index may briefly hold stale entries while an update is in progress, they are
+ * checked against the map when read.
+ * </p>
+ */
+public class InMemoryJobWakeupDao implements JobWakeupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(InMemoryJobWakeupDao.class);
+
+    private final ConcurrentMap<String, JobWakeup> wakeups = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<TimeKey> index = new ConcurrentSkipListSet<>();
+
+    private Clock clock;
+
+    public InMemoryJobWakeupDao(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("persist : wakeup={}", wakeup);
+
+        // If the wakeup is in the past, it will be woken up immediately
+        if (wakeup.getWakeupTime() == null) {
+            wakeup.setWakeupTime(clock.millis());
+        }
+
+        JobWakeup stored = copy(wakeup);
+        wakeups.compute(stored.getId(), (id, previous) -> {
+            if (previous != null) {
+                index.remove(new TimeKey(previous.getWakeupTime(), id));
+            }
+            index.add(new TimeKey(stored.getWakeupTime(), id));
+            return stored;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException {
+
+        for (JobWakeup wakeup : wakeups) {
+            persist(wakeup);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(String wakeupId) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupId={}", wakeupId);
+
+        wakeups.computeIfPresent(wakeupId, (id, previous) -> {
+            index.remove(new TimeKey(previous.getWakeupTime(), id));
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Collection<String> wakeupIds) throws DaoRuntimeException {
+
+        for (String wakeupId : wakeupIds) {
+            delete(wakeupId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll() throws DaoRuntimeException {
+
+        for (String wakeupId : wakeups.keySet()) {
+            delete(wakeupId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("find : to={}, limit={}", to, limit);
+
+        List<JobWakeup> res = new ArrayList<>();
+
+        Iterator<TimeKey> it = index.headSet(new TimeKey(to, "")).iterator();
+        while (it.hasNext() && res.size() < limit) {
+            TimeKey key = it.next();
+
+            JobWakeup wakeup = wakeups.get(key.id);
+            if (wakeup != null && wakeup.getWakeupTime() == key.time) {
+                res.add(copy(wakeup));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> claim(List<JobWakeup> toClaim, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : wakeups={}, leaseUntil={}", toClaim.size(), leaseUntil);
+
+        List<JobWakeup> res = new ArrayList<>();
+        for (JobWakeup wakeup : toClaim) {
+
+            long expected = wakeup.getWakeupTime();
+            JobWakeup claimed = copy(wakeup);
+            claimed.setWakeupTime(leaseUntil);
+
+            boolean[] done = new boolean[1];
+            wakeups.computeIfPresent(wakeup.getId(), (id, previous) -> {
+                if (previous.getWakeupTime() != expected) {
+                    return previous;
+                }
+                index.remove(new TimeKey(expected, id));
+                index.add(new TimeKey(leaseUntil, id));
+                done[0] = true;
+                return claimed;
+            });
+
+            if (done[0]) {
+                res.add(wakeup);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of stored wake-ups.
+     */
+    public int size() {
+        return wakeups.size();
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private static JobWakeup copy(JobWakeup wakeup) {
+
+        JobWakeup copy = new JobWakeup();
+        copy.setId(wakeup.getId());
+        copy.setWakeupTime(wakeup.getWakeupTime());
+        copy.setCallback(wakeup.getCallback());
+        copy.setRetryCount(wakeup.getRetryCount());
+        copy.setDeadline(wakeup.getDeadline());
+        return copy;
+    }
+
+    /**
+     * Key of the time index.
+     */
+    private static final class TimeKey implements Comparable<TimeKey> {
+
+        private final long time;
+        private final String id;
+
+        private TimeKey(long time, String id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+
+            int res = Long.compare(time, other.time);
+            return (res != 0) ? res : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (!(obj instanceof TimeKey)) {
+                return false;
+            }
+            TimeKey other = (TimeKey) obj;
+            return time == other.time && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(time) + id.hashCode();
+        }
+    }
+
+}
@@ -2,7 +2,9 @@ package net.airvantage.sched.dao;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -31,12 +33,92 @@ public class JobConfigDao {
      * Persist the given job configuration. If a config with the same id exists it will be updated.
      */
     public void persist(JobConfig config) throws DaoRuntimeException {
-        LOG.debug("persist : config={}", config);
+        this.persist(config, null);
+    }
+
+    /**
+     * Persist the given job configuration with the hash of the definition it was registered with, {@code null} if it
+     * is not known. If a config with the same id exists it will be updated.
+     */
+    public void persist(JobConfig config, Long defHash) throws DaoRuntimeException {
+        LOG.debug("persist : config={}, defHash={}", config, defHash);
+
+        this.persistAll(Collections.singletonList(config), Collections.singletonList(defHash));
+    }
+
+    /**
+     * Persist the given job configurations with a single batch, with the hashes of their definitions. The configs
+     * with the same id will be updated.
+     */
+    public void persistAll(List<JobConfig> configs, List<Long> defHashes) throws DaoRuntimeException {
+        LOG.debug("persistAll : count={}", configs.size());
+
+        if (configs.isEmpty()) {
+            return;
+        }
+
+        Object[][] params = new Object[configs.size()][];
+        for (int i = 0; i < params.length; i++) {
+            JobConfig config = configs.get(i);
+            Long defHash = defHashes.get(i);
+            params[i] = new Object[] { config.getId(), config.getUrl(), config.getTimeout(), defHash, config.getUrl(),
+                    config.getTimeout(), defHash };
+        }
+
+        try {
+            queryExecutor.batch("insert into sched_job_configs(id, url, timeout, def_hash) values(?, ?, ?, ?) "
+                    + "on duplicate key update url=?, timeout=?, def_hash=?", params);
+
+        } catch (SQLException sqlex) {
+            throw new DaoRuntimeException(sqlex);
+        }
+    }
+
+    /**
+     * Update the hash of the definition a job was registered with, {@code null} when its scheduling is changed by
+     * other means.
+     */
+    public void updateDefHash(String confId, Long defHash) throws DaoRuntimeException {
+        LOG.debug("updateDefHash : confId={}, defHash={}", confId, defHash);
 
         try {
-            queryExecutor.update("insert into sched_job_configs(id, url, timeout) values(?, ?, ?) "
-                    + "on duplicate key update url=?, timeout=?", config.getId(), config.getUrl(), config.getTimeout(),
-                    config.getUrl(), config.getTimeout());
+            queryExecutor.update("update sched_job_configs set def_hash=? where id=?", defHash, confId);
+
+        } catch (SQLException sqlex) {
+            throw new DaoRuntimeException(sqlex);
+        }
+    }
+
+    /**
+     * Return the hashes of the definitions the given jobs were registered with, by job identifier. The jobs without
+     * a known hash are missing.
+     */
+    public Map<String, Long> findDefHashes(List<String> confIds) throws DaoRuntimeException {
+        LOG.debug("findDefHashes : count={}", confIds.size());
+
+        Map<String, Long> hashes = new HashMap<String, Long>();
+        if (confIds.isEmpty()) {
+            return hashes;
+        }
+
+        try {
+            ResultSetHandler<Map<String, Long>> rsh = new ResultSetHandler<Map<String, Long>>() {
+                @Override
+                public Map<String, Long> handle(ResultSet rs) throws SQLException {
+
+                    while (rs.next()) {
+                        long hash = rs.getLong(2);
+                        if (!rs.wasNull()) {
+                            hashes.put(rs.getString(1), hash);
+                        }
+                    }
+                    return hashes;
+                }
+            };
+
+            String in = String.join(",", Collections.nCopies(confIds.size(), "?"));
+            return queryExecutor.query("select id, def_hash from sched_job_configs where id in (" + in + ")", rsh,
+                    confIds.toArray());
 
         } catch (SQLException sqlex) {
             throw new DaoRuntimeException(sqlex);
@@ -3,7 +3,10 @@ package net.airvantage.sched.dao;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -17,25 +20,51 @@ import net.airvantage.sched.model.JobLock;
  */
 public class JobLockDao {
 
+    /** Delay in ms the metrics of the locks are computed again after. */
+    private static final long METRICS_TTL = 5_000L;
+
     private QueryExecutor queryExecutor;
 
+    private Long metricsAt;
+    private long count;
+    private Long oldest;
+
     public JobLockDao(DataSource dataSource) {
         this.queryExecutor = new QueryExecutor(dataSource);
     }
 
     /**
-     * Persist a new lock built from the given properties.
+     * Persist a new lock built from the given properties, replacing an expired lock not released yet.
+     */
+    public void add(String id, long lockedAt, long expiresAt) throws SQLException {
+        Timestamp ts = new Timestamp(expiresAt);
+        Timestamp locked = new Timestamp(lockedAt);
+        queryExecutor.update(
+                "insert into sched_job_locks(id, expires_at, locked_at) values(?,?,?) on duplicate key update expires_at=?, locked_at=?",
+                id, ts, locked, ts, locked);
+    }
+
+    /**
+     * Put back a lock deleted with the given lock date, or only change the expiration date of the lock taken again
+     * meanwhile.
+     *
+     * @param lockedAt the date the deleted lock was taken, {@code null} if unknown.
      */
-    public void add(String id, long expiresAt) throws SQLException {
+    public void restore(String id, Long lockedAt, long expiresAt) throws SQLException {
         Timestamp ts = new Timestamp(expiresAt);
-        queryExecutor.update("insert into sched_job_locks(id, expires_at) values(?,?)", id, ts);
+        Timestamp locked = new Timestamp((lockedAt != null) ? lockedAt : expiresAt);
+        queryExecutor.update(
+                "insert into sched_job_locks(id, expires_at, locked_at) values(?,?,?) on duplicate key update expires_at=?",
+                id, ts, locked, ts);
     }
 
     /**
      * Delete the lock identified by the given identifier.
+     *
+     * @return true if the lock existed.
      */
-    public void delete(String id) throws SQLException {
-        queryExecutor.update("delete from sched_job_locks where id=?", id);
+    public boolean delete(String id) throws SQLException {
+        return queryExecutor.update("delete from sched_job_locks where id=?", id) > 0;
     }
 
     /**
@@ -55,12 +84,14 @@ public class JobLockDao {
                     lock.setLocked(true);
                     Timestamp expiresAt = rs.getTimestamp(2);
                     lock.setExpiresAt(expiresAt.getTime());
+                    Timestamp lockedAt = rs.getTimestamp(3);
+                    lock.setLockedAt((lockedAt != null) ? lockedAt.getTime() : null);
                     return lock;
                 }
             }
         };
 
-        return queryExecutor.query("select id,expires_at from sched_job_locks where id=?", rsh, id);
+        return queryExecutor.query("select id,expires_at,locked_at from sched_job_locks where id=?", rsh, id);
     }
 
     /**
@@ -80,13 +111,92 @@ public class JobLockDao {
                     String id = rs.getString(1);
                     Timestamp expiresAt = rs.getTimestamp(2);
                     lock.setExpiresAt(expiresAt.getTime());
+                    Timestamp lockedAt = rs.getTimestamp(3);
+                    lock.setLockedAt((lockedAt != null) ? lockedAt.getTime() : null);
                     map.put(id, lock);
                 }
 
                 return map;
             }
         };
-        return queryExecutor.query("select id, expires_at from sched_job_locks", rsh);
+        return queryExecutor.query("select id, expires_at, locked_at from sched_job_locks", rsh);
+    }
+
+    /**
+     * Return the {@code limit} first locks expired before the given date, the oldest first, with the date they were
+     * taken ({@code null} if unknown) by identifier.
+     */
+    public Map<String, Long> findExpired(long now, int limit) throws SQLException {
+
+        ResultSetHandler<Map<String, Long>> rsh = new ResultSetHandler<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> handle(ResultSet rs) throws SQLException {
+
+                Map<String, Long> locks = new LinkedHashMap<String, Long>();
+                while (rs.next()) {
+                    Timestamp lockedAt = rs.getTimestamp(2);
+                    locks.put(rs.getString(1), (lockedAt != null) ? lockedAt.getTime() : null);
+                }
+                return locks;
+            }
+        };
+        return queryExecutor.query(
+                "select id, locked_at from sched_job_locks where expires_at < ? order by expires_at LIMIT ?", rsh,
+                new Timestamp(now), limit);
+    }
+
+    /**
+     * Delete the given locks if they are still expired at the given date : a lock taken again meanwhile is kept.
+     *
+     * @return the identifiers of the deleted locks.
+     */
+    public List<String> deleteExpired(List<String> ids, long now) throws SQLException {
+
+        List<String> deleted = new ArrayList<String>();
+        if (ids.isEmpty()) {
+            return deleted;
+        }
+
+        Timestamp ts = new Timestamp(now);
+        Object[][] params = new Object[ids.size()][];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = new Object[] { ids.get(i), ts };
+        }
+
+        int[] updates = queryExecutor.batch("delete from sched_job_locks where id=? and expires_at < ?", params);
+        for (int i = 0; i < updates.length; i++) {
+            if (updates[i] != 0) {
+                deleted.add(ids.get(i));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the number of locks and the age in ms of the oldest one, counted again at most every
+     * {@link #METRICS_TTL} ms.
+     */
+    public synchronized Map<String, Object> getMetrics(long now) throws SQLException {
+
+        if (metricsAt == null || now < metricsAt || now - metricsAt >= METRICS_TTL) {
+            ResultSetHandler<Long> rsh = new ResultSetHandler<Long>() {
+                @Override
+                public Long handle(ResultSet rs) throws SQLException {
+
+                    rs.next();
+                    count = rs.getLong(1);
+                    Timestamp lockedAt = rs.getTimestamp(2);
+                    return (lockedAt != null) ? lockedAt.getTime() : null;
+                }
+            };
+            oldest = queryExecutor.query("select count(*), min(locked_at) from sched_job_locks", rsh);
+            metricsAt = now;
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+        metrics.put("count", count);
+        metrics.put("oldest.age.ms", (oldest != null) ? Math.max(0L, now - oldest) : 0L);
+        return metrics;
     }
 
     /**
@@ -0,0 +1,207 @@
+package net.airvantage.sched.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobRecurrence;
+
+/**
+ * DAO to manage the {@link JobRecurrence} object model, stored in the {@code sched_cron_jobs} table.
+ *
+ * <p>
+ * The due CRON jobs are claimed like the wake-ups : their next fire time is moved to the end of a lease, and set to
+ * the following fire time once they have been executed.
+ * </p>
+ */
+public class JobRecurrenceDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(JobRecurrenceDao.class);
+
+    private static final String COLUMNS = "select id, cron_expr, start_at, next_fire_time, splay_ms from sched_cron_jobs";
+
+    private static final String UPSERT = "insert into sched_cron_jobs(id,cron_expr,start_at,next_fire_time,splay_ms) values(?,?,?,?,?) on duplicate key update cron_expr=?, start_at=?, next_fire_time=?, splay_ms=?";
+
+    private QueryExecutor queryExecutor;
+
+    public JobRecurrenceDao(DataSource dataSource) {
+        this.queryExecutor = new QueryExecutor(dataSource);
+    }
+
+    /**
+     * Insert or update the given CRON job.
+     */
+    public void persist(JobRecurrence recurrence) throws DaoRuntimeException {
+        LOG.debug("persist : recurrence={}", recurrence);
+
+        try {
+            queryExecutor.update(UPSERT, recurrence.getId(), recurrence.getCron(), recurrence.getStartAt(),
+                    recurrence.getNextFireTime(), recurrence.getSplay(), recurrence.getCron(), recurrence.getStartAt(),
+                    recurrence.getNextFireTime(), recurrence.getSplay());
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Delete the CRON job identified by the given identifier.
+     *
+     * @return true if the job existed.
+     */
+    public boolean delete(String id) throws DaoRuntimeException {
+        LOG.debug("delete : id={}", id);
+
+        try {
+            return queryExecutor.update("delete from sched_cron_jobs where id=?", id) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    public void deleteAll() throws DaoRuntimeException {
+
+        try {
+            queryExecutor.update("delete from sched_cron_jobs");
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Return the CRON job identified by the given identifier, {@code null} if none.
+     */
+    public JobRecurrence find(String id) throws DaoRuntimeException {
+
+        List<JobRecurrence> found = query(COLUMNS + " where id=?", id);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Return all the CRON jobs.
+     */
+    public List<JobRecurrence> findAll() throws DaoRuntimeException {
+        return query(COLUMNS);
+    }
+
+    /**
+     * Return the {@code limit} first CRON jobs due before the given date, ordered by next fire time.
+     */
+    public List<JobRecurrence> findDue(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("findDue : to={}, limit={}", to, limit);
+
+        return query(COLUMNS + " where next_fire_time < ? order by next_fire_time LIMIT ?", to, limit);
+    }
+
+    /**
+     * Move the next fire time of the given CRON jobs to {@code leaseUntil}, unless it has been changed since they were
+     * found.
+     *
+     * @return the claimed CRON jobs, with their next fire time unchanged.
+     */
+    public List<JobRecurrence> claim(List<JobRecurrence> recurrences, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : recurrences={}, leaseUntil={}", recurrences.size(), leaseUntil);
+
+        List<JobRecurrence> res = new ArrayList<>();
+        if (recurrences.isEmpty()) {
+            return res;
+        }
+
+        Object[][] params = new Object[recurrences.size()][];
+        for (int i = 0; i < params.length; i++) {
+            JobRecurrence recurrence = recurrences.get(i);
+            params[i] = new Object[] { leaseUntil, recurrence.getId(), recurrence.getNextFireTime() };
+        }
+
+        try {
+            int[] updates = queryExecutor.batch(
+                    "update sched_cron_jobs set next_fire_time=? where id=? and next_fire_time=?", params);
+
+            for (int i = 0; i < updates.length; i++) {
+                if (updates[i] != 0) {
+                    res.add(recurrences.get(i));
+                }
+            }
+            return res;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Set the next fire time of a CRON job, if it is still {@code expected} : a job rescheduled or triggered meanwhile
+     * is left unchanged.
+     *
+     * @return true if updated.
+     */
+    public boolean updateNextFireTime(String id, long expected, long nextFireTime) throws DaoRuntimeException {
+        LOG.debug("updateNextFireTime : id={}, expected={}, nextFireTime={}", id, expected, nextFireTime);
+
+        try {
+            return queryExecutor.update("update sched_cron_jobs set next_fire_time=? where id=? and next_fire_time=?",
+                    nextFireTime, id, expected) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Set the next fire time of a CRON job.
+     *
+     * @return true if the job exists.
+     */
+    public boolean updateNextFireTime(String id, long nextFireTime) throws DaoRuntimeException {
+        LOG.debug("updateNextFireTime : id={}, nextFireTime={}", id, nextFireTime);
+
+        try {
+            return queryExecutor.update("update sched_cron_jobs set next_fire_time=? where id=?", nextFireTime,
+                    id) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private List<JobRecurrence> query(String sql, Object... params) {
+
+        ResultSetHandler<List<JobRecurrence>> rsh = new ResultSetHandler<List<JobRecurrence>>() {
+            @Override
+            public List<JobRecurrence> handle(ResultSet rs) throws SQLException {
+
+                List<JobRecurrence> res = new ArrayList<>();
+                while (rs.next()) {
+                    JobRecurrence recurrence = new JobRecurrence();
+                    recurrence.setId(rs.getString(1));
+                    recurrence.setCron(rs.getString(2));
+                    recurrence.setStartAt(rs.getLong(3));
+                    recurrence.setNextFireTime(rs.getLong(4));
+                    recurrence.setSplay(rs.getLong(5));
+                    res.add(recurrence);
+                }
+                return res;
+            }
+        };
+
+        try {
+            return queryExecutor.query(sql, rsh, params);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+}
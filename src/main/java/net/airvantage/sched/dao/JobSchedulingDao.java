@@ -5,8 +5,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.airvantage.sched.model.JobRecurrence;
 import net.airvantage.sched.model.JobScheduling;
 import net.airvantage.sched.model.JobSchedulingType;
+import net.airvantage.sched.quartz.SchedulerShards;
+import net.airvantage.sched.quartz.job.CronJob;
 
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
@@ -17,14 +20,28 @@ import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.triggers.CronTriggerImpl;
 
 /**
- * DAO to manage the {@link JobScheduling} object model. The properties used here are managed by Quartz service.
+ * DAO to manage the {@link JobScheduling} object model. The properties used here are managed by Quartz service, and
+ * by the table recurrence engine and the CRON groups for the CRON jobs they store. The triggers are read across the
+ * scheduler shards.
  */
 public class JobSchedulingDao {
 
-    private Scheduler scheduler;
+    private SchedulerShards schedulers;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private CronGroupDao cronGroupDao;
 
-    public JobSchedulingDao(Scheduler scheduler) {
-        this.scheduler = scheduler;
+    public JobSchedulingDao(SchedulerShards schedulers) {
+        this(schedulers, null, null);
+    }
+
+    /**
+     * @param jobRecurrenceDao the CRON jobs of the table recurrence engine, {@code null} if not enabled.
+     * @param cronGroupDao the members of the CRON groups, {@code null} if not enabled.
+     */
+    public JobSchedulingDao(SchedulerShards schedulers, JobRecurrenceDao jobRecurrenceDao, CronGroupDao cronGroupDao) {
+        this.schedulers = schedulers;
+        this.jobRecurrenceDao = jobRecurrenceDao;
+        this.cronGroupDao = cronGroupDao;
     }
 
     /**
@@ -32,9 +49,23 @@ public class JobSchedulingDao {
      */
     public JobScheduling find(String jobId) throws SchedulerException {
 
+        if (jobRecurrenceDao != null) {
+            JobRecurrence recurrence = jobRecurrenceDao.find(jobId);
+            if (recurrence != null) {
+                return fromRecurrence(recurrence);
+            }
+        }
+
+        if (cronGroupDao != null) {
+            JobScheduling member = cronGroupDao.find(jobId);
+            if (member != null) {
+                return member;
+            }
+        }
+
         JobScheduling jobScheduling = null;
 
-        List<? extends Trigger> triggersOfJob = scheduler.getTriggersOfJob(new JobKey(jobId));
+        List<? extends Trigger> triggersOfJob = getTriggersOfJob(jobId);
         if (triggersOfJob != null && !triggersOfJob.isEmpty()) {
 
             Trigger trigger = triggersOfJob.get(0);
@@ -53,18 +84,53 @@ public class JobSchedulingDao {
     public Map<String, JobScheduling> findAll() throws SchedulerException {
         HashMap<String, JobScheduling> jobSchedulings = new HashMap<String, JobScheduling>();
 
-        Set<TriggerKey> triggerKeys = scheduler.getTriggerKeys(GroupMatcher.anyTriggerGroup());
-        for (TriggerKey key : triggerKeys) {
-            Trigger trigger = scheduler.getTrigger(key);
-            JobSchedulingWithId sched = fromTrigger(trigger);
-            if (sched != null) {
-                jobSchedulings.put(sched.jobId, sched.jobScheduling);
+        for (Scheduler scheduler : schedulers.getAll()) {
+            Set<TriggerKey> triggerKeys = scheduler.getTriggerKeys(GroupMatcher.anyTriggerGroup());
+            for (TriggerKey key : triggerKeys) {
+                Trigger trigger = scheduler.getTrigger(key);
+                JobSchedulingWithId sched = fromTrigger(trigger);
+                if (sched != null) {
+                    jobSchedulings.put(sched.jobId, sched.jobScheduling);
+                }
+            }
+        }
+
+        if (jobRecurrenceDao != null) {
+            for (JobRecurrence recurrence : jobRecurrenceDao.findAll()) {
+                jobSchedulings.put(recurrence.getId(), fromRecurrence(recurrence));
             }
         }
 
+        if (cronGroupDao != null) {
+            jobSchedulings.putAll(cronGroupDao.findAll());
+        }
+
         return jobSchedulings;
     }
 
+    /**
+     * Returns the triggers of a job from the shard it is routed to, or from the shard it was scheduled on before the
+     * number of shards changed.
+     */
+    private List<? extends Trigger> getTriggersOfJob(String jobId) throws SchedulerException {
+
+        JobKey key = new JobKey(jobId);
+        Scheduler routed = schedulers.shardOf(jobId);
+
+        List<? extends Trigger> triggers = routed.getTriggersOfJob(key);
+        if (triggers == null || triggers.isEmpty()) {
+            for (Scheduler scheduler : schedulers.getAll()) {
+                if (scheduler != routed) {
+                    triggers = scheduler.getTriggersOfJob(key);
+                    if (triggers != null && !triggers.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+        }
+        return triggers;
+    }
+
     private class JobSchedulingWithId {
         public String jobId;
         public JobScheduling jobScheduling;
@@ -90,9 +156,24 @@ public class JobSchedulingDao {
             CronTriggerImpl cronTrigger = (CronTriggerImpl) trigger;
             sched.setValue(cronTrigger.getCronExpression());
 
+            if (trigger.getJobDataMap().containsKey(CronJob.SPLAY)) {
+                sched.setSplay(trigger.getJobDataMap().getLong(CronJob.SPLAY));
+            }
+
         }
 
         return new JobSchedulingWithId(jobId, sched);
     }
 
+    private JobScheduling fromRecurrence(JobRecurrence recurrence) {
+
+        JobScheduling sched = new JobScheduling();
+        sched.setType(JobSchedulingType.CRON);
+        sched.setValue(recurrence.getCron());
+        sched.setStartAt(recurrence.getStartAt());
+        sched.setSplay(recurrence.getSplay());
+
+        return sched;
+    }
+
 }
@@ -1,111 +1,65 @@
 package net.airvantage.sched.dao;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
-import javax.sql.DataSource;
-
-import org.apache.commons.dbutils.ResultSetHandler;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import net.airvantage.sched.app.exceptions.DaoRuntimeException;
 import net.airvantage.sched.model.JobWakeup;
 
 /**
- * DAO to manage the {@link JobWakeup} object model.
+ * Storage of the {@link JobWakeup} object model.
+ *
+ * <p>
+ * Implementations are selected with the {@code av-sched.wakeup.store} configuration key :
+ * <ul>
+ * <li>mysql (default) : {@link MysqlJobWakeupDao}, the table shared by the cluster nodes.</li>
+ * <li>memory : {@link InMemoryJobWakeupDao}, not persisted, for benchmarks and tests.</li>
+ * <li>embedded : {@link EmbeddedJobWakeupDao}, an embedded database file for single-node deployments.</li>
+ * <li>mapped : {@link MappedJobWakeupDao}, a memory-mapped append-only log for single-node deployments.</li>
+ * <li>sharded : {@link ShardedJobWakeupDao}, the wake-ups spread over several MySQL schemas.</li>
+ * <li>partitioned : {@link PartitionedJobWakeupDao}, a MySQL table partitioned by time, dropped once processed.</li>
+ * </ul>
+ * </p>
  */
-public class JobWakeupDao {
-
-    private final static Logger LOG = LoggerFactory.getLogger(JobWakeupDao.class);
-
-    private QueryExecutor queryExecutor;
-
-    public JobWakeupDao(DataSource dataSource) throws DaoRuntimeException {
-        this.queryExecutor = new QueryExecutor(dataSource);
-    }
+public interface JobWakeupDao {
 
     /**
      * Persists the given wake-up and update it if already exists (same id).
      */
-    public void persist(JobWakeup wakeup) throws DaoRuntimeException {
-        LOG.debug("persist : wakeup={}", wakeup);
+    void persist(JobWakeup wakeup) throws DaoRuntimeException;
 
-        // If the wakeup is in the past, it will be woken up immediately
-        Long wakeupTime = wakeup.getWakeupTime();
-        if (wakeupTime == null) {
-            wakeup.setWakeupTime(System.currentTimeMillis());
-        }
-
-        try {
-            queryExecutor.update(
-                    "insert into sched_job_wakeups(id,wakeup_time,callback,retry_count) values(?,?,?,?) on duplicate key update wakeup_time=?, callback=?, retry_count=?",
-                    wakeup.getId(), wakeup.getWakeupTime(), wakeup.getCallback(), wakeup.getRetryCount(),
-                    wakeup.getWakeupTime(), wakeup.getCallback(), wakeup.getRetryCount());
-
-        } catch (SQLException ex) {
-            throw new DaoRuntimeException(ex);
-        }
-    }
+    /**
+     * Persists or reschedules all the given wake-ups.
+     */
+    void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException;
 
     /**
      * Deletes the wake-up with the given identifier.
      */
-    public void delete(String wakeupId) throws DaoRuntimeException {
-        LOG.debug("delete : wakeupId={}", wakeupId);
-
-        try {
-            queryExecutor.update("delete from sched_job_wakeups where id=?", wakeupId);
+    void delete(String wakeupId) throws DaoRuntimeException;
 
-        } catch (SQLException ex) {
-            throw new DaoRuntimeException(ex);
-        }
-    }
+    /**
+     * Deletes the wake-ups with the given identifiers.
+     */
+    void delete(Collection<String> wakeupIds) throws DaoRuntimeException;
 
     /**
      * Delete all the existing wake-ups.
      */
-    public void deleteAll() throws DaoRuntimeException {
-
-        try {
-            queryExecutor.update("delete from sched_job_wakeups");
-
-        } catch (SQLException ex) {
-            throw new DaoRuntimeException(ex);
-        }
-    }
+    void deleteAll() throws DaoRuntimeException;
 
     /**
-     * Returns the {@code limit} first wake-ups with a scheduled date before the specified date.
+     * Returns the {@code limit} first wake-ups with a scheduled date before the specified date, the oldest first.
      */
-    public List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
-        LOG.debug("find : to={}, limit={}", to, limit);
-
-        ResultSetHandler<List<JobWakeup>> rsh = (ResultSet rs) -> {
+    List<JobWakeup> find(long to, int limit) throws DaoRuntimeException;
 
-            List<JobWakeup> res = new ArrayList<>();
-
-            while (rs.next()) {
-                JobWakeup wakeup = new JobWakeup();
-                wakeup.setId(rs.getString(1));
-                wakeup.setWakeupTime(rs.getLong(2));
-                wakeup.setCallback(rs.getString(3));
-                wakeup.setRetryCount(rs.getInt(4));
-
-                res.add(wakeup);
-            }
-
-            return res;
-        };
+    /**
+     * Claims the given wake-ups returned by {@link #find(long, int)} : their wake-up time is moved to
+     * {@code leaseUntil} if it has not been changed since, so they are not found again while being processed, and are
+     * fired again after the lease if the processing never completes.
+     *
+     * @return the wake-ups successfully claimed, with their original wake-up time.
+     */
+    List<JobWakeup> claim(List<JobWakeup> wakeups, long leaseUntil) throws DaoRuntimeException;
 
-        try {
-            return queryExecutor.query(
-                    "select id, wakeup_time, callback, retry_count from sched_job_wakeups where wakeup_time < ? LIMIT ?",
-                    rsh, to, limit);
-        } catch (SQLException ex) {
-            throw new DaoRuntimeException(ex);
-        }
-    }
 }
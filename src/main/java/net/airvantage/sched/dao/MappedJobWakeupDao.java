@@ -0,0 +1,521 @@
+package net.airvantage.sched.dao;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * {@link JobWakeupDao} for single-node deployments, storing the wake-ups in an append-only log of memory-mapped
+ * segment files.
+ *
+ * <p>
+ * Every upsert or delete is appended to the current segment as {@code length, crc32, operation, id[, wakeup time,
+ * retry count, callback[, deadline]]}, a zero length marking the end of a segment. A delete-all is appended as a clear record,
+ * dropping the wake-ups replayed before it, so that the segments it replaces are not replayed again if the process
+ * stops before they are deleted. The wake-ups are kept in memory, indexed by
+ * time in a {@link WakeupTimeIndex}. On startup the segments are replayed in order, a record with an invalid checksum
+ * ending its segment (torn write). When a segment is full and the log holds more than twice as many records as live
+ * wake-ups, the live wake-ups are rewritten into new segments and the previous ones deleted.
+ * </p>
+ *
+ * <p>
+ * Writes are in the page cache when the methods return : they survive a process crash, and also a system crash when
+ * {@code sync} is set (at the cost of a flush per call).
+ * </p>
+ */
+public class MappedJobWakeupDao implements JobWakeupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(MappedJobWakeupDao.class);
+
+    private static final String SEGMENT_PREFIX = "wakeups-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final byte UPSERT_DEADLINE = 4;
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+    private final Clock clock;
+
+    // In-memory state
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final WakeupTimeIndex index = new WakeupTimeIndex();
+    private String[] ids = new String[1024];
+    private String[] callbacks = new String[1024];
+    private int[] retryCounts = new int[1024];
+    private long[] deadlines = new long[1024];
+
+    // Log
+    private final List<Path> segments = new ArrayList<>();
+    private int nextSegment;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private long logRecords;
+
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer scratch = ByteBuffer.allocate(8 * 1024);
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public MappedJobWakeupDao(Path directory, int segmentSize, boolean sync, Clock clock) throws DaoRuntimeException {
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+
+        } catch (IOException ex) {
+            throw new DaoRuntimeException("Unable to open the wake-ups log in " + directory, ex);
+        }
+    }
+
+    // ------------------------------------------------- JobWakeupDao Methods -----------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void persist(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("persist : wakeup={}", wakeup);
+
+        upsert(wakeup);
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException {
+        LOG.debug("persist : wakeups={}", wakeups.size());
+
+        for (JobWakeup wakeup : wakeups) {
+            upsert(wakeup);
+        }
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void delete(String wakeupId) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupId={}", wakeupId);
+
+        remove(wakeupId);
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void delete(Collection<String> wakeupIds) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupIds={}", wakeupIds.size());
+
+        for (String wakeupId : wakeupIds) {
+            remove(wakeupId);
+        }
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void deleteAll() throws DaoRuntimeException {
+
+        try {
+            writeClear();
+            compact();
+        } catch (IOException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("find : to={}, limit={}", to, limit);
+
+        List<JobWakeup> res = new ArrayList<>();
+        for (int slot : index.due(to, limit)) {
+            res.add(wakeup(slot));
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<JobWakeup> claim(List<JobWakeup> wakeups, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : wakeups={}, leaseUntil={}", wakeups.size(), leaseUntil);
+
+        List<JobWakeup> res = new ArrayList<>();
+        for (JobWakeup wakeup : wakeups) {
+
+            Integer slot = slots.get(wakeup.getId());
+            if (slot != null && index.time(slot) == wakeup.getWakeupTime()) {
+
+                JobWakeup claimed = wakeup(slot);
+                claimed.setWakeupTime(leaseUntil);
+                upsert(claimed);
+
+                res.add(wakeup);
+            }
+        }
+        flush();
+        return res;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Returns the number of stored wake-ups.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Release the current segment.
+     */
+    public synchronized void close() {
+
+        try {
+            closeSegment();
+        } catch (IOException ex) {
+            LOG.error("Unable to close the wake-ups log", ex);
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    /**
+     * Append a clear record, flushed to the disk before the previous segments are deleted, and drop the wake-ups.
+     */
+    void writeClear() {
+
+        append(CLEAR, null, 0, 0, null, NO_DEADLINE);
+        buffer.force();
+        unapplyAll();
+    }
+
+    private void upsert(JobWakeup wakeup) {
+
+        // If the wakeup is in the past, it will be woken up immediately
+        if (wakeup.getWakeupTime() == null) {
+            wakeup.setWakeupTime(clock.millis());
+        }
+
+        long deadline = (wakeup.getDeadline() != null) ? wakeup.getDeadline() : NO_DEADLINE;
+        append(UPSERT, wakeup.getId(), wakeup.getWakeupTime(), wakeup.getRetryCount(), wakeup.getCallback(),
+                deadline);
+        apply(wakeup.getId(), wakeup.getWakeupTime(), wakeup.getRetryCount(), wakeup.getCallback(), deadline);
+    }
+
+    private void remove(String wakeupId) {
+
+        if (slots.containsKey(wakeupId)) {
+            append(DELETE, wakeupId, 0, 0, null, NO_DEADLINE);
+            unapply(wakeupId);
+        }
+    }
+
+    private void apply(String id, long time, int retryCount, String callback, long deadline) {
+
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            slot = index.add(time);
+            slots.put(id, slot);
+
+            if (slot >= ids.length) {
+                int capacity = Math.max(ids.length * 2, slot + 1);
+                ids = Arrays.copyOf(ids, capacity);
+                callbacks = Arrays.copyOf(callbacks, capacity);
+                retryCounts = Arrays.copyOf(retryCounts, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+        } else {
+            index.update(slot, time);
+        }
+
+        ids[slot] = id;
+        callbacks[slot] = callback;
+        retryCounts[slot] = retryCount;
+        deadlines[slot] = deadline;
+    }
+
+    private void unapply(String id) {
+
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            index.remove(slot);
+            ids[slot] = null;
+            callbacks[slot] = null;
+        }
+    }
+
+    private void unapplyAll() {
+
+        slots.clear();
+        index.clear();
+        Arrays.fill(ids, null);
+        Arrays.fill(callbacks, null);
+    }
+
+    private JobWakeup wakeup(int slot) {
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(ids[slot]);
+        wakeup.setWakeupTime(index.time(slot));
+        wakeup.setCallback(callbacks[slot]);
+        wakeup.setRetryCount(retryCounts[slot]);
+        wakeup.setDeadline((deadlines[slot] != NO_DEADLINE) ? deadlines[slot] : null);
+        return wakeup;
+    }
+
+    // --- Log
+
+    /**
+     * Append a record, an upsert with a deadline being written as {@link #UPSERT_DEADLINE}.
+     */
+    private void append(byte operation, String id, long time, int retryCount, String callback, long deadline) {
+
+        boolean withDeadline = (operation == UPSERT && deadline != NO_DEADLINE);
+
+        // Called on Buffer : the ByteBuffer overrides of JDK 9+ do not exist on a Java 8 runtime
+        ((Buffer) scratch).clear();
+        scratch.put(withDeadline ? UPSERT_DEADLINE : operation);
+        putString(id);
+        if (operation == UPSERT) {
+            scratch.putLong(time);
+            scratch.putInt(retryCount);
+            putString(callback);
+        }
+        if (withDeadline) {
+            scratch.putLong(deadline);
+        }
+        ((Buffer) scratch).flip();
+
+        crc.reset();
+        crc.update(scratch.array(), 0, scratch.limit());
+
+        try {
+            // Keep room for the end marker
+            if (buffer.remaining() < scratch.limit() + 12) {
+                rollSegment();
+            }
+
+            buffer.putInt(scratch.limit());
+            buffer.putInt((int) crc.getValue());
+            buffer.put(scratch);
+            logRecords++;
+
+        } catch (IOException ex) {
+            throw new DaoRuntimeException("Unable to write the wake-ups log", ex);
+        }
+    }
+
+    private void putString(String value) {
+
+        if (value == null) {
+            scratch.putShort((short) -1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            scratch.putShort((short) bytes.length);
+            scratch.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+
+        short length = record.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void flush() {
+        if (sync) {
+            buffer.force();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+
+        closeSegment();
+
+        if (logRecords > MIN_COMPACTION_RECORDS && logRecords > 2L * index.size()) {
+            compact();
+        } else {
+            openSegment();
+        }
+    }
+
+    /**
+     * Rewrite the live wake-ups into new segments, then delete the previous ones.
+     */
+    private void compact() throws IOException {
+
+        closeSegment();
+        List<Path> previous = new ArrayList<>(segments);
+        segments.clear();
+
+        openSegment();
+        logRecords = 0;
+
+        for (String id : new ArrayList<>(slots.keySet())) {
+            int slot = slots.get(id);
+            append(UPSERT, id, index.time(slot), retryCounts[slot], callbacks[slot], deadlines[slot]);
+        }
+        buffer.force();
+
+        for (Path path : previous) {
+            Files.deleteIfExists(path);
+        }
+        LOG.info("Wake-ups log compacted : {} wake-ups, {} segments deleted", index.size(), previous.size());
+    }
+
+    private void openSegment() throws IOException {
+
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        segments.add(path);
+
+        file = new RandomAccessFile(path.toFile(), "rw");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void closeSegment() throws IOException {
+
+        if (file != null) {
+            buffer.putInt(0);
+            buffer.force();
+
+            // Only keep the used part of the segment
+            file.setLength(buffer.position());
+            file.close();
+            file = null;
+            buffer = null;
+        }
+    }
+
+    // --- Recovery
+
+    private void recover() throws IOException {
+
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                existing.add(path);
+            }
+        }
+        Collections.sort(existing);
+
+        for (Path path : existing) {
+            try (FileChannel channel = FileChannel.open(path)) {
+                replay(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            segments.add(path);
+
+            String name = path.getFileName().toString();
+            nextSegment = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length()
+                    - SEGMENT_SUFFIX.length())) + 1;
+        }
+
+        if (!existing.isEmpty()) {
+            LOG.info("Wake-ups log replayed : {} records, {} wake-ups, {} segments", logRecords, index.size(),
+                    existing.size());
+        }
+
+        // Never append to a replayed segment, its tail may be torn
+        if (logRecords > MIN_COMPACTION_RECORDS && logRecords > 2L * index.size()) {
+            compact();
+        } else {
+            openSegment();
+        }
+    }
+
+    private void replay(Path path, ByteBuffer segment) {
+
+        while (segment.remaining() >= 8) {
+            int length = segment.getInt();
+            if (length == 0) {
+                return;
+            }
+
+            int checksum = segment.getInt();
+            if (length < 0 || length > segment.remaining()) {
+                LOG.warn("Truncated record in {} at {}, ignoring the end of the segment", path, segment.position());
+                return;
+            }
+
+            ByteBuffer record = segment.slice();
+            ((Buffer) record).limit(length);
+            ((Buffer) segment).position(segment.position() + length);
+
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                LOG.warn("Corrupted record in {} at {}, ignoring the end of the segment", path, segment.position());
+                return;
+            }
+
+            byte operation = record.get();
+            String id = getString(record);
+            if (operation == UPSERT || operation == UPSERT_DEADLINE) {
+                long time = record.getLong();
+                int retryCount = record.getInt();
+                String callback = getString(record);
+                apply(id, time, retryCount, callback,
+                        (operation == UPSERT_DEADLINE) ? record.getLong() : NO_DEADLINE);
+            } else if (operation == CLEAR) {
+                unapplyAll();
+            } else {
+                unapply(id);
+            }
+            logRecords++;
+        }
+    }
+
+}
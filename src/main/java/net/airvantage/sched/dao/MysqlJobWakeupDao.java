@@ -0,0 +1,334 @@
+package net.airvantage.sched.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * {@link JobWakeupDao} storing the wake-ups in the MySQL {@code sched_job_wakeups} table.
+ *
+ * <p>
+ * The callback URLs are stored once in the {@code sched_endpoints} table, and referenced by the wake-ups.
+ * </p>
+ *
+ * <p>
+ * While the {@code callback} column is kept for the nodes of the previous version during a rolling upgrade, the
+ * callback URLs are also written in it, and read from it first : a previous node only changes this column. Once all
+ * the nodes are upgraded, the column is neither written nor read, and can be dropped.
+ * </p>
+ */
+public class MysqlJobWakeupDao implements JobWakeupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(MysqlJobWakeupDao.class);
+
+    private static final String UPSERT = "insert into sched_job_wakeups(id,wakeup_time,endpoint_id,retry_count,deadline) values(?,?,?,?,?) on duplicate key update wakeup_time=?, endpoint_id=?, retry_count=?, deadline=?";
+
+    private static final String UPSERT_CALLBACK = "insert into sched_job_wakeups(id,wakeup_time,endpoint_id,retry_count,deadline,callback) values(?,?,?,?,?,?) on duplicate key update wakeup_time=?, endpoint_id=?, retry_count=?, deadline=?, callback=?";
+
+    private QueryExecutor queryExecutor;
+    private EndpointDao endpointDao;
+    private Clock clock;
+
+    /** Whether the table still has the callback column and it is written, checked on first use. */
+    private volatile Boolean callbackColumn;
+
+    /**
+     * @param endpointCacheSize the number of callback URLs cached.
+     * @param callbackColumn false to ignore the callback column, once all the nodes are upgraded.
+     */
+    public MysqlJobWakeupDao(DataSource dataSource, int endpointCacheSize, boolean callbackColumn, Clock clock)
+            throws DaoRuntimeException {
+        this.queryExecutor = new QueryExecutor(dataSource);
+        this.endpointDao = new EndpointDao(dataSource, endpointCacheSize);
+        this.callbackColumn = callbackColumn ? null : false;
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("persist : wakeup={}", wakeup);
+
+        try {
+            queryExecutor.update(hasCallbackColumn() ? UPSERT_CALLBACK : UPSERT, upsertParams(wakeup));
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException {
+        LOG.debug("persist : wakeups={}", wakeups.size());
+
+        if (wakeups.isEmpty()) {
+            return;
+        }
+
+        Object[][] params = new Object[wakeups.size()][];
+        int i = 0;
+        for (JobWakeup wakeup : wakeups) {
+            params[i++] = upsertParams(wakeup);
+        }
+
+        try {
+            queryExecutor.batch(hasCallbackColumn() ? UPSERT_CALLBACK : UPSERT, params);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(String wakeupId) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupId={}", wakeupId);
+
+        try {
+            queryExecutor.update("delete from sched_job_wakeups where id=?", wakeupId);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Collection<String> wakeupIds) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupIds={}", wakeupIds.size());
+
+        if (wakeupIds.isEmpty()) {
+            return;
+        }
+
+        Object[][] params = new Object[wakeupIds.size()][];
+        int i = 0;
+        for (String wakeupId : wakeupIds) {
+            params[i++] = new Object[] { wakeupId };
+        }
+
+        try {
+            queryExecutor.batch("delete from sched_job_wakeups where id=?", params);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll() throws DaoRuntimeException {
+
+        try {
+            queryExecutor.update("delete from sched_job_wakeups");
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("find : to={}, limit={}", to, limit);
+
+        return queryWakeups("select id, wakeup_time, endpoint_id, retry_count, deadline" + callbackSelect()
+                + " from sched_job_wakeups where wakeup_time < ? order by wakeup_time LIMIT ?", to, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> claim(List<JobWakeup> wakeups, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : wakeups={}, leaseUntil={}", wakeups.size(), leaseUntil);
+
+        List<JobWakeup> res = new ArrayList<>();
+        if (wakeups.isEmpty()) {
+            return res;
+        }
+
+        Object[][] params = new Object[wakeups.size()][];
+        for (int i = 0; i < params.length; i++) {
+            JobWakeup wakeup = wakeups.get(i);
+            params[i] = new Object[] { leaseUntil, wakeup.getId(), wakeup.getWakeupTime() };
+        }
+
+        try {
+            int[] updates = queryExecutor.batch(
+                    "update sched_job_wakeups set wakeup_time=? where id=? and wakeup_time=?", params);
+
+            for (int i = 0; i < updates.length; i++) {
+                if (updates[i] != 0) {
+                    res.add(wakeups.get(i));
+                }
+            }
+            return res;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Returns the {@code limit} first wake-ups with an identifier greater than {@code afterId}, ordered by identifier,
+     * to iterate over the whole table.
+     */
+    public List<JobWakeup> scan(String afterId, int limit) throws DaoRuntimeException {
+        LOG.debug("scan : afterId={}, limit={}", afterId, limit);
+
+        return queryWakeups("select id, wakeup_time, endpoint_id, retry_count, deadline" + callbackSelect()
+                + " from sched_job_wakeups where id > ? order by id LIMIT ?", afterId, limit);
+    }
+
+    /**
+     * Inserts the given wake-up, unless a wake-up with the same id already exists.
+     *
+     * @return true if inserted.
+     */
+    public boolean insertIfAbsent(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("insertIfAbsent : wakeup={}", wakeup);
+
+        try {
+            if (hasCallbackColumn()) {
+                return queryExecutor.update("insert ignore into sched_job_wakeups(id,wakeup_time,endpoint_id,"
+                        + "retry_count,deadline,callback) values(?,?,?,?,?,?)", wakeup.getId(),
+                        wakeup.getWakeupTime(), endpointDao.idOf(wakeup.getCallback()), wakeup.getRetryCount(),
+                        wakeup.getDeadline(), wakeup.getCallback()) > 0;
+            }
+            return queryExecutor.update("insert ignore into sched_job_wakeups(id,wakeup_time,endpoint_id,retry_count,"
+                    + "deadline) values(?,?,?,?,?)", wakeup.getId(), wakeup.getWakeupTime(),
+                    endpointDao.idOf(wakeup.getCallback()), wakeup.getRetryCount(), wakeup.getDeadline()) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Deletes the given wake-up if its wake-up time has not been changed.
+     *
+     * @return true if deleted.
+     */
+    public boolean deleteIfUnchanged(String wakeupId, long wakeupTime) throws DaoRuntimeException {
+        LOG.debug("deleteIfUnchanged : wakeupId={}, wakeupTime={}", wakeupId, wakeupTime);
+
+        try {
+            return queryExecutor.update("delete from sched_job_wakeups where id=? and wakeup_time=?", wakeupId,
+                    wakeupTime) > 0;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private boolean hasCallbackColumn() {
+
+        if (callbackColumn == null) {
+            try {
+                queryExecutor.query("select callback from sched_job_wakeups where 1=0", (ResultSet rs) -> null);
+                callbackColumn = true;
+
+            } catch (SQLException ex) {
+                LOG.debug("No callback column in the wake-ups table", ex);
+                callbackColumn = false;
+            }
+        }
+        return callbackColumn;
+    }
+
+    private String callbackSelect() {
+        return hasCallbackColumn() ? ", callback" : "";
+    }
+
+    /**
+     * Runs a query returning the id, wake-up time, endpoint id, retry count and deadline columns, then the callback
+     * one if selected. The endpoints are resolved once the result set is closed.
+     */
+    private List<JobWakeup> queryWakeups(String sql, Object... params) throws DaoRuntimeException {
+
+        List<Integer> endpointIds = new ArrayList<>();
+        ResultSetHandler<List<JobWakeup>> rsh = (ResultSet rs) -> {
+
+            boolean callback = rs.getMetaData().getColumnCount() > 5;
+            List<JobWakeup> res = new ArrayList<>();
+
+            while (rs.next()) {
+                JobWakeup wakeup = new JobWakeup();
+                wakeup.setId(rs.getString(1));
+                wakeup.setWakeupTime(rs.getLong(2));
+                int endpointId = rs.getInt(3);
+                endpointIds.add(rs.wasNull() ? null : endpointId);
+                wakeup.setRetryCount(rs.getInt(4));
+                long deadline = rs.getLong(5);
+                wakeup.setDeadline(rs.wasNull() ? null : deadline);
+                if (callback) {
+                    wakeup.setCallback(rs.getString(6));
+                }
+
+                res.add(wakeup);
+            }
+
+            return res;
+        };
+
+        try {
+            List<JobWakeup> wakeups = queryExecutor.query(sql, rsh, params);
+            for (int i = 0; i < wakeups.size(); i++) {
+                if (wakeups.get(i).getCallback() == null) {
+                    wakeups.get(i).setCallback(endpointDao.urlOf(endpointIds.get(i)));
+                }
+            }
+            return wakeups;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    private Object[] upsertParams(JobWakeup wakeup) {
+
+        // If the wakeup is in the past, it will be woken up immediately
+        if (wakeup.getWakeupTime() == null) {
+            wakeup.setWakeupTime(clock.millis());
+        }
+
+        Integer endpointId = endpointDao.idOf(wakeup.getCallback());
+        if (hasCallbackColumn()) {
+            return new Object[] { wakeup.getId(), wakeup.getWakeupTime(), endpointId, wakeup.getRetryCount(),
+                    wakeup.getDeadline(), wakeup.getCallback(), wakeup.getWakeupTime(), endpointId,
+                    wakeup.getRetryCount(), wakeup.getDeadline(), wakeup.getCallback() };
+        }
+        return new Object[] { wakeup.getId(), wakeup.getWakeupTime(), endpointId, wakeup.getRetryCount(),
+                wakeup.getDeadline(), wakeup.getWakeupTime(), endpointId, wakeup.getRetryCount(),
+                wakeup.getDeadline() };
+    }
+
+}
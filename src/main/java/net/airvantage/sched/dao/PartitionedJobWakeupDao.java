@@ -0,0 +1,438 @@
+package net.airvantage.sched.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * {@link JobWakeupDao} storing the wake-ups in the MySQL {@code sched_job_wakeups_part} table, partitioned by range of
+ * scheduled time.
+ *
+ * <p>
+ * A wake-up row is identified by its id and the time it was scheduled at, its wake-up time being moved by the claims.
+ * Deleting or rescheduling a wake-up deletes its previous row by primary key : marking it done instead would move its
+ * entry of the wake-up time index just as much, and keep it in this index until its partition is dropped. The due
+ * queries only read the partitions scheduled before their range.
+ * </p>
+ *
+ * <p>
+ * The partitions are maintained by {@link #maintain()} : the next ones are created {@code ahead} of time, and the
+ * emptied past ones are dropped.
+ * </p>
+ */
+public class PartitionedJobWakeupDao implements JobWakeupDao {
+
+    private final static Logger LOG = LoggerFactory.getLogger(PartitionedJobWakeupDao.class);
+
+    /** The maximum number of partitions created at once to hold the wake-ups of the last partition. */
+    private static final int MAX_CREATED = 400;
+
+    private static final String TABLE = "sched_job_wakeups_part";
+
+    private static final String UPSERT = "insert into " + TABLE
+            + "(id,scheduled_time,wakeup_time,endpoint_id,retry_count,deadline) values(?,?,?,?,?,?) "
+            + "on duplicate key update wakeup_time=?, endpoint_id=?, retry_count=?, deadline=?";
+
+    private static final String DELETE_OTHERS = "delete from " + TABLE + " where id=? and scheduled_time<>?";
+
+    private static final String DELETE = "delete from " + TABLE + " where id=?";
+
+    private final QueryExecutor queryExecutor;
+    private final EndpointDao endpointDao;
+    private final Clock clock;
+
+    private final long interval;
+    private final long ahead;
+
+    private ScheduledExecutorService maintainer;
+
+    /**
+     * @param interval the time range of a partition, e.g. one day.
+     * @param ahead how long in advance the partitions are created.
+     * @param endpointCacheSize the number of callback URLs cached.
+     */
+    public PartitionedJobWakeupDao(DataSource dataSource, long interval, long ahead, int endpointCacheSize,
+            Clock clock) {
+
+        this.queryExecutor = new QueryExecutor(dataSource);
+        this.endpointDao = new EndpointDao(dataSource, endpointCacheSize);
+        this.interval = interval;
+        this.ahead = ahead;
+        this.clock = clock;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Maintain the partitions every {@code period} ms, starting now.
+     */
+    public synchronized void start(long period) {
+
+        if (maintainer == null) {
+            maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wakeup-partitions");
+                thread.setDaemon(true);
+                return thread;
+            });
+            maintainer.scheduleWithFixedDelay(() -> {
+                try {
+                    maintain();
+                } catch (Exception ex) {
+                    LOG.error("Unable to maintain the wake-ups partitions", ex);
+                }
+            }, 0, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+            maintainer = null;
+        }
+    }
+
+    /**
+     * Create the missing partitions up to {@code now + ahead}, and drop the past partitions without pending wake-ups.
+     * Another node may maintain the partitions concurrently, its changes win.
+     */
+    public synchronized void maintain() throws SQLException {
+
+        long now = clock.millis();
+        List<Long> bounds = queryExecutor.query("select partition_description from information_schema.partitions "
+                + "where table_schema=database() and table_name=? and partition_description<>'MAXVALUE' "
+                + "order by partition_ordinal_position", (ResultSet rs) -> {
+                    List<Long> res = new ArrayList<>();
+                    while (rs.next()) {
+                        res.add(Long.parseLong(rs.getString(1)));
+                    }
+                    return res;
+                }, TABLE);
+
+        // Create the next partitions by splitting the last one (MAXVALUE), which copies all its rows : the wake-ups
+        // scheduled after the last bound, i.e. all the wake-ups on the first run after the migration. The new
+        // partitions also cover them, for a wake-up to be copied once rather than on each run.
+
+        long last = bounds.isEmpty() ? Long.MIN_VALUE : bounds.get(bounds.size() - 1);
+        Number lastScheduled = queryExecutor.query("select max(scheduled_time) from " + TABLE
+                + " where scheduled_time>=?", new ScalarHandler<Number>(), last);
+        List<Long> created = newBounds(last, now, interval,
+                coveredAhead(now, lastScheduled == null ? null : lastScheduled.longValue(), interval, ahead));
+        if (!created.isEmpty()) {
+
+            StringBuilder sql = new StringBuilder("alter table " + TABLE + " reorganize partition pmax into (");
+            for (Long bound : created) {
+                sql.append("partition p").append(bound).append(" values less than (").append(bound).append("), ");
+            }
+            sql.append("partition pmax values less than maxvalue)");
+
+            try {
+                queryExecutor.update(sql.toString());
+                LOG.info("{} wake-ups partitions created up to {}", created.size(), created.get(created.size() - 1));
+
+            } catch (SQLException ex) {
+                LOG.warn("Unable to create the wake-ups partitions, they may have been created by another node", ex);
+            }
+        }
+
+        // Drop the past partitions in order once empty, keeping at least one bounded partition. The first partition
+        // also holds the wake-ups scheduled before the dropped ones.
+
+        for (int i = 0; i < bounds.size() - 1 && bounds.get(i) <= now; i++) {
+            long upper = bounds.get(i);
+
+            Number pending = queryExecutor.query("select count(*) from " + TABLE + " where scheduled_time<?",
+                    new ScalarHandler<Number>(), upper);
+            if (pending.longValue() > 0) {
+                break;
+            }
+
+            try {
+                queryExecutor.update("alter table " + TABLE + " drop partition " + partitionName(upper));
+                LOG.info("Wake-ups partition {} dropped", partitionName(upper));
+
+            } catch (SQLException ex) {
+                LOG.warn("Unable to drop the wake-ups partition " + partitionName(upper), ex);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the upper bounds of the partitions to create after {@code last} (the greatest existing bound,
+     * {@link Long#MIN_VALUE} if none), aligned on {@code interval}, so that a partition covers {@code now + ahead}.
+     */
+    public static List<Long> newBounds(long last, long now, long interval, long ahead) {
+
+        List<Long> bounds = new ArrayList<>();
+        long bound = Math.max(last, (now / interval) * interval);
+        while (bound <= now + ahead) {
+            bound = (bound / interval) * interval + interval;
+            bounds.add(bound);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns how long after {@code now} the partitions to create cover : {@code ahead}, or up to
+     * {@code lastScheduled} (the greatest scheduled time of the last partition, null if empty), within
+     * {@value #MAX_CREATED} partitions.
+     */
+    public static long coveredAhead(long now, Long lastScheduled, long interval, long ahead) {
+
+        if (lastScheduled == null) {
+            return ahead;
+        }
+        return Math.max(ahead, Math.min(lastScheduled - now, MAX_CREATED * interval));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("persist : wakeup={}", wakeup);
+
+        try {
+            // Insert first : a crash leaves the wake-up fired twice rather than lost
+
+            queryExecutor.update(UPSERT, upsertParams(wakeup));
+            queryExecutor.update(DELETE_OTHERS, wakeup.getId(), wakeup.getWakeupTime());
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException {
+        LOG.debug("persist : wakeups={}", wakeups.size());
+
+        if (wakeups.isEmpty()) {
+            return;
+        }
+
+        Object[][] upserts = new Object[wakeups.size()][];
+        Object[][] deletes = new Object[wakeups.size()][];
+        int i = 0;
+        for (JobWakeup wakeup : wakeups) {
+            upserts[i] = upsertParams(wakeup);
+            deletes[i++] = new Object[] { wakeup.getId(), wakeup.getWakeupTime() };
+        }
+
+        try {
+            queryExecutor.batch(UPSERT, upserts);
+            queryExecutor.batch(DELETE_OTHERS, deletes);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(String wakeupId) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupId={}", wakeupId);
+
+        try {
+            queryExecutor.update(DELETE, wakeupId);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Collection<String> wakeupIds) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupIds={}", wakeupIds.size());
+
+        if (wakeupIds.isEmpty()) {
+            return;
+        }
+
+        Object[][] params = new Object[wakeupIds.size()][];
+        int i = 0;
+        for (String wakeupId : wakeupIds) {
+            params[i++] = new Object[] { wakeupId };
+        }
+
+        try {
+            queryExecutor.batch(DELETE, params);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll() throws DaoRuntimeException {
+
+        try {
+            queryExecutor.update("delete from " + TABLE);
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("find : to={}, limit={}", to, limit);
+
+        // A wake-up is never due before its scheduled time : the condition prunes the future partitions
+
+        List<Integer> endpointIds = new ArrayList<>();
+        ResultSetHandler<List<JobWakeup>> rsh = (ResultSet rs) -> {
+
+            List<JobWakeup> res = new ArrayList<>();
+
+            while (rs.next()) {
+                PartitionedWakeup wakeup = new PartitionedWakeup(rs.getLong(2));
+                wakeup.setId(rs.getString(1));
+                wakeup.setWakeupTime(rs.getLong(3));
+                int endpointId = rs.getInt(4);
+                endpointIds.add(rs.wasNull() ? null : endpointId);
+                wakeup.setRetryCount(rs.getInt(5));
+                long deadline = rs.getLong(6);
+                wakeup.setDeadline(rs.wasNull() ? null : deadline);
+
+                res.add(wakeup);
+            }
+
+            return res;
+        };
+
+        try {
+            List<JobWakeup> wakeups = queryExecutor.query("select id, scheduled_time, wakeup_time, endpoint_id, "
+                    + "retry_count, deadline from " + TABLE + " where wakeup_time < ? and scheduled_time < ? "
+                    + "order by wakeup_time LIMIT ?", rsh, to, to, limit);
+
+            for (int i = 0; i < wakeups.size(); i++) {
+                wakeups.get(i).setCallback(endpointDao.urlOf(endpointIds.get(i)));
+            }
+            return wakeups;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> claim(List<JobWakeup> wakeups, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : wakeups={}, leaseUntil={}", wakeups.size(), leaseUntil);
+
+        List<JobWakeup> res = new ArrayList<>();
+        if (wakeups.isEmpty()) {
+            return res;
+        }
+
+        // The scheduled time of the found wake-ups selects their partition
+
+        List<Object[]> pruned = new ArrayList<>();
+        List<Object[]> unpruned = new ArrayList<>();
+        List<JobWakeup> prunedWakeups = new ArrayList<>();
+        List<JobWakeup> unprunedWakeups = new ArrayList<>();
+
+        for (JobWakeup wakeup : wakeups) {
+            if (wakeup instanceof PartitionedWakeup) {
+                pruned.add(new Object[] { leaseUntil, wakeup.getId(),
+                        ((PartitionedWakeup) wakeup).scheduledTime, wakeup.getWakeupTime() });
+                prunedWakeups.add(wakeup);
+            } else {
+                unpruned.add(new Object[] { leaseUntil, wakeup.getId(), wakeup.getWakeupTime() });
+                unprunedWakeups.add(wakeup);
+            }
+        }
+
+        try {
+            if (!pruned.isEmpty()) {
+                claimed(queryExecutor.batch("update " + TABLE
+                        + " set wakeup_time=? where id=? and scheduled_time=? and wakeup_time=?",
+                        pruned.toArray(new Object[pruned.size()][])), prunedWakeups, res);
+            }
+            if (!unpruned.isEmpty()) {
+                claimed(queryExecutor.batch("update " + TABLE + " set wakeup_time=? where id=? and wakeup_time=?",
+                        unpruned.toArray(new Object[unpruned.size()][])), unprunedWakeups, res);
+            }
+            return res;
+
+        } catch (SQLException ex) {
+            throw new DaoRuntimeException(ex);
+        }
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private static String partitionName(long upper) {
+        return "p" + upper;
+    }
+
+    private static void claimed(int[] updates, List<JobWakeup> wakeups, List<JobWakeup> res) {
+
+        for (int i = 0; i < updates.length; i++) {
+            if (updates[i] != 0) {
+                res.add(wakeups.get(i));
+            }
+        }
+    }
+
+    private Object[] upsertParams(JobWakeup wakeup) {
+
+        // If the wakeup is in the past, it will be woken up immediately
+        if (wakeup.getWakeupTime() == null) {
+            wakeup.setWakeupTime(clock.millis());
+        }
+
+        Integer endpointId = endpointDao.idOf(wakeup.getCallback());
+        return new Object[] { wakeup.getId(), wakeup.getWakeupTime(), wakeup.getWakeupTime(), endpointId,
+                wakeup.getRetryCount(), wakeup.getDeadline(), wakeup.getWakeupTime(), endpointId,
+                wakeup.getRetryCount(), wakeup.getDeadline() };
+    }
+
+    /**
+     * A wake-up found by this DAO, with the scheduled time of its row.
+     */
+    private static class PartitionedWakeup extends JobWakeup {
+
+        private final long scheduledTime;
+
+        private PartitionedWakeup(long scheduledTime) {
+            this.scheduledTime = scheduledTime;
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+package net.airvantage.sched.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * A {@link JobWakeupDao} spreading the wake-ups over several MySQL schemas, by a hash of their identifier.
+ *
+ * <p>
+ * The shard of a wake-up is chosen with a consistent hash : when a shard is added, only the wake-ups moving to the
+ * new shard change of shard. The due wake-ups are queried on all the shards in parallel and merged by wake-up time.
+ * </p>
+ *
+ * <p>
+ * While the wake-ups are being moved to a new layout by the {@link WakeupResharder}, the {@code previous} layout is
+ * also given : the wake-ups are then written to their new shard and removed from their previous one, and read from
+ * both.
+ * </p>
+ */
+public class ShardedJobWakeupDao implements JobWakeupDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedJobWakeupDao.class);
+
+    private final List<MysqlJobWakeupDao> shards;
+    private final List<MysqlJobWakeupDao> previous;
+    private final List<MysqlJobWakeupDao> all;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param shards the shards of the current layout.
+     * @param previous the shards of the layout being migrated, empty if none. A schema used by both layouts must be
+     *            given the same DAO instance.
+     */
+    public ShardedJobWakeupDao(List<MysqlJobWakeupDao> shards, List<MysqlJobWakeupDao> previous) {
+
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No wake-up shard");
+        }
+        this.shards = shards;
+        this.previous = previous;
+
+        Map<MysqlJobWakeupDao, Boolean> distinct = new IdentityHashMap<>();
+        this.all = new ArrayList<>();
+        for (MysqlJobWakeupDao shard : shards) {
+            if (distinct.put(shard, true) == null) {
+                all.add(shard);
+            }
+        }
+        for (MysqlJobWakeupDao shard : previous) {
+            if (distinct.put(shard, true) == null) {
+                all.add(shard);
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(all.size(), runnable -> {
+            Thread thread = new Thread(runnable, "wakeup-shard-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the index of the shard of the given wake-up, among {@code count} shards.
+     */
+    public static int shardIndex(String wakeupId, int count) {
+        return Hashing.consistentHash(Hashing.murmur3_128().hashString(wakeupId, StandardCharsets.UTF_8), count);
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(JobWakeup wakeup) throws DaoRuntimeException {
+        LOG.debug("persist : wakeup={}", wakeup);
+
+        shardOf(wakeup.getId()).persist(wakeup);
+
+        MysqlJobWakeupDao old = previousShardOf(wakeup.getId());
+        if (old != null) {
+            old.delete(wakeup.getId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(Collection<JobWakeup> wakeups) throws DaoRuntimeException {
+        LOG.debug("persist : wakeups={}", wakeups.size());
+
+        groupBy(wakeups, w -> shardOf(w.getId())).forEach(MysqlJobWakeupDao::persist);
+
+        if (!previous.isEmpty()) {
+            List<String> ids = new ArrayList<>(wakeups.size());
+            wakeups.forEach(w -> ids.add(w.getId()));
+            deletePrevious(ids);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(String wakeupId) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupId={}", wakeupId);
+
+        shardOf(wakeupId).delete(wakeupId);
+
+        MysqlJobWakeupDao old = previousShardOf(wakeupId);
+        if (old != null) {
+            old.delete(wakeupId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(Collection<String> wakeupIds) throws DaoRuntimeException {
+        LOG.debug("delete : wakeupIds={}", wakeupIds.size());
+
+        groupBy(wakeupIds, this::shardOf).forEach(MysqlJobWakeupDao::delete);
+        deletePrevious(wakeupIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll() throws DaoRuntimeException {
+        LOG.debug("deleteAll");
+
+        all.forEach(MysqlJobWakeupDao::deleteAll);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> find(long to, int limit) throws DaoRuntimeException {
+        LOG.debug("find : to={}, limit={}", to, limit);
+
+        List<Future<List<JobWakeup>>> futures = new ArrayList<>(all.size());
+        for (MysqlJobWakeupDao shard : all) {
+            futures.add(executor.submit(() -> shard.find(to, limit)));
+        }
+
+        // A wake-up being moved can be found on both layouts, its current shard has the up-to-date copy
+
+        Map<String, JobWakeup> found = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            MysqlJobWakeupDao shard = all.get(i);
+            for (JobWakeup wakeup : await(futures.get(i))) {
+                if (!found.containsKey(wakeup.getId()) || shard == shardOf(wakeup.getId())) {
+                    found.put(wakeup.getId(), wakeup);
+                }
+            }
+        }
+
+        List<JobWakeup> res = new ArrayList<>(found.values());
+        Collections.sort(res, Comparator.comparingLong(JobWakeup::getWakeupTime));
+        return (res.size() > limit) ? new ArrayList<>(res.subList(0, limit)) : res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JobWakeup> claim(List<JobWakeup> wakeups, long leaseUntil) throws DaoRuntimeException {
+        LOG.debug("claim : wakeups={}, leaseUntil={}", wakeups.size(), leaseUntil);
+
+        List<JobWakeup> claimed = new ArrayList<>(wakeups.size());
+        groupBy(wakeups, w -> shardOf(w.getId())).forEach((shard, group) -> claimed.addAll(shard.claim(group,
+                leaseUntil)));
+
+        if (!previous.isEmpty() && claimed.size() < wakeups.size()) {
+
+            // Not moved yet
+
+            Map<String, JobWakeup> left = new LinkedHashMap<>();
+            wakeups.forEach(w -> left.put(w.getId(), w));
+            claimed.forEach(w -> left.remove(w.getId()));
+
+            groupBy(left.values(), w -> previousShardOf(w.getId())).forEach((shard, group) -> {
+                if (shard != null) {
+                    claimed.addAll(shard.claim(group, leaseUntil));
+                }
+            });
+        }
+        return claimed;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private MysqlJobWakeupDao shardOf(String wakeupId) {
+        return shards.get(shardIndex(wakeupId, shards.size()));
+    }
+
+    /**
+     * Returns the shard of the given wake-up in the previous layout, {@code null} if none or same as the current one.
+     */
+    private MysqlJobWakeupDao previousShardOf(String wakeupId) {
+
+        if (previous.isEmpty()) {
+            return null;
+        }
+        MysqlJobWakeupDao old = previous.get(shardIndex(wakeupId, previous.size()));
+        return (old != shardOf(wakeupId)) ? old : null;
+    }
+
+    private void deletePrevious(Collection<String> wakeupIds) {
+
+        groupBy(wakeupIds, this::previousShardOf).forEach((shard, group) -> {
+            if (shard != null) {
+                shard.delete(group);
+            }
+        });
+    }
+
+    private static <T> Map<MysqlJobWakeupDao, List<T>> groupBy(Collection<T> items,
+            Function<T, MysqlJobWakeupDao> shard) {
+
+        Map<MysqlJobWakeupDao, List<T>> groups = new IdentityHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shard.apply(item), s -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    private static List<JobWakeup> await(Future<List<JobWakeup>> future) {
+
+        try {
+            return future.get();
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DaoRuntimeException(ex);
+
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof DaoRuntimeException) {
+                throw (DaoRuntimeException) ex.getCause();
+            }
+            throw new DaoRuntimeException(ex.getCause());
+        }
+    }
+
+}
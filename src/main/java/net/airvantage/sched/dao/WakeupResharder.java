@@ -0,0 +1,120 @@
+package net.airvantage.sched.dao;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.exceptions.DaoRuntimeException;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * Moves the wake-ups of a previous shards layout to their shard in the current layout, while the scheduler is
+ * running with a {@link ShardedJobWakeupDao} configured with both layouts.
+ *
+ * <p>
+ * Each wake-up is copied to its new shard, then removed from its previous one if it has not been changed meanwhile.
+ * Otherwise the copy is removed and the wake-up is moved by the next pass.
+ * </p>
+ */
+public class WakeupResharder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WakeupResharder.class);
+
+    private static final int MAX_PASSES = 10;
+
+    private final List<MysqlJobWakeupDao> shards;
+    private final List<MysqlJobWakeupDao> previous;
+    private final int batchSize;
+
+    /**
+     * @param shards the shards of the current layout.
+     * @param previous the shards of the previous layout, a schema used by both layouts must be given the same DAO
+     *            instance.
+     * @param batchSize the number of wake-ups read at once.
+     */
+    public WakeupResharder(List<MysqlJobWakeupDao> shards, List<MysqlJobWakeupDao> previous, int batchSize) {
+        this.shards = shards;
+        this.previous = previous;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Move all the wake-ups of the previous layout.
+     *
+     * @return the number of wake-ups moved.
+     */
+    public long reshard() throws DaoRuntimeException {
+
+        long moved = 0;
+        for (int pass = 1; pass <= MAX_PASSES; pass++) {
+
+            long conflicts = 0;
+            Map<MysqlJobWakeupDao, Boolean> done = new IdentityHashMap<>();
+
+            for (int i = 0; i < previous.size(); i++) {
+                MysqlJobWakeupDao source = previous.get(i);
+                if (done.put(source, true) != null) {
+                    continue;
+                }
+
+                String afterId = "";
+                List<JobWakeup> batch;
+                do {
+                    batch = source.scan(afterId, batchSize);
+                    for (JobWakeup wakeup : batch) {
+
+                        MysqlJobWakeupDao target = shards.get(ShardedJobWakeupDao.shardIndex(wakeup.getId(),
+                                shards.size()));
+                        if (target == source) {
+                            continue;
+                        }
+
+                        if (move(wakeup, source, target)) {
+                            moved++;
+                        } else {
+                            conflicts++;
+                        }
+                    }
+
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == batchSize);
+
+                LOG.info("Pass {} : previous shard {} processed, {} wake-ups moved", pass, i, moved);
+            }
+
+            if (conflicts == 0) {
+                return moved;
+            }
+            LOG.info("Pass {} : {} wake-ups changed while being moved", pass, conflicts);
+        }
+
+        throw new DaoRuntimeException("Wake-ups still changed while being moved after " + MAX_PASSES + " passes");
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    /**
+     * @return false if the wake-up was changed while being moved.
+     */
+    private static boolean move(JobWakeup wakeup, MysqlJobWakeupDao source, MysqlJobWakeupDao target) {
+
+        // A wake-up already written to the target by the scheduler is more recent than the source one
+
+        boolean copied = target.insertIfAbsent(wakeup);
+
+        if (source.deleteIfUnchanged(wakeup.getId(), wakeup.getWakeupTime())) {
+            return true;
+        }
+
+        if (copied) {
+            target.deleteIfUnchanged(wakeup.getId(), wakeup.getWakeupTime());
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,226 @@
+package net.airvantage.sched.dao;
+
+import java.util.Arrays;
+
+/**
+ * Time-ordered index of the wake-ups stored by {@link MappedJobWakeupDao}, backed by primitive arrays.
+ *
+ * <p>
+ * Each wake-up id is given an int slot holding its wake-up time and a generation, incremented on every change. The
+ * index is a binary min-heap of (time, slot, generation) entries : an entry whose generation is no longer the slot one
+ * is stale and dropped when reached (lazy deletion), and the heap is rebuilt when stale entries become the majority.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe.
+ * </p>
+ */
+class WakeupTimeIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Slots
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int slotCount;
+    private int liveCount;
+
+    // Heap
+    private long[] heapTimes = new long[INITIAL_CAPACITY];
+    private int[] heapSlots = new int[INITIAL_CAPACITY];
+    private int[] heapGenerations = new int[INITIAL_CAPACITY];
+    private int heapSize;
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Allocate a slot at the given time.
+     */
+    int add(long time) {
+
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == times.length) {
+                int capacity = times.length * 2;
+                times = Arrays.copyOf(times, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                used = Arrays.copyOf(used, capacity);
+            }
+        }
+
+        used[slot] = true;
+        liveCount++;
+        update(slot, time);
+        return slot;
+    }
+
+    /**
+     * Move a slot to a new time.
+     */
+    void update(int slot, long time) {
+
+        times[slot] = time;
+        generations[slot]++;
+        push(time, slot, generations[slot]);
+        compactIfNeeded();
+    }
+
+    /**
+     * Release a slot.
+     */
+    void remove(int slot) {
+
+        used[slot] = false;
+        generations[slot]++;
+        liveCount--;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    long time(int slot) {
+        return times[slot];
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    /**
+     * Returns the slots of the {@code limit} first entries with a time strictly before {@code to}, the oldest first.
+     */
+    int[] due(long to, int limit) {
+
+        int[] res = new int[Math.min(limit, liveCount)];
+        int count = 0;
+
+        // Pop the due entries, then push back the live ones
+        long[] popped = new long[res.length];
+        while (heapSize > 0 && count < res.length && heapTimes[0] < to) {
+
+            long time = heapTimes[0];
+            int slot = heapSlots[0];
+            int generation = heapGenerations[0];
+            pop();
+
+            if (used[slot] && generations[slot] == generation) {
+                popped[count] = time;
+                res[count++] = slot;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            push(popped[i], res[i], generations[res[i]]);
+        }
+
+        return Arrays.copyOf(res, count);
+    }
+
+    void clear() {
+
+        Arrays.fill(used, false);
+        freeCount = 0;
+        slotCount = 0;
+        liveCount = 0;
+        heapSize = 0;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private void push(long time, int slot, int generation) {
+
+        if (heapSize == heapTimes.length) {
+            int capacity = heapTimes.length * 2;
+            heapTimes = Arrays.copyOf(heapTimes, capacity);
+            heapSlots = Arrays.copyOf(heapSlots, capacity);
+            heapGenerations = Arrays.copyOf(heapGenerations, capacity);
+        }
+
+        int i = heapSize++;
+        set(i, time, slot, generation);
+        siftUp(i);
+    }
+
+    private void pop() {
+
+        heapSize--;
+        if (heapSize > 0) {
+            set(0, heapTimes[heapSize], heapSlots[heapSize], heapGenerations[heapSize]);
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapTimes[parent] <= heapTimes[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = (right < heapSize && heapTimes[right] < heapTimes[left]) ? right : left;
+            if (heapTimes[i] <= heapTimes[smallest]) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void set(int i, long time, int slot, int generation) {
+
+        heapTimes[i] = time;
+        heapSlots[i] = slot;
+        heapGenerations[i] = generation;
+    }
+
+    private void swap(int i, int j) {
+
+        long time = heapTimes[i];
+        int slot = heapSlots[i];
+        int generation = heapGenerations[i];
+        set(i, heapTimes[j], heapSlots[j], heapGenerations[j]);
+        set(j, time, slot, generation);
+    }
+
+    /**
+     * Rebuild the heap from the live slots when it is mostly made of stale entries.
+     */
+    private void compactIfNeeded() {
+
+        if (heapSize < INITIAL_CAPACITY || heapSize < 2 * liveCount) {
+            return;
+        }
+
+        heapSize = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (used[slot]) {
+                set(heapSize++, times[slot], slot, generations[slot]);
+            }
+        }
+        for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+}
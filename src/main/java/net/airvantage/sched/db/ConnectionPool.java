@@ -0,0 +1,99 @@
+package net.airvantage.sched.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.ConnectionFactory;
+import org.apache.commons.dbcp2.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.dbcp2.PoolableConnectionFactory;
+import org.apache.commons.dbcp2.PoolingDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A database connection pool, one is created for each {@link TrafficClass}.
+ *
+ * <p>
+ * Connections are not validated when borrowed : the idle ones are checked in the background every
+ * {@code validationInterval} ms, so the connections closed by the server (e.g. MySQL wait_timeout) are evicted without
+ * a round-trip on every checkout.
+ * </p>
+ */
+public class ConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final GenericObjectPool<PoolableConnection> pool;
+    private final DataSource dataSource;
+
+    public ConnectionPool(String url, String user, String password, int minIdle, int maxTotal,
+            long validationInterval) {
+
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        props.setProperty("defaultTransactionIsolation", "NONE");
+
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMinIdle(minIdle);
+        poolConfig.setMaxTotal(maxTotal);
+        poolConfig.setTestOnBorrow(false);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setTimeBetweenEvictionRunsMillis(validationInterval);
+        poolConfig.setNumTestsPerEvictionRun(-1); // All the idle connections
+
+        ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(url, props);
+        PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(connectionFactory, null);
+        pool = new GenericObjectPool<>(poolableConnectionFactory, poolConfig);
+        poolableConnectionFactory.setPool(pool);
+
+        dataSource = new PoolingDataSource<>(pool);
+
+        LOG.info("Starting datasource with minIdle={}, maxTotal={}", minIdle, maxTotal);
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Change the pool limits, the connections in excess are closed when returned.
+     */
+    public void resize(int minIdle, int maxTotal) {
+
+        if (pool.getMinIdle() != minIdle || pool.getMaxTotal() != maxTotal) {
+            pool.setMaxTotal(maxTotal);
+            pool.setMinIdle(minIdle);
+            LOG.info("Database connection pool resized : minIdle={}, maxTotal={}", minIdle, maxTotal);
+        }
+    }
+
+    /**
+     * Returns the pool usage counters.
+     */
+    public Map<String, Object> getMetrics() {
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("active", pool.getNumActive());
+        metrics.put("idle", pool.getNumIdle());
+        metrics.put("waiters", pool.getNumWaiters());
+        metrics.put("max.total", pool.getMaxTotal());
+        metrics.put("min.idle", pool.getMinIdle());
+        metrics.put("created", pool.getCreatedCount());
+        metrics.put("destroyed", pool.getDestroyedCount());
+        metrics.put("destroyed.by.validation", pool.getDestroyedByEvictorCount());
+        metrics.put("borrowed", pool.getBorrowedCount());
+        metrics.put("borrow.wait.mean.ms", pool.getMeanBorrowWaitTimeMillis());
+        metrics.put("borrow.wait.max.ms", pool.getMaxBorrowWaitTimeMillis());
+        return metrics;
+    }
+
+}
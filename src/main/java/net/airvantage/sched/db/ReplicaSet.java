@@ -0,0 +1,198 @@
+package net.airvantage.sched.db;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.dao.QueryExecutor;
+
+/**
+ * The read replicas of the primary database, serving the API reads while they are fresh enough.
+ *
+ * <p>
+ * The lag of each replica is measured with a heartbeat : the node writes the current time in the
+ * {@code sched_replica_heartbeats} table of the primary, and reads it back from the replicas. A replica whose
+ * heartbeat is older than {@code maxLag} ms, or which cannot be read, is not used until it catches up. The heartbeats
+ * of the stopped nodes (their identifier changes on each start) are purged once stale.
+ * </p>
+ */
+public class ReplicaSet {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaSet.class);
+
+    /** The age of the heartbeats purged, written by stopped nodes. */
+    private static final long STALE_HEARTBEAT = 3_600_000L;
+
+    /** The delay between two purges of the stale heartbeats. */
+    private static final long PURGE_PERIOD = 600_000L;
+
+    private final QueryExecutor primary;
+    private final List<DataSource> replicas;
+    private final QueryExecutor[] replicaExecutors;
+    private final long[] lags;
+    private final long maxLag;
+    private final String node;
+    private final Clock clock;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private volatile boolean[] fresh;
+    private volatile Map<String, Object> metrics;
+    private long nextPurge;
+    private ScheduledExecutorService checker;
+
+    /**
+     * @param node the identifier of this node heartbeat.
+     */
+    public ReplicaSet(DataSource primary, List<DataSource> replicas, long maxLag, String node, Clock clock) {
+
+        this.primary = new QueryExecutor(primary);
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+        this.node = node;
+        this.clock = clock;
+
+        this.replicaExecutors = new QueryExecutor[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaExecutors[i] = new QueryExecutor(replicas.get(i));
+        }
+        this.lags = new long[replicas.size()];
+        for (int i = 0; i < lags.length; i++) {
+            lags[i] = Long.MAX_VALUE;
+        }
+        this.fresh = new boolean[replicas.size()]; // Not used before the first check
+        this.metrics = snapshot();
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Check the replicas lag every {@code interval} ms.
+     */
+    public synchronized void start(long interval) {
+
+        if (checker == null) {
+            checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checker.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+
+        if (checker != null) {
+            checker.shutdownNow();
+            checker = null;
+        }
+    }
+
+    /**
+     * Returns a fresh replica, or {@code null} if all of them are lagging : the primary should then be used.
+     */
+    public DataSource select() {
+
+        boolean[] current = fresh;
+        if (current.length == 0) {
+            return null;
+        }
+        int start = Math.abs(next.getAndIncrement() % current.length);
+        for (int i = 0; i < current.length; i++) {
+            int idx = (start + i) % current.length;
+            if (current[idx]) {
+                return replicas.get(idx);
+            }
+        }
+
+        fallbacks.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Write a new heartbeat on the primary, purge the stale ones, and measure the lag of each replica.
+     */
+    public synchronized void check() {
+
+        long now = clock.millis();
+        try {
+            primary.update("insert into sched_replica_heartbeats(node, beat_time) values(?, ?) "
+                    + "on duplicate key update beat_time=?", node, now, now);
+
+        } catch (SQLException ex) {
+            LOG.warn("Unable to write the replicas heartbeat", ex);
+        }
+
+        if (now >= nextPurge) {
+            try {
+                int purged = primary.update("delete from sched_replica_heartbeats where beat_time<? and node<>?",
+                        now - STALE_HEARTBEAT, node);
+                LOG.debug("{} stale replicas heartbeats purged", purged);
+                nextPurge = now + PURGE_PERIOD;
+
+            } catch (SQLException ex) {
+                LOG.warn("Unable to purge the stale replicas heartbeats", ex);
+            }
+        }
+
+        boolean[] checked = new boolean[replicaExecutors.length];
+        for (int i = 0; i < replicaExecutors.length; i++) {
+            try {
+                Number beat = replicaExecutors[i].query("select beat_time from sched_replica_heartbeats where node=?",
+                        new ScalarHandler<Number>(), node);
+
+                lags[i] = (beat != null) ? clock.millis() - beat.longValue() : Long.MAX_VALUE;
+                checked[i] = lags[i] <= maxLag;
+
+            } catch (SQLException ex) {
+                LOG.debug("Unable to read the heartbeat of replica " + i, ex);
+                lags[i] = Long.MAX_VALUE;
+            }
+
+            if (fresh[i] && !checked[i]) {
+                LOG.warn("Replica {} is lagging, its reads go to the primary", i);
+            }
+        }
+        fresh = checked;
+        metrics = snapshot();
+    }
+
+    /**
+     * Returns the lag and freshness of the replicas as of the last check, without waiting for a running one, and the
+     * number of reads sent to the primary.
+     */
+    public Map<String, Object> getMetrics() {
+
+        Map<String, Object> res = new LinkedHashMap<>(metrics);
+        res.put("fallbacks", fallbacks.get());
+        return res;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private Map<String, Object> snapshot() {
+
+        Map<String, Object> res = new LinkedHashMap<>();
+        for (int i = 0; i < lags.length; i++) {
+            res.put(i + ".lag.ms", (lags[i] == Long.MAX_VALUE) ? -1L : lags[i]);
+            res.put(i + ".fresh", fresh[i]);
+        }
+        return Collections.unmodifiableMap(res);
+    }
+
+}
@@ -0,0 +1,127 @@
+package net.airvantage.sched.db;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link DataSource} borrowing the connections from the pool of the current thread {@link TrafficClass}.
+ *
+ * <p>
+ * When read replicas are configured, the {@link TrafficClass#API_READ} connections are taken from a fresh replica,
+ * from the primary otherwise.
+ * </p>
+ */
+public class RoutingDataSource implements DataSource {
+
+    private final Map<TrafficClass, ConnectionPool> pools;
+    private final ReplicaSet replicas;
+
+    /**
+     * @param replicas the read replicas, {@code null} if none.
+     */
+    public RoutingDataSource(Map<TrafficClass, ConnectionPool> pools, ReplicaSet replicas) {
+        this.pools = pools;
+        this.replicas = replicas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target().getLogWriter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (ConnectionPool pool : pools.values()) {
+            pool.getDataSource().setLogWriter(out);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (ConnectionPool pool : pools.values()) {
+            pool.getDataSource().setLoginTimeout(seconds);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target().getLoginTimeout();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper of " + iface);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private DataSource target() {
+
+        TrafficClass trafficClass = TrafficClass.current();
+        if (replicas != null && trafficClass == TrafficClass.API_READ) {
+            DataSource replica = replicas.select();
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return pools.get(trafficClass).getDataSource();
+    }
+
+}
@@ -1,5 +1,8 @@
 package net.airvantage.sched.db;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
 import org.flywaydb.core.Flyway;
@@ -15,14 +18,44 @@ import org.flywaydb.core.Flyway;
 public class SchemaMigrator {
 
     private Flyway flyway;
+    private List<Flyway> optional = new ArrayList<>();
 
     public SchemaMigrator(DataSource dataSource) {
         this.flyway = new Flyway();
         flyway.setDataSource(dataSource);
     }
 
+    /**
+     * Migrator of another schema (e.g. a wake-up shard), with its own migrations and history table.
+     */
+    public SchemaMigrator(DataSource dataSource, String location, String table) {
+        this(dataSource);
+        flyway.setLocations(location);
+        flyway.setTable(table);
+    }
+
+    /**
+     * Then applies the optional migrations of the given locations (e.g. a storage mode), with their own history table.
+     */
+    public SchemaMigrator then(String table, String... locations) {
+
+        Flyway next = new Flyway();
+        next.setDataSource(flyway.getDataSource());
+        next.setLocations(locations);
+        next.setTable(table);
+
+        // The schema already has the main tables
+        next.setBaselineOnMigrate(true);
+        next.setBaselineVersionAsString("0");
+        optional.add(next);
+        return this;
+    }
+
     public void migrate() {
         flyway.migrate();
+        for (Flyway next : optional) {
+            next.migrate();
+        }
     }
 
 }
@@ -0,0 +1,73 @@
+package net.airvantage.sched.db;
+
+/**
+ * The kinds of database traffic, each one served by its own connection pool so that one cannot starve the others.
+ *
+ * <p>
+ * The class of the current thread is set by the caller (e.g. the API filter) and read by the {@link RoutingDataSource}
+ * when a connection is requested. Threads without a class are the dispatcher ones.
+ * </p>
+ */
+public enum TrafficClass {
+
+    /** API queries (GET requests). */
+    API_READ("api-read", 2, 20),
+
+    /** API job definitions and actions. */
+    API_WRITE("api-write", 2, 20),
+
+    /** Wake-ups and CRON jobs dispatch, retries and locks. */
+    DISPATCH("dispatch", 50, 100),
+
+    /** Quartz JobStore, its default maximum is raised to the connections the Quartz threads may use. */
+    QUARTZ("quartz", 2, 30);
+
+    private static final ThreadLocal<TrafficClass> CURRENT = new ThreadLocal<>();
+
+    private final String key;
+    private final int defaultMin;
+    private final int defaultMax;
+
+    private TrafficClass(String key, int defaultMin, int defaultMax) {
+        this.key = key;
+        this.defaultMin = defaultMin;
+        this.defaultMax = defaultMax;
+    }
+
+    /**
+     * Returns the traffic class of the current thread, {@link #DISPATCH} if not set.
+     */
+    public static TrafficClass current() {
+
+        TrafficClass current = CURRENT.get();
+        return (current != null) ? current : DISPATCH;
+    }
+
+    /**
+     * Set the traffic class of the current thread, {@code null} to clear it.
+     */
+    public static void set(TrafficClass trafficClass) {
+
+        if (trafficClass != null) {
+            CURRENT.set(trafficClass);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Returns the name used in the configuration keys and the metrics, e.g. "api-read".
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultMin() {
+        return defaultMin;
+    }
+
+    public int getDefaultMax() {
+        return defaultMax;
+    }
+
+}
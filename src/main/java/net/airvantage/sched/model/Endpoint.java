@@ -0,0 +1,66 @@
+package net.airvantage.sched.model;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.utils.URIUtils;
+
+/**
+ * A callback URL, parsed once for all the jobs calling it.
+ */
+public class Endpoint {
+
+    private final String url;
+    private final URI uri;
+    private final HttpHost host;
+
+    private Endpoint(String url, URI uri, HttpHost host) {
+        this.url = url;
+        this.uri = uri;
+        this.host = host;
+    }
+
+    public static Endpoint parse(String url) throws URISyntaxException {
+
+        URI uri = new URI(url);
+        return new Endpoint(url, uri, URIUtils.extractHost(uri));
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * Returns the target host of the requests, {@code null} if the URL has none.
+     */
+    public HttpHost getHost() {
+        return host;
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        return url.equals(((Endpoint) obj).url);
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+}
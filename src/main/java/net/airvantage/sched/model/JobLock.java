@@ -5,12 +5,15 @@ import java.util.Date;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class JobLock {
 
     private static final Logger LOG = LoggerFactory.getLogger(JobLock.class);
 
     private boolean locked;
     private Long expiresAt;
+    private Long lockedAt;
 
     public JobLock() {
         locked = false;
@@ -33,13 +36,29 @@ public class JobLock {
         this.expiresAt = expiresAt;
     }
 
+    /**
+     * Returns the date the lock was taken, {@code null} if unknown.
+     */
+    @JsonIgnore
+    public Long getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(Long lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
     public boolean isExpired() {
         return isExpired(new Date());
     }
 
     public boolean isExpired(Date date) {
-        LOG.debug("Checking if expired : " + this.expiresAt + " vs " + date.getTime());
-        boolean expired = (this.expiresAt != null && this.expiresAt < date.getTime());
+        return isExpired(date.getTime());
+    }
+
+    public boolean isExpired(long now) {
+        LOG.debug("Checking if expired : " + this.expiresAt + " vs " + now);
+        boolean expired = (this.expiresAt != null && this.expiresAt < now);
         LOG.debug("Is it expired ? " + expired);
         return expired;
     }
@@ -0,0 +1,63 @@
+package net.airvantage.sched.model;
+
+/**
+ * A CRON job stored by the table recurrence engine, with its next fire time.
+ */
+public class JobRecurrence {
+
+    private String id;
+    private String cron;
+    private long startAt;
+    private long nextFireTime;
+    private long splay;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    public long getStartAt() {
+        return startAt;
+    }
+
+    public void setStartAt(long startAt) {
+        this.startAt = startAt;
+    }
+
+    public long getNextFireTime() {
+        return nextFireTime;
+    }
+
+    public void setNextFireTime(long nextFireTime) {
+        this.nextFireTime = nextFireTime;
+    }
+
+    /**
+     * Returns the window in ms the fire times of the job are spread over, 0 if not spread.
+     */
+    public long getSplay() {
+        return splay;
+    }
+
+    public void setSplay(long splay) {
+        this.splay = splay;
+    }
+
+    @Override
+    public String toString() {
+        return "JobRecurrence [id=" + id + ", cron=" + cron + ", startAt=" + startAt + ", nextFireTime="
+                + nextFireTime + ", splay=" + splay + "]";
+    }
+
+}
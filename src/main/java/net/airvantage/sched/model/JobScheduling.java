@@ -11,6 +11,12 @@ public class JobScheduling {
     private long startAt;
     private String value;
 
+    /** The window in ms the CRON fire times are spread over, {@code null} for the default one. */
+    private Long splay;
+
+    /** The delay in ms a WAKEUP job can be fired after its time, {@code null} if it must fire on time. */
+    private Long tolerance;
+
     public JobSchedulingType getType() {
         return type;
     }
@@ -35,6 +41,22 @@ public class JobScheduling {
         this.startAt = startAt;
     }
 
+    public Long getSplay() {
+        return splay;
+    }
+
+    public void setSplay(Long splay) {
+        this.splay = splay;
+    }
+
+    public Long getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(Long tolerance) {
+        this.tolerance = tolerance;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -44,6 +66,10 @@ public class JobScheduling {
         builder.append(startAt);
         builder.append(", value=");
         builder.append(value);
+        builder.append(", splay=");
+        builder.append(splay);
+        builder.append(", tolerance=");
+        builder.append(tolerance);
         builder.append("]");
         return builder.toString();
     }
@@ -55,6 +81,8 @@ public class JobScheduling {
         result = prime * result + (int) (startAt ^ (startAt >>> 32));
         result = prime * result + ((type == null) ? 0 : type.hashCode());
         result = prime * result + ((value == null) ? 0 : value.hashCode());
+        result = prime * result + ((splay == null) ? 0 : splay.hashCode());
+        result = prime * result + ((tolerance == null) ? 0 : tolerance.hashCode());
         return result;
     }
 
@@ -76,6 +104,16 @@ public class JobScheduling {
                 return false;
         } else if (!value.equals(other.value))
             return false;
+        if (splay == null) {
+            if (other.splay != null)
+                return false;
+        } else if (!splay.equals(other.splay))
+            return false;
+        if (tolerance == null) {
+            if (other.tolerance != null)
+                return false;
+        } else if (!tolerance.equals(other.tolerance))
+            return false;
         return true;
     }
 
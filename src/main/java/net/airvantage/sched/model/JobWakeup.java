@@ -9,6 +9,7 @@ public class JobWakeup {
     private Long wakeupTime;
     private String callback;
     private int retryCount;
+    private Long deadline;
 
     public String getId() {
         return id;
@@ -42,11 +43,23 @@ public class JobWakeup {
         this.retryCount = retryCount;
     }
 
+    /**
+     * Returns the latest time the wake-up may fire at, {@code null} if it fires at its wake-up time.
+     */
+    public Long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Long deadline) {
+        this.deadline = deadline;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((callback == null) ? 0 : callback.hashCode());
+        result = prime * result + ((deadline == null) ? 0 : deadline.hashCode());
         result = prime * result + ((id == null) ? 0 : id.hashCode());
         result = prime * result + retryCount;
         result = prime * result + ((wakeupTime == null) ? 0 : wakeupTime.hashCode());
@@ -67,6 +80,11 @@ public class JobWakeup {
                 return false;
         } else if (!callback.equals(other.callback))
             return false;
+        if (deadline == null) {
+            if (other.deadline != null)
+                return false;
+        } else if (!deadline.equals(other.deadline))
+            return false;
         if (id == null) {
             if (other.id != null)
                 return false;
@@ -85,7 +103,7 @@ public class JobWakeup {
     @Override
     public String toString() {
         return "JobWakeup [id=" + id + ", wakeupTime=" + wakeupTime + ", callback=" + callback + ", retryCount="
-                + retryCount + "]";
+                + retryCount + ", deadline=" + deadline + "]";
     }
 
 }
@@ -0,0 +1,114 @@
+package net.airvantage.sched.quartz;
+
+import java.time.Clock;
+import java.util.List;
+
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.dao.JobRecurrenceDao;
+import net.airvantage.sched.model.JobRecurrence;
+import net.airvantage.sched.quartz.job.CronJob;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+
+/**
+ * Moves the CRON jobs scheduled with Quartz to the table recurrence engine, keeping their next fire time.
+ *
+ * <p>
+ * Each job is written to the table, then removed from Quartz : the nodes running the table engine fire the jobs of
+ * both engines meanwhile. The internal jobs are left in Quartz.
+ * </p>
+ */
+public class CronTriggerMigrator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CronTriggerMigrator.class);
+
+    private SchedulerShards schedulers;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private Clock clock;
+
+    public CronTriggerMigrator(SchedulerShards schedulers, JobRecurrenceDao jobRecurrenceDao, Clock clock) {
+        this.schedulers = schedulers;
+        this.jobRecurrenceDao = jobRecurrenceDao;
+        this.clock = clock;
+    }
+
+    /**
+     * Move all the Quartz CRON jobs.
+     *
+     * @return the number of jobs moved.
+     */
+    public long migrate() throws SchedulerException {
+
+        long moved = 0;
+        for (Scheduler scheduler : schedulers.getAll()) {
+            for (JobKey key : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
+
+                JobDetail job = scheduler.getJobDetail(key);
+                if (job == null || !CronJob.class.equals(job.getJobClass())) {
+                    continue;
+                }
+
+                JobRecurrence recurrence = toRecurrence(key, scheduler.getTriggersOfJob(key));
+                if (recurrence != null) {
+                    jobRecurrenceDao.persist(recurrence);
+                }
+                scheduler.deleteJob(key);
+
+                moved++;
+                if (moved % 1000 == 0) {
+                    LOG.info("{} CRON jobs moved", moved);
+                }
+            }
+        }
+
+        return moved;
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    /**
+     * @return {@code null} if the job has no more fire time.
+     */
+    private JobRecurrence toRecurrence(JobKey key, List<? extends Trigger> triggers) {
+
+        for (Trigger trigger : triggers) {
+            if (trigger instanceof CronTrigger) {
+
+                CronTrigger cronTrigger = (CronTrigger) trigger;
+
+                JobRecurrence recurrence = new JobRecurrence();
+                recurrence.setId(key.getName());
+                recurrence.setCron(cronTrigger.getCronExpression());
+                recurrence.setStartAt(cronTrigger.getStartTime().getTime());
+                if (cronTrigger.getJobDataMap().containsKey(CronJob.SPLAY)) {
+                    recurrence.setSplay(cronTrigger.getJobDataMap().getLong(CronJob.SPLAY));
+                }
+                long offset = RecurrenceHelper.splayOffset(key.getName(), recurrence.getSplay());
+
+                if (cronTrigger.getNextFireTime() != null) {
+                    recurrence.setNextFireTime(cronTrigger.getNextFireTime().getTime() + offset);
+                    return recurrence;
+                }
+
+                Long next = RecurrenceHelper.nextFireTime(recurrence.getCron(), recurrence.getStartAt(), offset,
+                        clock.millis());
+                if (next != null) {
+                    recurrence.setNextFireTime(next);
+                    return recurrence;
+                }
+            }
+        }
+
+        LOG.warn("CRON job {} has no more fire time, only its configuration is kept", key);
+        return null;
+    }
+
+}
@@ -1,5 +1,7 @@
 package net.airvantage.sched.quartz;
 
+import java.time.Clock;
+
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.model.JobLock;
 import net.airvantage.sched.model.JobState;
@@ -19,15 +21,17 @@ public class DefaultTriggerListener extends TriggerListenerSupport {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultTriggerListener.class);
 
     private JobStateService jobStateService;
+    private Clock clock;
 
     @Override
     public String getName() {
         return "lockTriggerListener";
     }
 
-    public DefaultTriggerListener(JobStateService jobStateService) {
+    public DefaultTriggerListener(JobStateService jobStateService, Clock clock) {
 
         this.jobStateService = jobStateService;
+        this.clock = clock;
     }
 
     @Override
@@ -40,15 +44,9 @@ public class DefaultTriggerListener extends TriggerListenerSupport {
 
                 // Do not execute a job if the remote client has not acknowledged the previous run
                 JobLock lock = jobState.getLock();
+                // An expired lock is released by the lock expiry timer
                 if ((lock != null) && lock.isLocked()) {
-                    if (lock.isExpired()) {
-
-                        this.jobStateService.unlockJob(jobId);
-                        return false;
-
-                    } else {
-                        return true;
-                    }
+                    return !lock.isExpired(clock.millis());
                 }
             }
 
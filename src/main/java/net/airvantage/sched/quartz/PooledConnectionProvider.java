@@ -0,0 +1,46 @@
+package net.airvantage.sched.quartz;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.quartz.utils.ConnectionProvider;
+
+/**
+ * Quartz {@link ConnectionProvider} borrowing the JobStore connections from the application pool, instead of a second
+ * pool built by Quartz.
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+
+    private final DataSource dataSource;
+
+    public PooledConnectionProvider(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize() throws SQLException {
+        // Nothing to do, the pool is already started
+    }
+
+    /**
+     * The pool is not closed : it is owned by the application and still used by the DAOs.
+     */
+    @Override
+    public void shutdown() throws SQLException {
+        // Nothing to do
+    }
+
+}
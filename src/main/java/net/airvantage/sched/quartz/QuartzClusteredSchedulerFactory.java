@@ -2,56 +2,81 @@ package net.airvantage.sched.quartz;
 
 import java.util.Properties;
 
-import org.apache.commons.configuration.Configuration;
+import javax.sql.DataSource;
+
+import net.airvantage.sched.conf.ConfigSnapshot;
+import net.airvantage.sched.conf.Keys;
+
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.impl.StdSchedulerFactory;
-
-import com.mysql.jdbc.Driver;
+import org.quartz.utils.DBConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class QuartzClusteredSchedulerFactory {
 
-    public static final Scheduler buildScheduler(Configuration config) throws SchedulerException {
+    private static final Logger LOG = LoggerFactory.getLogger(QuartzClusteredSchedulerFactory.class);
+
+    /**
+     * Build and start the clustered scheduler, its JobStore uses the connections of the given data source.
+     */
+    public static final Scheduler buildScheduler(ConfigSnapshot config, DataSource dataSource)
+            throws SchedulerException {
+        return buildScheduler(config, dataSource, SchedulerShards.schedulerName(0));
+    }
+
+    /**
+     * Build and start a clustered scheduler with the given name, the schedulers of different names share the Quartz
+     * tables but not their triggers nor their locks.
+     */
+    public static final Scheduler buildScheduler(ConfigSnapshot config, DataSource dataSource, String name)
+            throws SchedulerException {
 
         StdSchedulerFactory schedFact = new org.quartz.impl.StdSchedulerFactory();
 
         Properties props = new Properties();
+        QuartzProfile profile = QuartzProfile.fromName(config.getString(Keys.Quartz.PROFILE, "default"));
+        LOG.info("Using the {} Quartz profile", profile);
 
         // General
-        props.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "av_sched_clustered");
+        props.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, name);
         props.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_ID, "AUTO");
+        props.put("org.quartz.scheduler.idleWaitTime", config.getString(Keys.Quartz.IDLE_WAIT_TIME, "30000"));
+
+        // Batch trigger acquisition
+        props.put("org.quartz.scheduler.batchTriggerAcquisitionMaxCount",
+                config.getString(Keys.Quartz.BATCH_MAX_COUNT, Integer.toString(profile.getBatchMaxCount())));
+        props.put("org.quartz.scheduler.batchTriggerAcquisitionFireAheadTimeWindow",
+                config.getString(Keys.Quartz.BATCH_TIME_WINDOW, Long.toString(profile.getBatchTimeWindow())));
 
         // Thread pooling ?
-        props.put("org.quartz.threadPool.class", org.quartz.simpl.SimpleThreadPool.class.getName());
-        props.put("org.quartz.threadPool.threadCount", "25");
-        props.put("org.quartz.threadPool.threadPriority", "5");
+        props.put("org.quartz.threadPool.class", ResizableThreadPool.class.getName());
+        props.put("org.quartz.threadPool.threadCount",
+                config.getString(Keys.Quartz.THREAD_COUNT, Integer.toString(profile.getThreadCount())));
+        props.put("org.quartz.threadPool.threadPriority", config.getString(Keys.Quartz.THREAD_PRIORITY, "5"));
 
         // JobStore
         props.put("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
-        props.put("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+        props.put("org.quartz.jobStore.driverDelegateClass",
+                config.getString(Keys.Db.QUARTZ_DELEGATE, "org.quartz.impl.jdbcjobstore.StdJDBCDelegate"));
         props.put("org.quartz.jobStore.useProperties", false);
         props.put("org.quartz.jobStore.dataSource", "sched");
         props.put("org.quartz.jobStore.tablePrefix", "QRTZ_");
 
         props.put("org.quartz.jobStore.isClustered", "true");
-        props.put("org.quartz.jobStore.clusterCheckinInterval", "20000");
-
-        props.put("org.quartz.jobStore.misfireThreshold", "60000");
-        props.put("org.quartz.jobStore.maxMisfiresToHandleAtATime", "20");
-
-        // DB
-        String jdbcUrl = "jdbc:mysql://" + config.getString("av-sched.db.server") + ":"
-                + config.getString("av-sched.db.port") + "/" + config.getString("av-sched.db.dbName");
-        
-        props.put("org.quartz.dataSource.sched.driver", Driver.class.getName());
-        props.put("org.quartz.dataSource.sched.URL", jdbcUrl);
-        props.put("org.quartz.dataSource.sched.user", config.getString("av-sched.db.user"));
-        props.put("org.quartz.dataSource.sched.password", config.getString("av-sched.db.password"));
-        
-        // Attempt to fix https://github.com/AirVantage/av-sched/issues/6 
-        props.put("org.quartz.dataSource.sched.validationQuery", "SELECT 1");
-        props.put("org.quartz.dataSource.sched.validateOnCheckout", true);
-        
+        props.put("org.quartz.jobStore.clusterCheckinInterval", config.getString(Keys.Quartz.CLUSTER_CHECKIN_INTERVAL,
+                Long.toString(profile.getClusterCheckinInterval())));
+
+        props.put("org.quartz.jobStore.misfireThreshold",
+                config.getString(Keys.Quartz.MISFIRE_THRESHOLD, Long.toString(profile.getMisfireThreshold())));
+        props.put("org.quartz.jobStore.maxMisfiresToHandleAtATime",
+                config.getString(Keys.Quartz.MAX_MISFIRES, Integer.toString(profile.getMaxMisfiresToHandleAtATime())));
+        props.put("org.quartz.jobStore.acquireTriggersWithinLock", config.getString(Keys.Quartz.ACQUIRE_WITHIN_LOCK,
+                Boolean.toString(profile.isAcquireTriggersWithinLock())));
+
+        // DB : the "sched" data source is not declared in the properties, Quartz looks it up by name
+        DBConnectionManager.getInstance().addConnectionProvider("sched", new PooledConnectionProvider(dataSource));
 
         schedFact.initialize(props);
         Scheduler scheduler = schedFact.getScheduler();
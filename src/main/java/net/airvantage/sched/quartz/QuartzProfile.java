@@ -0,0 +1,76 @@
+package net.airvantage.sched.quartz;
+
+/**
+ * Sets of Quartz thread pool and JobStore settings, selected with the {@code av-sched.quartz.profile} key. Each value
+ * may still be overridden by its own {@code av-sched.quartz.*} key.
+ */
+public enum QuartzProfile {
+
+    /**
+     * The historical settings : one trigger acquired per lock of the triggers table.
+     */
+    DEFAULT(25, 20_000, 60_000, 20, 1, 0, false),
+
+    /**
+     * For thousands of CRON jobs firing at the same second : the triggers are acquired by batches of 50, up to one
+     * second ahead of their fire time, in a single lock of the triggers table.
+     */
+    HIGH_THROUGHPUT(50, 20_000, 60_000, 100, 50, 1_000, true);
+
+    private final int threadCount;
+    private final long clusterCheckinInterval;
+    private final long misfireThreshold;
+    private final int maxMisfiresToHandleAtATime;
+    private final int batchMaxCount;
+    private final long batchTimeWindow;
+    private final boolean acquireTriggersWithinLock;
+
+    private QuartzProfile(int threadCount, long clusterCheckinInterval, long misfireThreshold,
+            int maxMisfiresToHandleAtATime, int batchMaxCount, long batchTimeWindow,
+            boolean acquireTriggersWithinLock) {
+
+        this.threadCount = threadCount;
+        this.clusterCheckinInterval = clusterCheckinInterval;
+        this.misfireThreshold = misfireThreshold;
+        this.maxMisfiresToHandleAtATime = maxMisfiresToHandleAtATime;
+        this.batchMaxCount = batchMaxCount;
+        this.batchTimeWindow = batchTimeWindow;
+        this.acquireTriggersWithinLock = acquireTriggersWithinLock;
+    }
+
+    /**
+     * Returns the profile with the given name, e.g. "high-throughput".
+     */
+    public static QuartzProfile fromName(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getClusterCheckinInterval() {
+        return clusterCheckinInterval;
+    }
+
+    public long getMisfireThreshold() {
+        return misfireThreshold;
+    }
+
+    public int getMaxMisfiresToHandleAtATime() {
+        return maxMisfiresToHandleAtATime;
+    }
+
+    public int getBatchMaxCount() {
+        return batchMaxCount;
+    }
+
+    public long getBatchTimeWindow() {
+        return batchTimeWindow;
+    }
+
+    public boolean isAcquireTriggersWithinLock() {
+        return acquireTriggersWithinLock;
+    }
+
+}
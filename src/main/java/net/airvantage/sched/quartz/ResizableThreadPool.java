@@ -0,0 +1,199 @@
+package net.airvantage.sched.quartz;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Quartz {@link ThreadPool} whose thread count can be changed while the scheduler is running, unlike the
+ * {@link org.quartz.simpl.SimpleThreadPool}.
+ *
+ * <p>
+ * Quartz instantiates the pool itself, so the running pools are registered by scheduler name and looked up with
+ * {@link #forScheduler(String)}.
+ * </p>
+ */
+public class ResizableThreadPool implements ThreadPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResizableThreadPool.class);
+
+    private static final ConcurrentMap<String, ResizableThreadPool> POOLS = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private int threadCount = 10;
+    private int threadPriority = Thread.NORM_PRIORITY;
+    private String instanceName = "QuartzScheduler";
+
+    private ThreadPoolExecutor executor;
+    private int busy;
+    private boolean shutdown;
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Returns the pool of the given scheduler, or {@code null} if it does not use this pool.
+     */
+    public static ResizableThreadPool forScheduler(String schedulerName) {
+        return POOLS.get(schedulerName);
+    }
+
+    /**
+     * Set the number of worker threads. Running jobs are not interrupted when the pool shrinks, no new job is started
+     * until their count is below the new size.
+     */
+    public void setThreadCount(int count) {
+
+        if (count <= 0) {
+            throw new IllegalArgumentException("Thread count must be > 0");
+        }
+
+        synchronized (lock) {
+            threadCount = count;
+
+            if (executor != null) {
+                // The core size can never be greater than the maximum one
+                if (count > executor.getMaximumPoolSize()) {
+                    executor.setMaximumPoolSize(count);
+                    executor.setCorePoolSize(count);
+                } else {
+                    executor.setCorePoolSize(count);
+                    executor.setMaximumPoolSize(count);
+                }
+                LOG.info("Quartz thread pool {} resized to {} threads", instanceName, count);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    public int getThreadCount() {
+        synchronized (lock) {
+            return threadCount;
+        }
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize() throws SchedulerConfigException {
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        synchronized (lock) {
+            executor = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), runnable -> {
+                        String name = instanceName + "_Worker-" + threadNumber.incrementAndGet();
+                        Thread thread = new Thread(runnable, name);
+                        thread.setPriority(threadPriority);
+                        return thread;
+                    });
+        }
+        POOLS.put(instanceName, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean runInThread(Runnable runnable) {
+
+        synchronized (lock) {
+            if (shutdown || busy >= threadCount) {
+                return false;
+            }
+            busy++;
+        }
+
+        executor.execute(() -> {
+            try {
+                runnable.run();
+            } finally {
+                synchronized (lock) {
+                    busy--;
+                    lock.notifyAll();
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int blockForAvailableThreads() {
+
+        synchronized (lock) {
+            while (!shutdown && busy >= threadCount) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return Math.max(threadCount - busy, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+
+        POOLS.remove(instanceName, this);
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+
+        executor.shutdown();
+        if (waitForJobsToComplete) {
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    LOG.debug("Waiting for the running jobs to complete");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPoolSize() {
+        return getThreadCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setInstanceId(String schedInstId) {
+        // Not used
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+
+}
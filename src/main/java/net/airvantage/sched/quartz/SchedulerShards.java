@@ -0,0 +1,99 @@
+package net.airvantage.sched.quartz;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * The Quartz schedulers of a node, each one with its own scheduler name : the nodes acquire the triggers of the
+ * different shards in parallel, instead of all waiting for the single {@code TRIGGER_ACCESS} lock of one scheduler.
+ *
+ * <p>
+ * A job is routed to a shard by a consistent hash of its identifier. A job scheduled before the number of shards was
+ * changed stays on its shard, and is still found there.
+ * </p>
+ */
+public class SchedulerShards {
+
+    private static final String NAME = "av_sched_clustered";
+
+    private final List<Scheduler> schedulers;
+
+    /**
+     * @param schedulers the shards, the first one runs the internal jobs.
+     */
+    public SchedulerShards(List<Scheduler> schedulers) {
+
+        if (schedulers.isEmpty()) {
+            throw new IllegalArgumentException("No scheduler shard");
+        }
+        this.schedulers = schedulers;
+    }
+
+    /**
+     * Returns the scheduler name of the given shard, the first one keeps the name of the single scheduler.
+     */
+    public static String schedulerName(int index) {
+        return (index == 0) ? NAME : NAME + "_" + index;
+    }
+
+    /**
+     * Returns the index of the shard of the given job, among {@code count} shards.
+     */
+    public static int shardIndex(String jobId, int count) {
+        return Hashing.consistentHash(Hashing.murmur3_128().hashString(jobId, StandardCharsets.UTF_8), count);
+    }
+
+    /**
+     * Returns the scheduler running the internal jobs.
+     */
+    public Scheduler getMain() {
+        return schedulers.get(0);
+    }
+
+    public List<Scheduler> getAll() {
+        return schedulers;
+    }
+
+    /**
+     * Returns the scheduler the given job is routed to.
+     */
+    public Scheduler shardOf(String jobId) {
+        return schedulers.get(shardIndex(jobId, schedulers.size()));
+    }
+
+    /**
+     * Returns the scheduler of an existing job, or the one it is routed to if none has it.
+     */
+    public Scheduler locate(String jobId) throws SchedulerException {
+
+        Scheduler routed = shardOf(jobId);
+        if (schedulers.size() == 1) {
+            return routed;
+        }
+
+        JobKey key = new JobKey(jobId);
+        if (routed.checkExists(key)) {
+            return routed;
+        }
+        for (Scheduler scheduler : schedulers) {
+            if (scheduler != routed && scheduler.checkExists(key)) {
+                return scheduler;
+            }
+        }
+        return routed;
+    }
+
+    public void shutdown(boolean waitForJobsToComplete) throws SchedulerException {
+
+        for (Scheduler scheduler : schedulers) {
+            scheduler.shutdown(waitForJobsToComplete);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.airvantage.sched.quartz.job;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.quartz.CronTrigger;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.ServiceLocator;
+import net.airvantage.sched.dao.CronGroupDao;
+import net.airvantage.sched.services.tech.FanOutDispatcher;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+
+/**
+ * The shared job of a CRON group : each fire of its trigger dispatches all the CRON jobs registered with the same
+ * expression, which are then executed with the lock policy of each job, after the splay offset of each job.
+ *
+ * <p>
+ * The fire of each member is stored before being dispatched, so that it is not lost if this node stops before the
+ * splay offset of the member.
+ * </p>
+ */
+@DisallowConcurrentExecution
+public class CronGroupJob implements Job {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CronGroupJob.class);
+
+    private static final int QUERY_LIMIT = 1_000;
+
+    private CronGroupDao cronGroupDao;
+    private FanOutDispatcher fanOutDispatcher;
+    private Clock clock;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    /**
+     * Constructor used by Quartz to load the job.
+     */
+    public CronGroupJob() {
+        this(ServiceLocator.getInstance().getCronGroupDao(), ServiceLocator.getInstance().getFanOutDispatcher(),
+                ServiceLocator.getInstance().getClock());
+    }
+
+    protected CronGroupJob(CronGroupDao cronGroupDao, FanOutDispatcher fanOutDispatcher, Clock clock) {
+
+        this.cronGroupDao = cronGroupDao;
+        this.fanOutDispatcher = fanOutDispatcher;
+        this.clock = clock;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        LOG.debug("execute : context={}", context);
+
+        JobKey key = context.getJobDetail().getKey();
+        String cron = ((CronTrigger) context.getTrigger()).getCronExpression();
+
+        try {
+            long start = clock.millis();
+            long fireTime = context.getScheduledFireTime().getTime();
+            int count = 0;
+            int skipped = 0;
+
+            String afterId = "";
+            Map<String, Long> members;
+            do {
+                members = cronGroupDao.findMembers(cron, afterId, QUERY_LIMIT);
+                Map<String, Long> fireTimes = new LinkedHashMap<>();
+                for (Map.Entry<String, Long> member : members.entrySet()) {
+                    fireTimes.put(member.getKey(),
+                            fireTime + RecurrenceHelper.splayOffset(member.getKey(), member.getValue()));
+                    afterId = member.getKey();
+                }
+
+                // The members whose previous fire is still pending are skipped
+                Set<String> added = cronGroupDao.addFires(fireTimes);
+                skipped += fireTimes.size() - added.size();
+
+                for (Map.Entry<String, Long> fire : fireTimes.entrySet()) {
+                    if (!added.contains(fire.getKey())) {
+                        continue;
+                    }
+                    if (fanOutDispatcher.dispatch(fire.getKey(), fire.getValue())) {
+                        count++;
+                    } else {
+                        cronGroupDao.claimFire(fire.getKey(), fire.getValue());
+                        skipped++;
+                    }
+                }
+            } while (members.size() == QUERY_LIMIT);
+
+            if (skipped > 0) {
+                LOG.info("CRON group {} : {} jobs still running from a previous fire, skipped", key, skipped);
+            }
+            LOG.debug("CRON group {} : {} jobs dispatched in {} ms", key, count, clock.millis() - start);
+
+        } catch (Exception ex) {
+            LOG.error("Unable to execute CRON group " + key, ex);
+            throw new JobExecutionException("Unable to execute CRON group " + key, ex);
+        }
+    }
+
+}
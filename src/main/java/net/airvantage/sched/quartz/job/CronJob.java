@@ -1,20 +1,35 @@
 package net.airvantage.sched.quartz.job;
 
+import java.util.Date;
+
 import net.airvantage.sched.app.ServiceLocator;
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.services.tech.JobExecutionHelper;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
 
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A CRON job with its own trigger. A job with a splay window is executed after its splay offset, by a one-shot trigger
+ * stored with the job : a splayed fire is not lost if the node stops meanwhile.
+ */
 public class CronJob implements Job {
 
     private static final Logger LOG = LoggerFactory.getLogger(CronJob.class);
 
+    /** The trigger data holding the splay window in ms of the job. */
+    public static final String SPLAY = "splay";
+
     private JobExecutionHelper jobExecutionHelper;
 
     // ------------------------------------------------- Constructors -------------------------------------------------
@@ -43,6 +58,16 @@ public class CronJob implements Job {
         String jobId = key.getName();
         JobResult result = null;
 
+        // Only the CRON trigger holds the splay window, a job triggered manually or by its splay trigger is executed
+        // at once
+        long splay = context.getTrigger().getJobDataMap().containsKey(SPLAY)
+                ? context.getTrigger().getJobDataMap().getLong(SPLAY) : 0L;
+        long offset = RecurrenceHelper.splayOffset(jobId, splay);
+        if (offset > 0) {
+            this.scheduleSplayed(context, key, context.getScheduledFireTime().getTime() + offset);
+            return;
+        }
+
         try {
             result = this.jobExecutionHelper.execute(jobId);
 
@@ -54,4 +79,28 @@ public class CronJob implements Job {
         context.setResult(result);
     }
 
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    /**
+     * Fire the job once at the given date, with a trigger stored by Quartz. The fire is skipped while the previous
+     * splayed fire of the job is still pending.
+     */
+    private void scheduleSplayed(JobExecutionContext context, JobKey key, long fireTime)
+            throws JobExecutionException {
+
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(new TriggerKey(key.getName(), key.getName() + "-splay")).forJob(key)
+                .startAt(new Date(fireTime)).build();
+        try {
+            context.getScheduler().scheduleJob(trigger);
+
+        } catch (ObjectAlreadyExistsException e) {
+            LOG.debug("CRON job {} still pending from a previous fire, skipped", key);
+
+        } catch (SchedulerException e) {
+            LOG.error("Unable to schedule the splayed fire of CRON job " + key, e);
+            throw new JobExecutionException("Unable to schedule the splayed fire of CRON job " + key, e);
+        }
+    }
+
 }
@@ -0,0 +1,78 @@
+package net.airvantage.sched.quartz.job;
+
+import java.time.Clock;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.app.ServiceLocator;
+import net.airvantage.sched.services.JobStateService;
+
+/**
+ * The internal timer releasing the expired locks, run by one node of the cluster : the locks are deleted in batches,
+ * through the index of their expiration date, and the triggers of a job paused while it was locked are resumed. The
+ * firing jobs only read their lock, they never clean it.
+ */
+@DisallowConcurrentExecution
+public class LockExpiryJob implements Job {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LockExpiryJob.class);
+
+    private static final int QUERY_LIMIT = 1_000;
+
+    private JobStateService jobStateService;
+    private Clock clock;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    /**
+     * Constructor used by Quartz to load the job.
+     */
+    public LockExpiryJob() {
+        this(ServiceLocator.getInstance().getJobStateService(), ServiceLocator.getInstance().getClock());
+    }
+
+    protected LockExpiryJob(JobStateService jobStateService, Clock clock) {
+
+        this.jobStateService = jobStateService;
+        this.clock = clock;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        LOG.debug("execute : context={}", context);
+
+        JobKey key = context.getJobDetail().getKey();
+
+        try {
+            long now = clock.millis();
+            int count = 0;
+
+            int released;
+            do {
+                released = jobStateService.releaseExpiredLocks(now, QUERY_LIMIT);
+                count += released;
+
+            } while (released == QUERY_LIMIT);
+
+            if (count > 0) {
+                LOG.info("{} expired locks released", count);
+            }
+
+        } catch (Exception ex) {
+            LOG.error("Unable to execute lock expiry job " + key, ex);
+            throw new JobExecutionException("Unable to execute lock expiry job " + key, ex);
+        }
+    }
+
+}
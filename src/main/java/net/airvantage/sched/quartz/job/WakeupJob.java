@@ -1,5 +1,6 @@
 package net.airvantage.sched.quartz.job;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -18,10 +19,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.airvantage.sched.app.ServiceLocator;
+import net.airvantage.sched.dao.JobRecurrenceDao;
 import net.airvantage.sched.dao.JobWakeupDao;
+import net.airvantage.sched.model.JobRecurrence;
 import net.airvantage.sched.model.JobWakeup;
 import net.airvantage.sched.services.tech.JobExecutionHelper;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+import net.airvantage.sched.services.tech.WakeupLeveler;
 
+/**
+ * The internal timer dispatching the due wake-ups, and the due CRON jobs of the table recurrence engine if enabled.
+ */
 @DisallowConcurrentExecution
 public class WakeupJob implements Job {
 
@@ -32,6 +40,11 @@ public class WakeupJob implements Job {
     private JobExecutionHelper jobExecutionHelper;
     private JobWakeupDao jobWakeupDao;
     private int threadPoolSize;
+    private Clock clock;
+    private long claimLease;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private RecurrenceHelper recurrenceHelper;
+    private WakeupLeveler wakeupLeveler;
 
     // ------------------------------------------------- Constructors -------------------------------------------------
 
@@ -40,14 +53,28 @@ public class WakeupJob implements Job {
      */
     public WakeupJob() {
         this(ServiceLocator.getInstance().geJobExecutionHelper(), ServiceLocator.getInstance().getJobWakeupDao(),
-                ServiceLocator.getInstance().getWakeupJobThreadPoolSize());
+                ServiceLocator.getInstance().getWakeupJobThreadPoolSize(), ServiceLocator.getInstance().getClock(),
+                ServiceLocator.getInstance().getWakeupClaimLease(),
+                ServiceLocator.getInstance().getEnabledJobRecurrenceDao(),
+                ServiceLocator.getInstance().getRecurrenceHelper(), ServiceLocator.getInstance().getWakeupLeveler());
     }
 
-    protected WakeupJob(JobExecutionHelper jobExecutionHelper, JobWakeupDao jobWakeupDao, int threadPoolSize) {
+    /**
+     * @param jobRecurrenceDao the CRON jobs of the table recurrence engine, {@code null} if not enabled.
+     * @param wakeupLeveler levels the dispatched wake-ups against the target rate, {@code null} if none.
+     */
+    protected WakeupJob(JobExecutionHelper jobExecutionHelper, JobWakeupDao jobWakeupDao, int threadPoolSize,
+            Clock clock, long claimLease, JobRecurrenceDao jobRecurrenceDao, RecurrenceHelper recurrenceHelper,
+            WakeupLeveler wakeupLeveler) {
 
         this.jobExecutionHelper = jobExecutionHelper;
         this.jobWakeupDao = jobWakeupDao;
         this.threadPoolSize = threadPoolSize;
+        this.clock = clock;
+        this.claimLease = claimLease;
+        this.jobRecurrenceDao = jobRecurrenceDao;
+        this.recurrenceHelper = recurrenceHelper;
+        this.wakeupLeveler = wakeupLeveler;
     }
 
     // ------------------------------------------------- Public Methods -----------------------------------------------
@@ -62,21 +89,35 @@ public class WakeupJob implements Job {
         JobKey key = context.getJobDetail().getKey();
 
         try {
-            long now = System.currentTimeMillis();
+            long now = clock.millis();
             ExecutorService executor = null;
             boolean processing = true;
 
             while (processing) {
                 long start = System.currentTimeMillis();
-                List<JobWakeup> wakeups = jobWakeupDao.find(now, QUERY_LIMIT);
+                List<JobWakeup> found = jobWakeupDao.find(now, QUERY_LIMIT);
+
+                if (found != null && !found.isEmpty()) {
+                    // Claimed wake-ups are not found again until they are processed or their lease has expired
+                    List<JobWakeup> wakeups = jobWakeupDao.claim(found, clock.millis() + claimLease);
+
+                    // The flexible wake-ups above the target rate are released with a later time
+                    if (wakeupLeveler != null && !wakeups.isEmpty()) {
+                        List<JobWakeup> postponed = new ArrayList<>();
+                        wakeups = wakeupLeveler.level(wakeups, postponed);
+                        if (!postponed.isEmpty()) {
+                            jobWakeupDao.persist(postponed);
+                        }
+                    }
 
-                if (wakeups != null && !wakeups.isEmpty()) {
                     // Create executor if needed
                     if (executor == null) {
                         executor = this.buildExecutorService();
                     }
 
-                    processWakeups(executor, wakeups);
+                    if (!wakeups.isEmpty()) {
+                        processWakeups(executor, wakeups);
+                    }
 
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("{} wakeups have been processed in {} ms", wakeups.size(),
@@ -87,6 +128,27 @@ public class WakeupJob implements Job {
                 }
             }
 
+            processing = (jobRecurrenceDao != null);
+            while (processing) {
+                List<JobRecurrence> found = jobRecurrenceDao.findDue(now, QUERY_LIMIT);
+
+                if (!found.isEmpty()) {
+                    long leaseUntil = clock.millis() + claimLease;
+                    List<JobRecurrence> recurrences = jobRecurrenceDao.claim(found, leaseUntil);
+
+                    if (executor == null) {
+                        executor = this.buildExecutorService();
+                    }
+
+                    if (!recurrences.isEmpty()) {
+                        processRecurrences(executor, recurrences, leaseUntil);
+                    }
+
+                } else {
+                    processing = false;
+                }
+            }
+
             if (executor != null) {
                 executor.shutdownNow();
             }
@@ -112,7 +174,7 @@ public class WakeupJob implements Job {
                 @Override
                 public Long call() throws Exception {
 
-                    long start = System.currentTimeMillis();
+                    long start = clock.millis();
                     jobExecutionHelper.execute(wakeup);
 
                     return start - wakeup.getWakeupTime();
@@ -131,6 +193,22 @@ public class WakeupJob implements Job {
         }
     }
 
+    /**
+     * Process the list of claimed {@link JobRecurrence}.
+     */
+    private void processRecurrences(ExecutorService executor, List<JobRecurrence> recurrences, long leaseUntil)
+            throws Exception {
+
+        List<Callable<Object>> callables = new ArrayList<>();
+        for (JobRecurrence recurrence : recurrences) {
+            callables.add(() -> recurrenceHelper.execute(recurrence, leaseUntil));
+        }
+
+        for (Future<Object> future : executor.invokeAll(callables)) {
+            future.get(); // Wait for completion
+        }
+    }
+
     /**
      * Returns an instance of {@link ExecutorService}
      */
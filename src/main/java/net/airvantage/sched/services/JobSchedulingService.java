@@ -1,5 +1,7 @@
 package net.airvantage.sched.services;
 
+import java.util.List;
+
 import org.quartz.Job;
 
 import net.airvantage.sched.app.exceptions.AppException;
@@ -16,6 +18,15 @@ public interface JobSchedulingService {
      */
     void scheduleJob(JobDef jobDef) throws AppException;
 
+    /**
+     * Schedule several jobs at once. The Quartz CRON jobs are stored with one Quartz transaction per scheduler and
+     * their configurations with one batch, the other jobs are scheduled one by one. A job listed several times is not
+     * scheduled.
+     * 
+     * @return the error of each job, in the order of the list, {@code null} for a job scheduled.
+     */
+    List<AppException> scheduleJobs(List<JobDef> jobDefs) throws AppException;
+
     /**
      * Re-schedule an existing job. A trigger with the same key should exist to be replaced.
      */
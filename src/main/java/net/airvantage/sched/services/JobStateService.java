@@ -30,4 +30,11 @@ public interface JobStateService {
      */
     public abstract void unlockJob(String id) throws AppException;
 
+    /**
+     * Release the {@code limit} oldest locks expired at the given date.
+     *
+     * @return the number of locks released.
+     */
+    public abstract int releaseExpiredLocks(long now, int limit) throws AppException;
+
 }
\ No newline at end of file
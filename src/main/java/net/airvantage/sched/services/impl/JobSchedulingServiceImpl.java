@@ -1,9 +1,17 @@
 package net.airvantage.sched.services.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.Clock;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
@@ -23,22 +31,33 @@ import org.quartz.TriggerKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.hash.Hashing;
+
 import net.airvantage.sched.app.exceptions.AppException;
+import net.airvantage.sched.dao.CronGroupDao;
 import net.airvantage.sched.dao.JobConfigDao;
 import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobRecurrenceDao;
 import net.airvantage.sched.dao.JobSchedulingDao;
 import net.airvantage.sched.dao.JobWakeupDao;
 import net.airvantage.sched.model.JobConfig;
 import net.airvantage.sched.model.JobDef;
 import net.airvantage.sched.model.JobLock;
+import net.airvantage.sched.model.JobRecurrence;
 import net.airvantage.sched.model.JobScheduling;
 import net.airvantage.sched.model.JobSchedulingType;
 import net.airvantage.sched.model.JobState;
 import net.airvantage.sched.model.JobWakeup;
+import net.airvantage.sched.quartz.SchedulerShards;
+import net.airvantage.sched.quartz.job.CronGroupJob;
 import net.airvantage.sched.quartz.job.CronJob;
+import net.airvantage.sched.quartz.job.LockExpiryJob;
 import net.airvantage.sched.quartz.job.WakeupJob;
 import net.airvantage.sched.services.JobSchedulingService;
 import net.airvantage.sched.services.JobStateService;
+import net.airvantage.sched.services.tech.IdGenerator;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+import net.airvantage.sched.services.tech.WakeupDispatcher;
 
 /**
  * A service to manage the jobs scheduling.
@@ -47,22 +66,45 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
 
     private Logger LOG = LoggerFactory.getLogger(JobSchedulingServiceImpl.class);
 
-    private Scheduler scheduler;
+    private SchedulerShards schedulers;
     private JobStateService jobStateService;
 
     private JobLockDao jobLockDao;
     private JobConfigDao jobConfigDao;
     private JobWakeupDao jobWakeupDao;
     private JobSchedulingDao jobSchedulingDao;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private CronGroupDao cronGroupDao;
 
-    private String jobWakeupCron;
+    private volatile String jobWakeupCron;
+    private String lockExpiryCron;
+    private long cronSplay;
+    private boolean skipMisfires;
+    private WakeupDispatcher wakeupDispatcher;
+    private Clock clock;
+    private IdGenerator idGenerator;
 
     // ------------------------------------------------ Constructors --------------------------------------------------
 
-    public JobSchedulingServiceImpl(Scheduler scheduler, JobStateService jobStateService, JobConfigDao jobConfigDao,
-            JobLockDao jobLockDao, JobSchedulingDao jobSchedulingDao, JobWakeupDao jobWakeupDao, String jobWakeupCron) {
+    /**
+     * @param jobRecurrenceDao the CRON jobs of the table recurrence engine, {@code null} to schedule the CRON jobs with
+     *            Quartz.
+     * @param cronGroupDao the members of the CRON groups, {@code null} to give each Quartz CRON job its own trigger.
+     * @param cronSplay the splay window in ms of the CRON jobs registered without one.
+     * @param lockExpiryCron the CRON expression of the timer releasing the expired locks, {@code null} if they are
+     *            not deleted : an expired lock is then ignored, and replaced when the job is locked again.
+     * @param wakeupDispatcher fires the wake-ups due soon on this node, {@code null} to leave them all to the
+     *            wake-ups timer.
+     * @param skipMisfires skip the fires of the Quartz CRON jobs missed while paused by a lock or while the scheduler
+     *            was stopped, instead of firing them once at once.
+     */
+    public JobSchedulingServiceImpl(SchedulerShards schedulers, JobStateService jobStateService,
+            JobConfigDao jobConfigDao, JobLockDao jobLockDao, JobSchedulingDao jobSchedulingDao,
+            JobWakeupDao jobWakeupDao, String jobWakeupCron, Clock clock, IdGenerator idGenerator,
+            JobRecurrenceDao jobRecurrenceDao, CronGroupDao cronGroupDao, long cronSplay, String lockExpiryCron,
+            WakeupDispatcher wakeupDispatcher, boolean skipMisfires) {
 
-        this.scheduler = scheduler;
+        this.schedulers = schedulers;
         this.jobStateService = jobStateService;
 
         this.jobLockDao = jobLockDao;
@@ -70,6 +112,14 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         this.jobWakeupDao = jobWakeupDao;
         this.jobSchedulingDao = jobSchedulingDao;
         this.jobWakeupCron = jobWakeupCron;
+        this.clock = clock;
+        this.idGenerator = idGenerator;
+        this.jobRecurrenceDao = jobRecurrenceDao;
+        this.cronGroupDao = cronGroupDao;
+        this.cronSplay = cronSplay;
+        this.lockExpiryCron = lockExpiryCron;
+        this.wakeupDispatcher = wakeupDispatcher;
+        this.skipMisfires = skipMisfires;
     }
 
     public void loadInternalJobs() throws AppException {
@@ -86,7 +136,18 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
             jobScheduling.setType(JobSchedulingType.CRON);
             jobScheduling.setValue(jobWakeupCron);
 
-            scheduleQuarzJob(jobDef, WakeupJob.class);
+            scheduleQuarzJob(schedulers.getMain(), jobDef, WakeupJob.class);
+
+            if (lockExpiryCron != null) {
+                JobDef lockExpiryDef = new JobDef();
+                lockExpiryDef.setConfig(new JobConfig());
+                lockExpiryDef.getConfig().setId("internal/lock-expiry-timer");
+                lockExpiryDef.setScheduling(new JobScheduling());
+                lockExpiryDef.getScheduling().setType(JobSchedulingType.CRON);
+                lockExpiryDef.getScheduling().setValue(lockExpiryCron);
+
+                scheduleQuarzJob(schedulers.getMain(), lockExpiryDef, LockExpiryJob.class);
+            }
 
         } catch (Exception ex) {
             LOG.error("Unable to load internal jobs", ex);
@@ -94,6 +155,19 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         }
     }
 
+    /**
+     * Reschedule the internal wake-ups timer with a new CRON expression.
+     */
+    public void updateWakeupJobCron(String cron) throws AppException {
+
+        if (!cron.equals(jobWakeupCron)) {
+            LOG.info("Reschedule wake-ups timer : cron={}", cron);
+
+            this.jobWakeupCron = cron;
+            loadInternalJobs();
+        }
+    }
+
     // ------------------------------------------ JobSchedulingService Methods ----------------------------------------
 
     /**
@@ -115,14 +189,52 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
                 wakeup.setCallback(jobDef.getConfig().getUrl());
                 wakeup.setWakeupTime(new Long(jobDef.getScheduling().getValue()));
 
-                jobWakeupDao.persist(wakeup);
+                // A flexible wake-up is leveled by the wake-ups timer until its deadline
+                Long tolerance = jobDef.getScheduling().getTolerance();
+                if (tolerance != null && tolerance > 0) {
+                    wakeup.setDeadline(wakeup.getWakeupTime() + tolerance);
+                }
+
+                // A strict wake-up due within the polling window of the wake-ups timer is fired at once by this node
+                if (wakeupDispatcher == null || wakeup.getDeadline() != null || !wakeupDispatcher.dispatch(wakeup)) {
+                    jobWakeupDao.persist(wakeup);
+                }
+
+            } else if (isRegistered(jobDef)) {
+
+                // The same job registered again, e.g. by a client on each restart, is left as it is
+                LOG.debug("Job {} unchanged, registration skipped", jobDef.getConfig().getId());
+
+            } else if (jobRecurrenceDao != null) {
+
+                // The configuration is read when the job fires
+                this.jobConfigDao.persist(jobDef.getConfig());
+
+                jobRecurrenceDao.persist(buildRecurrence(jobDef.getConfig().getId(), jobDef.getScheduling()));
+
+                // A job scheduled with Quartz before the engine was enabled, and not migrated yet, would fire twice
+                Scheduler scheduler = schedulers.locate(jobDef.getConfig().getId());
+                if (scheduler.checkExists(this.buildJobKey(jobDef.getConfig().getId()))) {
+                    scheduler.deleteJob(this.buildJobKey(jobDef.getConfig().getId()));
+                }
+                this.jobConfigDao.updateDefHash(jobDef.getConfig().getId(), defHash(jobDef));
+
+            } else if (cronGroupDao != null && jobDef.getScheduling().getStartAt() <= clock.millis()) {
+
+                this.jobConfigDao.persist(jobDef.getConfig());
+
+                joinCronGroup(jobDef.getConfig().getId(), jobDef.getScheduling());
+                this.jobConfigDao.updateDefHash(jobDef.getConfig().getId(), defHash(jobDef));
 
             } else {
 
-                scheduleQuarzJob(jobDef, CronJob.class);
+                if (cronGroupDao != null) {
+                    leaveCronGroup(jobDef.getConfig().getId());
+                }
+                scheduleQuarzJob(schedulers.locate(jobDef.getConfig().getId()), jobDef, CronJob.class);
 
                 // Persist the job configuration
-                this.jobConfigDao.persist(jobDef.getConfig());
+                this.jobConfigDao.persist(jobDef.getConfig(), defHash(jobDef));
             }
 
         } catch (Exception ex) {
@@ -131,6 +243,91 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AppException> scheduleJobs(List<JobDef> jobDefs) throws AppException {
+        LOG.debug("scheduleJobs : count={}", jobDefs.size());
+
+        List<AppException> errors = new ArrayList<AppException>(
+                Collections.<AppException> nCopies(jobDefs.size(), null));
+        Map<Scheduler, List<Integer>> quartzJobs = new LinkedHashMap<Scheduler, List<Integer>>();
+
+        // The registration to keep of a job listed twice is unknown
+        Map<String, Integer> occurrences = new HashMap<String, Integer>();
+        for (JobDef jobDef : jobDefs) {
+            String jobId = this.getJobId(jobDef);
+            if (jobId != null) {
+                occurrences.merge(jobId, 1, Integer::sum);
+            }
+        }
+
+        for (int i = 0; i < jobDefs.size(); i++) {
+
+            JobDef jobDef = jobDefs.get(i);
+            String jobId = this.getJobId(jobDef);
+            try {
+                if (jobDef == null || jobDef.getConfig() == null || jobDef.getScheduling() == null) {
+                    throw new AppException("missing.job.def");
+                }
+                if (jobId != null && occurrences.get(jobId) > 1) {
+                    throw new AppException("duplicated.job.id", jobId);
+                }
+
+                validate(jobDef.getConfig());
+                validate(jobDef.getScheduling());
+
+                if (hasOwnTrigger(jobDef.getScheduling())) {
+                    Scheduler scheduler = schedulers.locate(jobDef.getConfig().getId());
+                    quartzJobs.computeIfAbsent(scheduler, s -> new ArrayList<Integer>()).add(i);
+
+                } else {
+                    scheduleJob(jobDef);
+                }
+
+            } catch (AppException ex) {
+                errors.set(i, ex);
+
+            } catch (SchedulerException | RuntimeException ex) {
+                LOG.error("Unable to schedule job " + jobDef, ex);
+                List<String> params = (jobId != null) ? Arrays.asList(jobId) : Collections.<String> emptyList();
+                errors.set(i, new AppException("schedule.job.error", params, ex));
+            }
+        }
+
+        for (Map.Entry<Scheduler, List<Integer>> shard : quartzJobs.entrySet()) {
+
+            List<JobDef> shardJobs = new ArrayList<JobDef>();
+            for (int i : shard.getValue()) {
+                shardJobs.add(jobDefs.get(i));
+            }
+
+            try {
+                scheduleQuartzJobs(shard.getKey(), shardJobs);
+
+            } catch (Exception ex) {
+                LOG.warn("Unable to schedule " + shardJobs.size() + " jobs at once, scheduled one by one", ex);
+
+                for (int i : shard.getValue()) {
+                    try {
+                        scheduleJob(jobDefs.get(i));
+
+                    } catch (AppException aex) {
+                        errors.set(i, aex);
+
+                    } catch (RuntimeException rex) {
+                        LOG.error("Unable to schedule job " + jobDefs.get(i), rex);
+                        errors.set(i, new AppException("schedule.job.error",
+                                Arrays.asList(jobDefs.get(i).getConfig().getId()), rex));
+                    }
+                }
+            }
+        }
+
+        return errors;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -141,8 +338,31 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         validate(conf);
 
         try {
-            Trigger trigger = this.buildTrigger(jobId, conf, null);
-            this.scheduler.rescheduleJob(trigger.getKey(), trigger);
+            // The job no longer has the scheduling it was registered with
+            this.jobConfigDao.updateDefHash(jobId, null);
+
+            if (jobRecurrenceDao != null && jobRecurrenceDao.find(jobId) != null) {
+                jobRecurrenceDao.persist(buildRecurrence(jobId, conf));
+
+            } else if (cronGroupDao != null && cronGroupDao.find(jobId) != null) {
+                if (conf.getStartAt() <= clock.millis()) {
+                    joinCronGroup(jobId, conf);
+
+                } else {
+                    // A job starting later has its own trigger
+                    JobDef jobDef = new JobDef();
+                    jobDef.setConfig(new JobConfig());
+                    jobDef.getConfig().setId(jobId);
+                    jobDef.setScheduling(conf);
+
+                    scheduleQuarzJob(schedulers.locate(jobId), jobDef, CronJob.class);
+                    leaveCronGroup(jobId);
+                }
+
+            } else {
+                Trigger trigger = this.buildTrigger(jobId, conf, null);
+                this.schedulers.locate(jobId).rescheduleJob(trigger.getKey(), trigger);
+            }
 
         } catch (Exception e) {
             LOG.error("Unable to re-schedule job " + jobId + " with configuration " + conf, e);
@@ -161,6 +381,12 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         try {
 
             res = unscheduleQuartzJob(jobId);
+            if (jobRecurrenceDao != null) {
+                res = jobRecurrenceDao.delete(jobId) || res;
+            }
+            if (cronGroupDao != null) {
+                res = leaveCronGroup(jobId) || res;
+            }
 
             this.jobConfigDao.delete(jobId);
             this.jobLockDao.delete(jobId);
@@ -224,11 +450,22 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
             JobLock lock = jobState.getLock();
 
             // Currently locked jobs should not be re-triggered
-            if (lock.isLocked() && !lock.isExpired()) {
+            if (lock.isLocked() && !lock.isExpired(clock.millis())) {
                 res = false;
 
             } else {
-                this.scheduler.triggerJob(this.buildJobKey(jobId));
+                // A CRON job of the table engine is fired by the next run of the wake-ups timer
+                boolean fired = (jobRecurrenceDao != null
+                        && jobRecurrenceDao.updateNextFireTime(jobId, clock.millis()));
+
+                if (!fired && cronGroupDao != null && cronGroupDao.find(jobId) != null) {
+                    fireOnce(jobId);
+                    fired = true;
+                }
+
+                if (!fired) {
+                    this.schedulers.locate(jobId).triggerJob(this.buildJobKey(jobId));
+                }
                 res = true;
             }
 
@@ -255,9 +492,20 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
             this.jobLockDao.deleteAll();
             this.jobConfigDao.deleteAll();
             this.jobWakeupDao.deleteAll();
+            if (this.wakeupDispatcher != null) {
+                this.wakeupDispatcher.clear();
+            }
+            if (this.jobRecurrenceDao != null) {
+                this.jobRecurrenceDao.deleteAll();
+            }
+            if (this.cronGroupDao != null) {
+                this.cronGroupDao.deleteAll();
+            }
 
             // Delete scheduling
-            this.scheduler.clear();
+            for (Scheduler scheduler : this.schedulers.getAll()) {
+                scheduler.clear();
+            }
 
         } catch (Exception ex) {
             LOG.error("Unable to clear jobs", ex);
@@ -267,12 +515,23 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
 
     // ----------------------------------------------- Private Methods ------------------------------------------------
 
+    /**
+     * Returns the identifier a job is registered with, {@code null} if it has none yet.
+     */
+    private String getJobId(JobDef jobDef) {
+
+        if (jobDef == null || jobDef.getConfig() == null || StringUtils.isEmpty(jobDef.getConfig().getId())) {
+            return null;
+        }
+        return jobDef.getConfig().getId();
+    }
+
     private void validate(JobConfig jobConfig) throws AppException {
 
         Validate.notNull(jobConfig);
 
         if (StringUtils.isEmpty(jobConfig.getId())) {
-            jobConfig.setId(UUID.randomUUID().toString());
+            jobConfig.setId(idGenerator.nextId());
         }
 
         if (StringUtils.isEmpty(jobConfig.getUrl())) {
@@ -301,6 +560,13 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
             } catch (ParseException e) {
                 throw new AppException("invalid.schedule.value", Arrays.asList(scheduling.getValue()));
             }
+
+            if (scheduling.getSplay() == null) {
+                scheduling.setSplay(cronSplay);
+
+            } else if (scheduling.getSplay() < 0) {
+                throw new AppException("invalid.splay.value", Arrays.asList(String.valueOf(scheduling.getSplay())));
+            }
         }
 
         if (scheduling.getType() == JobSchedulingType.WAKEUP) {
@@ -309,34 +575,239 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
 
             if (!NumberUtils.isDigits(scheduling.getValue()))
                 throw new AppException("invalid.schedule.value");
+
+            if (scheduling.getTolerance() != null && scheduling.getTolerance() < 0) {
+                throw new AppException("invalid.tolerance.value",
+                        Arrays.asList(String.valueOf(scheduling.getTolerance())));
+            }
         }
     }
 
-    private void scheduleQuarzJob(JobDef jobDef, Class<? extends Job> type) throws SchedulerException {
+    private void scheduleQuarzJob(Scheduler scheduler, JobDef jobDef, Class<? extends Job> type)
+            throws SchedulerException {
 
         JobDetail job = this.buildJob(jobDef.getConfig(), type);
         Trigger trigger = this.buildTrigger(jobDef.getConfig().getId(), jobDef.getScheduling(), job.getKey());
 
-        // Add the new jobs
-        // if (!this.scheduler.checkExists(job.getKey())) {
-        // TMP MIGRATION - Update each time to update Job.class
-        this.scheduler.addJob(job, true);
-        // }
+        // Add the new jobs, or replace them to update Job.class : an unchanged CRON job registered again does not get
+        // here
+        scheduler.addJob(job, true);
 
         // Add the new triggers or update existing ones
         try {
-            if (this.scheduler.checkExists(trigger.getKey())) {
-                this.scheduler.rescheduleJob(trigger.getKey(), trigger);
+            if (scheduler.checkExists(trigger.getKey())) {
+                scheduler.rescheduleJob(trigger.getKey(), trigger);
 
             } else {
-                this.scheduler.scheduleJob(trigger);
+                scheduler.scheduleJob(trigger);
             }
 
         } catch (ObjectAlreadyExistsException e) {
             LOG.info("Trigger already exists with key {}, try to replace it.", trigger.getKey());
 
             // To manage concurrent calls
-            this.scheduler.rescheduleJob(trigger.getKey(), trigger);
+            scheduler.rescheduleJob(trigger.getKey(), trigger);
+        }
+    }
+
+    /**
+     * Returns whether a job is scheduled with a Quartz job and trigger of its own.
+     */
+    private boolean hasOwnTrigger(JobScheduling conf) {
+
+        return conf.getType() == JobSchedulingType.CRON && jobRecurrenceDao == null
+                && (cronGroupDao == null || conf.getStartAt() > clock.millis());
+    }
+
+    /**
+     * Returns whether a CRON job has already been registered with the same definition, and the same engine.
+     */
+    private boolean isRegistered(JobDef jobDef) {
+
+        String jobId = jobDef.getConfig().getId();
+        Long stored = this.jobConfigDao.findDefHashes(Collections.singletonList(jobId)).get(jobId);
+
+        return stored != null && stored == defHash(jobDef);
+    }
+
+    /**
+     * Returns the hash of the definition of a CRON job, and of the way it is scheduled : a job registered again once
+     * the engine or the Quartz job class has changed is not considered as unchanged.
+     */
+    private long defHash(JobDef jobDef) {
+
+        JobConfig config = jobDef.getConfig();
+        JobScheduling conf = jobDef.getScheduling();
+
+        String engine = (jobRecurrenceDao != null) ? "table" : hasOwnTrigger(conf) ? CronJob.class.getName() : "group";
+        String def = Arrays.<Object> asList(engine, config.getId(), config.getUrl(), config.getTimeout(),
+                conf.getType(), conf.getValue(), conf.getStartAt(), conf.getSplay(), skipMisfires).toString();
+
+        return Hashing.murmur3_128().hashString(def, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Store the Quartz jobs and triggers of several CRON jobs with a single Quartz transaction, then their
+     * configurations with a single batch. The jobs registered again unchanged are skipped.
+     */
+    private void scheduleQuartzJobs(Scheduler scheduler, List<JobDef> jobDefs) throws SchedulerException {
+
+        Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new HashMap<JobDetail, Set<? extends Trigger>>();
+        List<JobConfig> configs = new ArrayList<JobConfig>();
+        List<Long> defHashes = new ArrayList<Long>();
+
+        List<String> jobIds = new ArrayList<String>();
+        for (JobDef jobDef : jobDefs) {
+            jobIds.add(jobDef.getConfig().getId());
+        }
+        Map<String, Long> registered = this.jobConfigDao.findDefHashes(jobIds);
+
+        for (JobDef jobDef : jobDefs) {
+
+            long defHash = defHash(jobDef);
+            if (Long.valueOf(defHash).equals(registered.get(jobDef.getConfig().getId()))) {
+                continue;
+            }
+
+            JobDetail job = this.buildJob(jobDef.getConfig(), CronJob.class);
+            Trigger trigger = this.buildTrigger(jobDef.getConfig().getId(), jobDef.getScheduling(), job.getKey());
+            triggersAndJobs.put(job, Collections.singleton(trigger));
+            configs.add(jobDef.getConfig());
+            defHashes.add(defHash);
+
+            if (cronGroupDao != null) {
+                leaveCronGroup(jobDef.getConfig().getId());
+            }
+        }
+
+        if (triggersAndJobs.isEmpty()) {
+            LOG.debug("{} jobs unchanged, registration skipped", jobDefs.size());
+            return;
+        }
+
+        scheduler.scheduleJobs(triggersAndJobs, true);
+
+        this.jobConfigDao.persistAll(configs, defHashes);
+    }
+
+    private JobRecurrence buildRecurrence(String jobId, JobScheduling conf) throws AppException {
+
+        long splay = (conf.getSplay() != null) ? conf.getSplay() : 0L;
+        Long next = RecurrenceHelper.nextFireTime(conf.getValue(), conf.getStartAt(),
+                RecurrenceHelper.splayOffset(jobId, splay), clock.millis());
+        if (next == null) {
+            throw new AppException("invalid.schedule.value", Arrays.asList(conf.getValue()));
+        }
+
+        JobRecurrence recurrence = new JobRecurrence();
+        recurrence.setId(jobId);
+        recurrence.setCron(conf.getValue());
+        recurrence.setStartAt(conf.getStartAt());
+        recurrence.setNextFireTime(next);
+        recurrence.setSplay(splay);
+
+        return recurrence;
+    }
+
+    /**
+     * Add a job to the group of its CRON expression, creating the Quartz job of the group if needed.
+     */
+    private void joinCronGroup(String jobId, JobScheduling conf) throws SchedulerException {
+
+        String cron = conf.getValue();
+        JobScheduling previous = cronGroupDao.find(jobId);
+        cronGroupDao.persist(jobId, cron, (conf.getSplay() != null) ? conf.getSplay() : 0L);
+
+        createCronGroup(cron);
+
+        // A job moved from the group of another expression
+        if (previous != null && !cron.equals(previous.getValue())) {
+            deleteEmptyCronGroup(previous.getValue());
+        }
+
+        // A job scheduled with its own trigger before joining the group, a read does not take the Quartz locks
+        Scheduler scheduler = schedulers.locate(jobId);
+        if (scheduler.checkExists(this.buildJobKey(jobId))) {
+            scheduler.deleteJob(this.buildJobKey(jobId));
+        }
+    }
+
+    /**
+     * Remove a job from its CRON group, deleting the Quartz job of the group once its last member is removed.
+     *
+     * @return true if the job was a member of a group.
+     */
+    private boolean leaveCronGroup(String jobId) throws SchedulerException {
+
+        JobScheduling member = cronGroupDao.find(jobId);
+        if (member == null) {
+            return false;
+        }
+
+        cronGroupDao.delete(jobId);
+        deleteEmptyCronGroup(member.getValue());
+        return true;
+    }
+
+    /**
+     * Create the Quartz job of the group of a CRON expression, if it does not exist.
+     */
+    private void createCronGroup(String cron) throws SchedulerException {
+
+        // Read on each join, the group may have been created or deleted by another node
+        String groupId = this.buildCronGroupId(cron);
+        Scheduler scheduler = schedulers.locate(groupId);
+        if (!scheduler.checkExists(this.buildJobKey(groupId))) {
+            LOG.info("Create CRON group {} : cron={}", groupId, cron);
+
+            JobDef groupDef = new JobDef();
+            groupDef.setConfig(new JobConfig());
+            groupDef.getConfig().setId(groupId);
+            groupDef.setScheduling(new JobScheduling());
+            groupDef.getScheduling().setType(JobSchedulingType.CRON);
+            groupDef.getScheduling().setValue(cron);
+
+            scheduleQuarzJob(scheduler, groupDef, CronGroupJob.class);
+        }
+    }
+
+    /**
+     * Delete the Quartz job of the group of a CRON expression, if the group has no member left.
+     */
+    private void deleteEmptyCronGroup(String cron) throws SchedulerException {
+
+        if (!cronGroupDao.findMembers(cron, "", 1).isEmpty()) {
+            return;
+        }
+
+        String groupId = this.buildCronGroupId(cron);
+        if (schedulers.locate(groupId).deleteJob(this.buildJobKey(groupId))) {
+            LOG.info("Delete CRON group {} : cron={}", groupId, cron);
+
+            // A job joining the group meanwhile may have found the Quartz job of the group before its deletion
+            if (!cronGroupDao.findMembers(cron, "", 1).isEmpty()) {
+                createCronGroup(cron);
+            }
+        }
+    }
+
+    private String buildCronGroupId(String cron) {
+        return "internal/cron-group/" + Hashing.murmur3_128().hashString(cron, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fire a member of a CRON group once, with a Quartz job removed once executed.
+     */
+    private void fireOnce(String jobId) throws SchedulerException {
+
+        JobDetail job = JobBuilder.newJob(CronJob.class).withIdentity(this.buildJobKey(jobId)).build();
+        Trigger trigger = TriggerBuilder.newTrigger().forJob(job).startNow().build();
+
+        try {
+            this.schedulers.shardOf(jobId).scheduleJob(job, trigger);
+
+        } catch (ObjectAlreadyExistsException e) {
+            LOG.info("Job {} is already being triggered", jobId);
         }
     }
 
@@ -347,7 +818,7 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
      */
     private boolean unscheduleQuartzJob(String jobId) throws SchedulerException {
 
-        return this.scheduler.deleteJob(this.buildJobKey(jobId));
+        return this.schedulers.locate(jobId).deleteJob(this.buildJobKey(jobId));
     }
 
     private TriggerKey buildTiggerKey(String confId) {
@@ -360,9 +831,11 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
         TriggerKey key = this.buildTiggerKey(confId);
         TriggerBuilder trigger = TriggerBuilder.newTrigger().withIdentity(key);
 
-        // Set CRON value
+        // Set CRON value, the fires missed while the trigger was paused by a lock or the scheduler stopped are fired
+        // once at once, or skipped if configured so
         if (StringUtils.isNotEmpty(conf.getValue())) {
-            trigger.withSchedule(CronScheduleBuilder.cronSchedule(conf.getValue()));
+            CronScheduleBuilder schedule = CronScheduleBuilder.cronSchedule(conf.getValue());
+            trigger.withSchedule(skipMisfires ? schedule.withMisfireHandlingInstructionDoNothing() : schedule);
         }
 
         // Set DATE value
@@ -370,6 +843,11 @@ public class JobSchedulingServiceImpl implements JobSchedulingService {
             trigger.startAt(new Date(conf.getStartAt()));
         }
 
+        // Set SPLAY value, read by the job when the trigger fires
+        if (conf.getSplay() != null) {
+            trigger.usingJobData(CronJob.SPLAY, conf.getSplay());
+        }
+
         if (job != null) {
             trigger.forJob(job);
         }
@@ -1,7 +1,9 @@
 package net.airvantage.sched.services.impl;
 
 import java.sql.SQLException;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -15,8 +17,11 @@ import net.airvantage.sched.model.JobConfig;
 import net.airvantage.sched.model.JobLock;
 import net.airvantage.sched.model.JobScheduling;
 import net.airvantage.sched.model.JobState;
+import net.airvantage.sched.quartz.SchedulerShards;
 import net.airvantage.sched.services.JobStateService;
 
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +32,12 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The state of a job is the current status built from the job configuration and scheduling configuration.
  * <p>
+ *
+ * <p>
+ * The Quartz triggers of a job are paused while it is locked : a locked job does not fire only to be vetoed. The
+ * expired locks are released in batches by the {@link net.airvantage.sched.quartz.job.LockExpiryJob}, never when a job
+ * fires.
+ * </p>
  */
 public class JobStateServiceImpl implements JobStateService {
 
@@ -35,14 +46,28 @@ public class JobStateServiceImpl implements JobStateService {
     private JobLockDao jobLockDao;
     private JobConfigDao jobConfigDao;
     private JobSchedulingDao jobSchedulingDao;
+    private SchedulerShards schedulers;
+    private Clock clock;
 
     // ------------------------------------------------ Constructors --------------------------------------------------
 
-    public JobStateServiceImpl(JobConfigDao jobConfigDao, JobLockDao jobLockDao, JobSchedulingDao jobSchedulingDao) {
+    public JobStateServiceImpl(JobConfigDao jobConfigDao, JobLockDao jobLockDao, JobSchedulingDao jobSchedulingDao,
+            Clock clock) {
+        this(jobConfigDao, jobLockDao, jobSchedulingDao, null, clock);
+    }
+
+    /**
+     * @param schedulers the schedulers of the triggers paused while their job is locked, {@code null} to only veto
+     *            their fires.
+     */
+    public JobStateServiceImpl(JobConfigDao jobConfigDao, JobLockDao jobLockDao, JobSchedulingDao jobSchedulingDao,
+            SchedulerShards schedulers, Clock clock) {
 
         this.jobLockDao = jobLockDao;
         this.jobConfigDao = jobConfigDao;
         this.jobSchedulingDao = jobSchedulingDao;
+        this.schedulers = schedulers;
+        this.clock = clock;
     }
 
     // ------------------------------------------- JobStateService Methods --------------------------------------------
@@ -142,9 +167,11 @@ public class JobStateServiceImpl implements JobStateService {
         try {
             JobState jobState = find(id);
             if (jobState != null) {
-                long expiresAt = System.currentTimeMillis() + jobState.getConfig().getTimeout();
+                long expiresAt = clock.millis() + jobState.getConfig().getTimeout();
                 LOG.debug("Will save expiration date" + expiresAt);
-                this.jobLockDao.add(id, expiresAt);
+                this.jobLockDao.add(id, clock.millis(), expiresAt);
+
+                this.pauseTriggers(id);
             }
 
         } catch (SQLException e) {
@@ -159,19 +186,103 @@ public class JobStateServiceImpl implements JobStateService {
     @Override
     public void unlockJob(String id) throws AppException {
 
+        Long lockedAt = null;
         try {
             JobState jobState = find(id);
             if (jobState == null) {
                 throw AppExceptions.jobNotFound(id);
+            }
 
-            } else {
-                this.jobLockDao.delete(id);
+            lockedAt = (jobState.getLock() != null) ? jobState.getLock().getLockedAt() : null;
+            if (this.jobLockDao.delete(id)) {
+
+                // Only a locked job has its triggers paused, an acknowledged run does not lock the job
+                this.resumeTriggers(id);
             }
 
+        } catch (SchedulerException e) {
+            LOG.error("Unable to resume the triggers of job " + id, e);
+            this.restoreExpiredLock(id, lockedAt);
+            throw AppExceptions.serverError(e);
+
         } catch (SQLException e) {
             LOG.error(String.format("Unable to lock job state with id", id), e);
             throw AppExceptions.serverError(e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int releaseExpiredLocks(long now, int limit) throws AppException {
+
+        List<String> released = Collections.emptyList();
+        try {
+            Map<String, Long> expired = this.jobLockDao.findExpired(now, limit);
+            released = this.jobLockDao.deleteExpired(new ArrayList<>(expired.keySet()), now);
+            for (String id : released) {
+                try {
+                    this.resumeTriggers(id);
+
+                } catch (SchedulerException e) {
+                    LOG.error("Unable to resume the triggers of job " + id, e);
+                    this.restoreExpiredLock(id, expired.get(id));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Unable to release the expired locks", e);
+            throw AppExceptions.serverError(e);
+        }
+
+        return released.size();
+    }
+
+    // ----------------------------------------------- Private Methods ------------------------------------------------
+
+    /**
+     * Pause the triggers of a job scheduled with Quartz, the lock still vetoes its fires if this fails.
+     */
+    private void pauseTriggers(String id) {
+
+        if (schedulers != null) {
+            try {
+                JobKey key = new JobKey(id);
+                Scheduler scheduler = schedulers.locate(id);
+                if (scheduler.checkExists(key)) {
+                    scheduler.pauseJob(key);
+                }
+
+            } catch (SchedulerException e) {
+                LOG.warn("Unable to pause the triggers of job " + id, e);
+            }
+        }
+    }
+
+    private void resumeTriggers(String id) throws SchedulerException {
+
+        if (schedulers != null) {
+            JobKey key = new JobKey(id);
+            Scheduler scheduler = schedulers.locate(id);
+            if (scheduler.checkExists(key)) {
+                scheduler.resumeJob(key);
+            }
+        }
+    }
+
+    /**
+     * Put back an expired lock on a job whose triggers could not be resumed : it does not veto the fires of the job,
+     * and the lock expiry timer tries again to resume its triggers. The lock keeps its original date.
+     */
+    private void restoreExpiredLock(String id, Long lockedAt) {
+
+        try {
+            this.jobLockDao.restore(id, lockedAt, clock.millis());
+
+        } catch (SQLException e) {
+            LOG.error("Unable to restore the lock of job " + id + ", its triggers stay paused", e);
+        }
+    }
+
 }
@@ -0,0 +1,39 @@
+package net.airvantage.sched.services.tech;
+
+import java.net.URISyntaxException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.airvantage.sched.model.Endpoint;
+
+/**
+ * The parsed callback URLs, shared by all the jobs of the node.
+ *
+ * <p>
+ * The {@code maxSize} most recently used URLs are kept, the others are parsed again when used.
+ * </p>
+ */
+public class EndpointCache {
+
+    private final Cache<String, Endpoint> endpoints;
+
+    public EndpointCache(int maxSize) {
+        this.endpoints = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public Endpoint get(String url) throws URISyntaxException {
+
+        Endpoint endpoint = endpoints.getIfPresent(url);
+        if (endpoint == null) {
+            endpoint = Endpoint.parse(url);
+            endpoints.put(url, endpoint);
+        }
+        return endpoint;
+    }
+
+    public long size() {
+        return endpoints.size();
+    }
+
+}
@@ -0,0 +1,144 @@
+package net.airvantage.sched.services.tech;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.dao.CronGroupDao;
+
+/**
+ * Fires the members of the CRON groups in the background, after their splay offset : a slow callback only delays its
+ * own job, not the whole group.
+ *
+ * <p>
+ * Each fire is stored in the {@code sched_cron_group_members} table before being queued, and claimed before being
+ * executed : the fires queued by a node which stopped are recovered by the other nodes once late, and each fire is
+ * executed once.
+ * </p>
+ *
+ * <p>
+ * A job is queued at most once : a fire is skipped while the previous one of the same job is still queued or running.
+ * </p>
+ */
+public class FanOutDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FanOutDispatcher.class);
+
+    /**
+     * Delay in ms after which a fire not claimed yet is recovered.
+     */
+    static final long RECOVERY_DELAY = 60_000L;
+
+    private static final long RECOVERY_PERIOD = 10_000L;
+    private static final int RECOVERY_LIMIT = 1_000;
+
+    private final RecurrenceHelper recurrenceHelper;
+    private final CronGroupDao cronGroupDao;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public FanOutDispatcher(RecurrenceHelper recurrenceHelper, CronGroupDao cronGroupDao, int threadPoolSize,
+            Clock clock) {
+
+        this.recurrenceHelper = recurrenceHelper;
+        this.cronGroupDao = cronGroupDao;
+        this.clock = clock;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threadPoolSize, runnable -> {
+            Thread thread = new Thread(runnable, "cron-fan-out-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start recovering periodically the late fires of all the nodes.
+     */
+    public void start() {
+
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                recover();
+            } catch (Exception ex) {
+                LOG.error("Unable to recover the CRON group fires", ex);
+            }
+        }, RECOVERY_PERIOD, RECOVERY_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a stored fire of the given job, executed at {@code fireTime} once claimed.
+     *
+     * @return false if the job is still queued or running from a previous fire.
+     */
+    public boolean dispatch(String jobId, long fireTime) {
+
+        if (!pending.add(jobId)) {
+            skipped.incrementAndGet();
+            LOG.debug("CRON job {} still running from a previous fire, skipped", jobId);
+            return false;
+        }
+
+        executor.schedule(() -> {
+            try {
+                if (cronGroupDao.claimFire(jobId, fireTime)) {
+                    recurrenceHelper.fire(jobId);
+                }
+            } catch (Exception ex) {
+                LOG.error("Unable to fire CRON job " + jobId, ex);
+            } finally {
+                pending.remove(jobId);
+            }
+        }, Math.max(0L, fireTime - clock.millis()), TimeUnit.MILLISECONDS);
+
+        return true;
+    }
+
+    /**
+     * Queue the stored fires not claimed {@link #RECOVERY_DELAY} ms after their time.
+     *
+     * @return the number of fires queued.
+     */
+    public int recover() {
+
+        Map<String, Long> late = cronGroupDao.findFires(clock.millis() - RECOVERY_DELAY, RECOVERY_LIMIT);
+
+        int count = 0;
+        for (Map.Entry<String, Long> fire : late.entrySet()) {
+            if (!pending.contains(fire.getKey()) && dispatch(fire.getKey(), fire.getValue())) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            LOG.info("{} late CRON group fires recovered", count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of jobs queued or running.
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of fires skipped since the start, the previous fire of their job being still queued or
+     * running.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+}
@@ -0,0 +1,90 @@
+package net.airvantage.sched.services.tech;
+
+import java.time.Clock;
+
+/**
+ * Generates compact, time-ordered job identifiers, unique across the cluster nodes.
+ *
+ * <p>
+ * An identifier is a 64 bits number made of the time (41 bits of milliseconds since 2015-01-01), the node id (10 bits)
+ * and a sequence within the millisecond (12 bits), written with 13 Crockford base32 characters : the identifiers of a
+ * node sort in creation order, and are inserted next to each other in the tables indexes.
+ * </p>
+ *
+ * <p>
+ * The identifiers stay monotonic if the clock goes backwards or more than 4096 are generated in a millisecond : the
+ * generator then borrows the next milliseconds instead of waiting.
+ * </p>
+ */
+public class IdGenerator {
+
+    public static final int MAX_NODE = (1 << 10) - 1;
+
+    private static final long EPOCH = 1420070400000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+
+    private final Clock clock;
+    private final long node;
+
+    private long lastTime = -1;
+    private long sequence;
+
+    /**
+     * @param node the node id, from 0 to {@link #MAX_NODE}, different on each node of the cluster.
+     */
+    public IdGenerator(int node, Clock clock) {
+
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE + " : " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a new identifier.
+     */
+    public String nextId() {
+        return format(next());
+    }
+
+    /**
+     * Returns a new identifier, as a number.
+     */
+    public synchronized long next() {
+
+        long time = clock.millis() - EPOCH;
+        if (time > lastTime) {
+            lastTime = time;
+            sequence = 0;
+
+        } else if (sequence < MAX_SEQUENCE) {
+            sequence++;
+
+        } else {
+            lastTime++;
+            sequence = 0;
+        }
+
+        return (lastTime << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Returns the fixed-width base32 form of an identifier, which sorts as the number.
+     */
+    public static String format(long id) {
+
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+}
@@ -4,15 +4,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
 import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.time.Clock;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import net.airvantage.sched.app.SchedSecretFilter;
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.WorkloadCapture;
 import net.airvantage.sched.dao.JobConfigDao;
 import net.airvantage.sched.model.JobConfig;
 import net.airvantage.sched.model.JobWakeup;
@@ -31,16 +33,23 @@ public class JobExecutionHelper {
     private static final Logger LOG = LoggerFactory.getLogger(JobExecutionHelper.class);
 
     private RetryPolicyHelper retryPolicyHelper;
+    private WorkloadCapture workloadCapture;
     private JobStateService jobStateService;
     private RemoteServiceConnector connector;
     private JobConfigDao jobConfigDao;
     private JsonMapper jsonMapper;
     private String schedSecret;
+    private EndpointCache endpointCache;
+    private Clock clock;
+
+    /** The number of CRON callbacks sent, by second of the minute. */
+    private final AtomicLongArray cronFiresBySecond = new AtomicLongArray(60);
 
     // ------------------------------------------------- Constructors -------------------------------------------------
 
     public JobExecutionHelper(JobStateService jobStateService, RemoteServiceConnector connector, String schedSecret,
-            JsonMapper jsonMapper, JobConfigDao jobConfigDao, RetryPolicyHelper retryPolicyHelper) {
+            JsonMapper jsonMapper, JobConfigDao jobConfigDao, RetryPolicyHelper retryPolicyHelper,
+            WorkloadCapture workloadCapture, EndpointCache endpointCache, Clock clock) {
 
         this.connector = connector;
         this.jsonMapper = jsonMapper;
@@ -48,6 +57,9 @@ public class JobExecutionHelper {
         this.jobConfigDao = jobConfigDao;
         this.jobStateService = jobStateService;
         this.retryPolicyHelper = retryPolicyHelper;
+        this.workloadCapture = workloadCapture;
+        this.endpointCache = endpointCache;
+        this.clock = clock;
     }
 
     // ------------------------------------------------- Public Methods -----------------------------------------------
@@ -64,6 +76,7 @@ public class JobExecutionHelper {
             if (config != null) {
 
                 String url = config.getUrl();
+                cronFiresBySecond.incrementAndGet((int) ((clock.millis() / 1000) % 60));
 
                 // Send a request to the job's callback
                 result = this.doHttpPost(jobId, url);
@@ -110,18 +123,32 @@ public class JobExecutionHelper {
         return result;
     }
 
+    /**
+     * Returns the number of CRON callbacks sent since startup, by second of the minute : the distribution of the CRON
+     * fire times over the minute.
+     */
+    public long[] getCronFiresBySecond() {
+
+        long[] res = new long[cronFiresBySecond.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = cronFiresBySecond.get(i);
+        }
+        return res;
+    }
+
     // ------------------------------------------------- Private Methods ----------------------------------------------
 
     private JobResult doHttpPost(String jobId, String url) {
         LOG.debug("doHttpPost : jobId={}, url={}", jobId, url);
 
+        long start = System.nanoTime();
         JobResult result = null;
         try {
 
             Map<String, String> headers = new HashMap<>();
             headers.put(SchedSecretFilter.SCHED_SECRET_HEADER_NAME, schedSecret);
 
-            CloseableHttpResponse response = this.connector.post(new URI(url), headers);
+            CloseableHttpResponse response = this.connector.post(endpointCache.get(url), headers);
             if (response != null) {
 
                 try {
@@ -145,6 +172,8 @@ public class JobExecutionHelper {
             result = this.requestFailure(jobId);
         }
 
+        workloadCapture.callback(result, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
         return result;
     }
 
@@ -0,0 +1,145 @@
+package net.airvantage.sched.services.tech;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Clock;
+import java.util.Date;
+
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobRecurrenceDao;
+import net.airvantage.sched.model.JobLock;
+import net.airvantage.sched.model.JobRecurrence;
+import net.airvantage.sched.quartz.job.JobResult;
+
+/**
+ * Executes the CRON jobs not fired by a trigger of their own : the jobs of the table recurrence engine, for which it
+ * computes the next fire time, and the members of the CRON groups.
+ *
+ * <p>
+ * The lock policy is the one of the Quartz CRON jobs : a job is not executed while its previous run has not been
+ * acknowledged, and a missed fire time is fired once, the next one being computed from the current time.
+ * </p>
+ *
+ * <p>
+ * A job with a splay window fires after each fire time of its expression, by an offset within the window given by a
+ * hash of its identifier : the jobs of a same expression are spread evenly over the window, each one keeping its
+ * period.
+ * </p>
+ */
+public class RecurrenceHelper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecurrenceHelper.class);
+
+    private JobExecutionHelper jobExecutionHelper;
+    private JobLockDao jobLockDao;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private Clock clock;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public RecurrenceHelper(JobExecutionHelper jobExecutionHelper, JobLockDao jobLockDao,
+            JobRecurrenceDao jobRecurrenceDao, Clock clock) {
+
+        this.jobExecutionHelper = jobExecutionHelper;
+        this.jobLockDao = jobLockDao;
+        this.jobRecurrenceDao = jobRecurrenceDao;
+        this.clock = clock;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Returns the first fire time of a CRON expression after the given date, and not before {@code startAt} : the one
+     * of an equivalent Quartz trigger. {@code null} if the expression has no more fire time.
+     */
+    public static Long nextFireTime(String cron, long startAt, long after) {
+
+        try {
+            // Quartz fires a trigger starting exactly on a fire time of the expression
+            Date next = new CronExpression(cron).getNextValidTimeAfter(new Date(Math.max(after, startAt - 1000L)));
+            return (next != null) ? next.getTime() : null;
+
+        } catch (ParseException ex) {
+            throw new IllegalArgumentException("Invalid CRON expression " + cron, ex);
+        }
+    }
+
+    /**
+     * Returns the first fire time of a CRON expression delayed by {@code offset}, after the given date.
+     */
+    public static Long nextFireTime(String cron, long startAt, long offset, long after) {
+
+        Long next = nextFireTime(cron, startAt, after - offset);
+        return (next != null) ? next + offset : null;
+    }
+
+    /**
+     * Returns the offset in ms of the fire times of a job, within its splay window : stable for a job, and evenly
+     * distributed over the window.
+     */
+    public static long splayOffset(String jobId, long splay) {
+
+        if (splay <= 0) {
+            return 0L;
+        }
+        return Math.floorMod(Hashing.murmur3_128().hashString(jobId, StandardCharsets.UTF_8).asLong(), splay);
+    }
+
+    /**
+     * Execute a due CRON job claimed until {@code leaseUntil}, then schedule its next fire.
+     *
+     * @return the result of the callback, {@code null} if the job was not executed.
+     */
+    public JobResult execute(JobRecurrence recurrence, long leaseUntil) {
+
+        String jobId = recurrence.getId();
+        JobResult result = fire(jobId);
+
+        Long next = nextFireTime(recurrence.getCron(), recurrence.getStartAt(),
+                splayOffset(jobId, recurrence.getSplay()), clock.millis());
+        if (next != null) {
+            jobRecurrenceDao.updateNextFireTime(jobId, leaseUntil, next);
+
+        } else {
+            LOG.info("CRON job {} has no more fire time", jobId);
+            jobRecurrenceDao.delete(jobId);
+        }
+
+        return result;
+    }
+
+    /**
+     * Execute a CRON job, unless it is locked.
+     *
+     * @return the result of the callback, {@code null} if the job was not executed.
+     */
+    public JobResult fire(String jobId) {
+
+        JobResult result = null;
+        try {
+
+            // Do not execute a job if the remote client has not acknowledged the previous run
+            JobLock lock = jobLockDao.find(jobId);
+            if (lock.isLocked() && !lock.isExpired(clock.millis())) {
+                LOG.debug("CRON job {} is locked, fire skipped", jobId);
+
+            } else {
+                // An acknowledged run does not lock the job, there is nothing left to do on acknowledgment. An
+                // expired lock is released by the lock expiry timer, or replaced if the job is locked again.
+                result = jobExecutionHelper.execute(jobId);
+            }
+
+        } catch (Exception ex) {
+            LOG.error("Unable to execute CRON job " + jobId, ex);
+        }
+
+        return result;
+    }
+
+}
@@ -2,7 +2,6 @@ package net.airvantage.sched.services.tech;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URI;
 import java.util.Map;
 
 import org.apache.http.client.config.RequestConfig;
@@ -12,6 +11,8 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.airvantage.sched.model.Endpoint;
+
 /**
  * A component to send HTTP requests. A retry logic is applied to manage possible connection errors.
  */
@@ -41,7 +42,7 @@ public class RemoteServiceConnector {
     /**
      * Send a POST HTTP request to the given service synchronously.
      */
-    public CloseableHttpResponse post(URI service, Map<String, String> headers) throws IOException {
+    public CloseableHttpResponse post(Endpoint service, Map<String, String> headers) throws IOException {
 
         int status = -1;
         CloseableHttpResponse response = null;
@@ -67,7 +68,7 @@ public class RemoteServiceConnector {
 
                 // Send the request
                 HttpPost request = this.buildRequest(service, headers);
-                response = this.client.execute(request);
+                response = this.client.execute(service.getHost(), request);
                 status = response.getStatusLine().getStatusCode();
                 ex = null;
 
@@ -90,7 +91,7 @@ public class RemoteServiceConnector {
                 }
 
             } catch (IOException ioex) {
-                LOG.warn(String.format("HTTP post error - %s", service.toASCIIString()), ioex);
+                LOG.warn(String.format("HTTP post error - %s", service.getUrl()), ioex);
                 retry = true;
                 ex = ioex;
             }
@@ -100,7 +101,7 @@ public class RemoteServiceConnector {
         // Log error message if the last request failed.
         if (status != HttpURLConnection.HTTP_OK) {
             String m = String.format("HTTP post to %s failed after %d retries, returned HTTP code %s",
-                    service.toASCIIString(), retries - 1, status);
+                    service.getUrl(), retries - 1, status);
 
             if (ex != null) {
                 LOG.error(m, ex);
@@ -115,9 +116,9 @@ public class RemoteServiceConnector {
 
     // ------------------------------------------------ Private Methods -----------------------------------------------
 
-    private HttpPost buildRequest(URI url, Map<String, String> headers) {
+    private HttpPost buildRequest(Endpoint service, Map<String, String> headers) {
 
-        HttpPost request = new HttpPost(url);
+        HttpPost request = new HttpPost(service.getUri());
         if (headers != null) {
             for (Map.Entry<String, String> header : headers.entrySet()) {
                 request.setHeader(header.getKey(), header.getValue());
@@ -2,6 +2,8 @@ package net.airvantage.sched.services.tech;
 
 import static net.airvantage.sched.quartz.job.JobResult.CallbackStatus.SUCCESS;
 
+import java.time.Clock;
+
 import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,14 +31,16 @@ public class RetryPolicyHelper {
     private JobWakeupDao jobWakeupDao;
     private JobStateService jobStateService;
     private JobSchedulingService jobSchedulingService;
+    private Clock clock;
 
     // ----------------------------------------------- Constructors ---------------------------------------------------
 
     public RetryPolicyHelper(JobStateService jobStateService, JobSchedulingService jobSchedulingService,
-            JobWakeupDao jobWakeupDao) {
+            JobWakeupDao jobWakeupDao, Clock clock) {
         this.jobWakeupDao = jobWakeupDao;
         this.jobStateService = jobStateService;
         this.jobSchedulingService = jobSchedulingService;
+        this.clock = clock;
     }
 
     // ----------------------------------------------- Public Methods -------------------------------------------------
@@ -84,7 +88,10 @@ public class RetryPolicyHelper {
             int retryCount = wakeup.getRetryCount() + 1;
             wakeup.setRetryCount(retryCount);
 
-            long now = System.currentTimeMillis();
+            // A retry fires on time
+            wakeup.setDeadline(null);
+
+            long now = clock.millis();
             if (requestedRetryDate > now) {
                 // A retry date is specified
                 long wakeupTime = Math.max(requestedRetryDate, roundSecond(now + computeRetryDelay(retryCount)));
@@ -0,0 +1,111 @@
+package net.airvantage.sched.services.tech;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock whose time can be driven manually and/or run faster than the real time.
+ * 
+ * <p>
+ * The simulated time is {@code start + elapsed real time * speed + manual advances}. A speed of 0 gives a frozen clock
+ * only moved by {@link #advance(Duration)}, which makes the retry and backoff sequences fully deterministic.
+ * </p>
+ */
+public class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+
+    // Simulated time at the last re-basing, and real time (nanos) of this re-basing
+    private long baseMillis;
+    private long baseNanos;
+    private double speed;
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    /**
+     * A frozen clock starting at the given date.
+     */
+    public SimulatedClock(long startMillis) {
+        this(startMillis, 0);
+    }
+
+    public SimulatedClock(long startMillis, double speed) {
+        this(startMillis, speed, ZoneOffset.UTC);
+    }
+
+    private SimulatedClock(long startMillis, double speed, ZoneId zone) {
+
+        this.zone = zone;
+        this.baseMillis = startMillis;
+        this.baseNanos = System.nanoTime();
+        this.speed = speed;
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    /**
+     * Move the simulated time forward.
+     */
+    public synchronized void advance(Duration duration) {
+        rebase();
+        baseMillis += duration.toMillis();
+    }
+
+    /**
+     * Set the simulated time, which may be in the past of the current simulated time.
+     */
+    public synchronized void set(long millis) {
+        rebase();
+        baseMillis = millis;
+    }
+
+    /**
+     * Change the number of simulated milliseconds elapsing for each real millisecond.
+     */
+    public synchronized void setSpeed(double speed) {
+        rebase();
+        this.speed = speed;
+    }
+
+    public synchronized double getSpeed() {
+        return speed;
+    }
+
+    // ------------------------------------------------- Clock Methods ------------------------------------------------
+
+    @Override
+    public synchronized long millis() {
+        return baseMillis + (long) ((System.nanoTime() - baseNanos) / 1_000_000.0 * speed);
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * The returned clock has its own time line, starting at the current time of this one.
+     */
+    @Override
+    public synchronized Clock withZone(ZoneId zone) {
+        return new SimulatedClock(millis(), speed, zone);
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private void rebase() {
+
+        long now = System.nanoTime();
+        baseMillis += (long) ((now - baseNanos) / 1_000_000.0 * speed);
+        baseNanos = now;
+    }
+
+}
@@ -0,0 +1,113 @@
+package net.airvantage.sched.services.tech;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.airvantage.sched.dao.JobWakeupDao;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * Fires the wake-ups due within the polling window of the wake-ups timer on the node receiving them, instead of
+ * waiting for the next run of the timer and reading them back.
+ *
+ * <p>
+ * A dispatched wake-up is persisted already claimed, with a single write : it is not found by the wake-ups timer while
+ * queued or running, and is fired again after the claim lease if the node stops before completing it. It is claimed
+ * again before being fired : a wake-up registered again or deleted while queued is not fired, the new registration
+ * being left as it is.
+ * </p>
+ */
+public class WakeupDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WakeupDispatcher.class);
+
+    /** The number of queued wake-ups above which the next ones are left to the wake-ups timer. */
+    private static final int MAX_QUEUED = 10_000;
+
+    private final Supplier<JobExecutionHelper> jobExecutionHelper;
+    private final JobWakeupDao jobWakeupDao;
+    private final long window;
+    private final long claimLease;
+    private final Clock clock;
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @param jobExecutionHelper resolved on the first dispatch, as it depends on the scheduling service using this
+     *            dispatcher.
+     * @param window the delay in ms after now within which a wake-up is dispatched.
+     */
+    public WakeupDispatcher(Supplier<JobExecutionHelper> jobExecutionHelper, JobWakeupDao jobWakeupDao,
+            int threadPoolSize, long window, long claimLease, Clock clock) {
+
+        this.jobExecutionHelper = jobExecutionHelper;
+        this.jobWakeupDao = jobWakeupDao;
+        this.window = window;
+        this.claimLease = claimLease;
+        this.clock = clock;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threadPoolSize, runnable -> {
+            Thread thread = new Thread(runnable, "wakeup-dispatch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Persist a wake-up claimed, and queue it to be fired at its time, if due within the window.
+     *
+     * @return false if the wake-up is due later, or if the queue is full : it has to be persisted as usual.
+     */
+    public boolean dispatch(JobWakeup wakeup) {
+
+        long now = clock.millis();
+        if (wakeup.getWakeupTime() > now + window || executor.getQueue().size() >= MAX_QUEUED) {
+            return false;
+        }
+
+        JobWakeup claimed = new JobWakeup();
+        claimed.setId(wakeup.getId());
+        claimed.setCallback(wakeup.getCallback());
+        claimed.setRetryCount(wakeup.getRetryCount());
+        claimed.setDeadline(wakeup.getDeadline());
+        claimed.setWakeupTime(now + claimLease);
+        jobWakeupDao.persist(claimed);
+
+        executor.schedule(() -> {
+            try {
+                if (jobWakeupDao.claim(Collections.singletonList(claimed), clock.millis() + claimLease).isEmpty()) {
+                    LOG.debug("WAKEUP job {} changed while queued, fire skipped", wakeup.getId());
+                    return;
+                }
+                jobExecutionHelper.get().execute(wakeup);
+
+            } catch (Exception ex) {
+                LOG.error("Unable to execute WAKEUP job " + wakeup.getId(), ex);
+            }
+        }, Math.max(0L, wakeup.getWakeupTime() - now), TimeUnit.MILLISECONDS);
+
+        return true;
+    }
+
+    /**
+     * Drop the queued wake-ups, e.g. once all the wake-ups have been deleted.
+     */
+    public void clear() {
+        executor.getQueue().clear();
+    }
+
+    /**
+     * Returns the number of wake-ups queued.
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+}
@@ -0,0 +1,84 @@
+package net.airvantage.sched.services.tech;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * Levels the number of wake-ups dispatched per second by the wake-ups timer of this node against a target rate, with
+ * the deadline of the flexible wake-ups.
+ *
+ * <p>
+ * The strict wake-ups (without deadline, or whose deadline is reached) are always dispatched, and dispatched first.
+ * The flexible wake-ups are then dispatched by earliest deadline while the wake-ups dispatched within the current
+ * second are below the target rate, the others being moved to the next second, to be fired by a following run of
+ * the timer. The target rate is a rate per node.
+ * </p>
+ */
+public class WakeupLeveler {
+
+    private static final Comparator<JobWakeup> BY_DEADLINE = Comparator.comparing(JobWakeup::getDeadline);
+
+    private final int targetRate;
+    private final Clock clock;
+
+    private long second = Long.MIN_VALUE;
+    private int dispatched;
+
+    /**
+     * @param targetRate the wake-ups per second above which the flexible wake-ups are moved later.
+     */
+    public WakeupLeveler(int targetRate, Clock clock) {
+        this.targetRate = targetRate;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the due wake-ups to dispatch now, the strict ones first, and adds the flexible ones moved to the next
+     * second to {@code postponed}, to be persisted with their new time.
+     */
+    public synchronized List<JobWakeup> level(List<JobWakeup> due, List<JobWakeup> postponed) {
+
+        long now = clock.millis();
+        long current = Math.floorDiv(now, 1000L);
+        if (current != second) {
+            second = current;
+            dispatched = 0;
+        }
+        long next = (current + 1) * 1000L;
+
+        List<JobWakeup> res = new ArrayList<>();
+        List<JobWakeup> flexible = new ArrayList<>();
+        for (JobWakeup wakeup : due) {
+            if (wakeup.getDeadline() == null || wakeup.getDeadline() < next) {
+                res.add(wakeup);
+            } else {
+                flexible.add(wakeup);
+            }
+        }
+        dispatched += res.size();
+
+        flexible.sort(BY_DEADLINE);
+        for (JobWakeup wakeup : flexible) {
+            if (dispatched < targetRate) {
+                res.add(wakeup);
+                dispatched++;
+            } else {
+                wakeup.setWakeupTime(next);
+                postponed.add(wakeup);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of wake-ups dispatched within the current second.
+     */
+    public synchronized int getDispatched() {
+        return (Math.floorDiv(clock.millis(), 1000L) == second) ? dispatched : 0;
+    }
+
+}
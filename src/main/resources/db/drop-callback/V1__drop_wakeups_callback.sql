@@ -0,0 +1,6 @@
+-- Drop the callback column kept for the nodes of the previous version, once all the nodes are upgraded
+
+
+ALTER TABLE sched_job_wakeups DROP COLUMN callback;
+
+commit;
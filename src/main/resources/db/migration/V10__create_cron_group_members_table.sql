@@ -0,0 +1,11 @@
+-- Add the CRON jobs fired by the shared trigger of their CRON expression
+
+
+CREATE TABLE IF NOT EXISTS sched_cron_group_members (
+    job_id VARCHAR(255) PRIMARY KEY,
+    cron_expr VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX IDX_SCHED_CRON_GROUP_MEMBERS ON sched_cron_group_members(cron_expr, job_id);
+
+commit;
@@ -0,0 +1,8 @@
+-- Add the window the fire times of the CRON jobs are spread over
+
+
+ALTER TABLE sched_cron_jobs ADD COLUMN splay_ms BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE sched_cron_group_members ADD COLUMN splay_ms BIGINT NOT NULL DEFAULT 0;
+
+commit;
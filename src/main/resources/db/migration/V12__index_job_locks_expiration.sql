@@ -0,0 +1,8 @@
+-- Index the expiration date of the locks, released by the lock expiry timer, and add their creation date
+
+
+ALTER TABLE sched_job_locks ADD COLUMN locked_at TIMESTAMP NULL;
+
+CREATE INDEX IDX_SCHED_JOB_LOCKS_EXPIRES_AT ON sched_job_locks(expires_at);
+
+commit;
@@ -0,0 +1,6 @@
+-- Add the hash of the definition a CRON job was registered with, to skip the registrations of an unchanged job
+
+
+ALTER TABLE sched_job_configs ADD COLUMN def_hash BIGINT NULL;
+
+commit;
@@ -0,0 +1,9 @@
+-- Backfill the creation date of the locks taken before it was stored, from the timeout of their job
+
+
+UPDATE sched_job_locks SET locked_at = (
+    SELECT TIMESTAMPADD(MICROSECOND, -c.timeout * 1000, sched_job_locks.expires_at)
+    FROM sched_job_configs c WHERE c.id = sched_job_locks.id)
+    WHERE locked_at IS NULL;
+
+commit;
\ No newline at end of file
@@ -0,0 +1,6 @@
+-- Add the latest time the flexible wake-ups may fire at, leveled by the wake-ups timer
+
+
+ALTER TABLE sched_job_wakeups ADD COLUMN deadline BIGINT;
+
+commit;
@@ -0,0 +1,8 @@
+-- Add the pending fire of the CRON group members, claimed by the node firing it
+
+
+ALTER TABLE sched_cron_group_members ADD COLUMN fire_time BIGINT;
+
+CREATE INDEX IDX_SCHED_CRON_GROUP_FIRES ON sched_cron_group_members(fire_time);
+
+commit;
@@ -0,0 +1,9 @@
+-- Add the heartbeats used to measure the replicas lag
+
+
+CREATE TABLE IF NOT EXISTS sched_replica_heartbeats (
+    node VARCHAR(255) PRIMARY KEY,
+    beat_time BIGINT NOT NULL
+);
+
+commit;
\ No newline at end of file
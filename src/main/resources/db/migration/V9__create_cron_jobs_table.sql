@@ -0,0 +1,13 @@
+-- Add the CRON jobs of the table recurrence engine
+
+
+CREATE TABLE IF NOT EXISTS sched_cron_jobs (
+    id VARCHAR(255) PRIMARY KEY,
+    cron_expr VARCHAR(255) NOT NULL,
+    start_at BIGINT NOT NULL,
+    next_fire_time BIGINT NOT NULL
+);
+
+CREATE INDEX IDX_SCHED_CRON_NEXT_FIRE_TIME ON sched_cron_jobs(next_fire_time);
+
+commit;
@@ -0,0 +1,27 @@
+-- Add the WAKEUP jobs table partitioned by scheduled time (MySQL only), filled with the existing wake-ups
+
+
+CREATE TABLE IF NOT EXISTS sched_job_wakeups_part (
+    id VARCHAR(255) NOT NULL,
+    scheduled_time BIGINT NOT NULL,
+    wakeup_time BIGINT NOT NULL,
+    endpoint_id INT,
+    retry_count INT NOT NULL DEFAULT '0',
+    PRIMARY KEY (id, scheduled_time),
+    KEY IDX_SCHED_WAKEUP_PART_TIME (wakeup_time)
+)
+PARTITION BY RANGE (scheduled_time) (
+    PARTITION p0 VALUES LESS THAN (0),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- The callbacks written by the nodes of the previous version are not in the endpoints table yet
+
+INSERT IGNORE INTO sched_endpoints(url) SELECT DISTINCT callback FROM sched_job_wakeups WHERE callback IS NOT NULL;
+
+INSERT INTO sched_job_wakeups_part(id, scheduled_time, wakeup_time, endpoint_id, retry_count)
+    SELECT w.id, w.wakeup_time, w.wakeup_time,
+        COALESCE((SELECT e.id FROM sched_endpoints e WHERE e.url = w.callback), w.endpoint_id), w.retry_count
+    FROM sched_job_wakeups w;
+
+commit;
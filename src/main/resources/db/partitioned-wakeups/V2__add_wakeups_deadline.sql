@@ -0,0 +1,6 @@
+-- Add the latest time the flexible wake-ups may fire at, the copied wake-ups fire on time
+
+
+ALTER TABLE sched_job_wakeups_part ADD COLUMN deadline BIGINT;
+
+commit;
@@ -0,0 +1,10 @@
+-- Use a BIGINT surrogate primary key, the job id becoming a unique secondary key
+
+
+CREATE UNIQUE INDEX UK_SCHED_JOB_CONFIG_ID ON sched_job_configs(id);
+
+ALTER TABLE sched_job_configs DROP PRIMARY KEY;
+
+ALTER TABLE sched_job_configs ADD COLUMN pk BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY FIRST;
+
+commit;
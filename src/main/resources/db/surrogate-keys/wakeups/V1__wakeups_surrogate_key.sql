@@ -0,0 +1,10 @@
+-- Use a BIGINT surrogate primary key, the wake-up id becoming a unique secondary key
+
+
+CREATE UNIQUE INDEX UK_SCHED_WAKEUP_ID ON sched_job_wakeups(id);
+
+ALTER TABLE sched_job_wakeups DROP PRIMARY KEY;
+
+ALTER TABLE sched_job_wakeups ADD COLUMN pk BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY FIRST;
+
+commit;
@@ -0,0 +1,13 @@
+-- Add WAKEUP jobs schema of a wake-up shard
+
+
+CREATE TABLE IF NOT EXISTS sched_job_wakeups (
+    id VARCHAR(255) PRIMARY KEY,
+    wakeup_time BIGINT NOT NULL,
+    callback VARCHAR(255),
+    retry_count INT NOT NULL DEFAULT '0'
+);
+
+CREATE INDEX IDX_SCHED_WAKEUP_TIME ON sched_job_wakeups(wakeup_time);
+
+commit;
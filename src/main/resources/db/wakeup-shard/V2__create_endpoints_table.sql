@@ -0,0 +1,20 @@
+-- Store each distinct callback URL once, referenced by the wake-ups of the shard
+
+
+CREATE TABLE IF NOT EXISTS sched_endpoints (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    url VARCHAR(255) NOT NULL
+);
+
+CREATE UNIQUE INDEX UK_SCHED_ENDPOINT_URL ON sched_endpoints(url);
+
+INSERT INTO sched_endpoints(url) SELECT DISTINCT callback FROM sched_job_wakeups WHERE callback IS NOT NULL;
+
+ALTER TABLE sched_job_wakeups ADD COLUMN endpoint_id INT;
+
+UPDATE sched_job_wakeups SET endpoint_id = (SELECT e.id FROM sched_endpoints e WHERE e.url = sched_job_wakeups.callback);
+
+-- The callback column is kept for the nodes of the previous version during a rolling upgrade, it is dropped by a
+-- later migration once all the nodes are upgraded
+
+commit;
@@ -0,0 +1,6 @@
+-- Add the latest time the flexible wake-ups of the shard may fire at
+
+
+ALTER TABLE sched_job_wakeups ADD COLUMN deadline BIGINT;
+
+commit;
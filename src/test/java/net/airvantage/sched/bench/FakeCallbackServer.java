@@ -0,0 +1,271 @@
+package net.airvantage.sched.bench;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.airvantage.sched.app.SchedSecretFilter;
+import net.airvantage.sched.capture.CaptureRecord;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * An in-process HTTP server playing the role of the jobs callbacks.
+ * 
+ * <ul>
+ * <li>POST - /wakeup?due={timestamp} : a WAKEUP callback, the lag is computed from the due date.</li>
+ * <li>POST - /cron?period={ms} : a CRON callback, the lag is computed from the last period boundary.</li>
+ * <li>POST - /replay?job={id} : a replayed callback, answered with the next captured outcome of the job. The drift is
+ * computed from the captured callback date.</li>
+ * </ul>
+ * 
+ * <p>
+ * Each call waits for a random latency (exponential distribution), then may hang or fail according to the configured
+ * rates. Successful calls are acknowledged.
+ * </p>
+ */
+public class FakeCallbackServer {
+
+    private final Server server;
+    private final ServerConnector connector;
+
+    private final String secret;
+    private final long meanLatencyMs;
+    private final double errorRate;
+    private final double hangRate;
+    private final long hangMs;
+
+    private final LatencyHistogram wakeupLags = new LatencyHistogram();
+    private final LatencyHistogram cronLags = new LatencyHistogram();
+    private final LatencyHistogram replayDrifts = new LatencyHistogram();
+
+    private final AtomicLong wakeupSuccesses = new AtomicLong();
+    private final AtomicLong cronSuccesses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong hangs = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+    private final AtomicLong replayCalls = new AtomicLong();
+    private final AtomicLong replayMisses = new AtomicLong();
+
+    // Captured callback outcomes by job id, and the replay speed factor applied to their latency
+    private volatile Map<String, Queue<CaptureRecord>> replayOutcomes = Collections.emptyMap();
+    private volatile double replaySpeed = 1.0;
+
+    // Scheduler clock, the WAKEUP due dates are expressed with it
+    private volatile Clock clock = Clock.systemUTC();
+
+    // ------------------------------------------------- Constructors -------------------------------------------------
+
+    public FakeCallbackServer(String secret, long meanLatencyMs, double errorRate, double hangRate, long hangMs,
+            int maxThreads) {
+
+        this.secret = secret;
+        this.meanLatencyMs = meanLatencyMs;
+        this.errorRate = errorRate;
+        this.hangRate = hangRate;
+        this.hangMs = hangMs;
+
+        this.server = new Server(new QueuedThreadPool(maxThreads, 8));
+        this.connector = new ServerConnector(server);
+        this.connector.setPort(0);
+        this.server.addConnector(connector);
+        this.server.setHandler(new CallbackHandler());
+    }
+
+    // ------------------------------------------------- Public Methods -----------------------------------------------
+
+    public void start() throws Exception {
+        server.start();
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void setReplayOutcomes(Map<String, Queue<CaptureRecord>> replayOutcomes, double replaySpeed) {
+        this.replayOutcomes = replayOutcomes;
+        this.replaySpeed = replaySpeed;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + connector.getLocalPort();
+    }
+
+    public String wakeupUrl(long due) {
+        return getBaseUrl() + "/wakeup?due=" + due;
+    }
+
+    public String cronUrl(long periodMs) {
+        return getBaseUrl() + "/cron?period=" + periodMs;
+    }
+
+    public String replayUrl(String jobId) {
+        try {
+            return getBaseUrl() + "/replay?job=" + URLEncoder.encode(jobId, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public LatencyHistogram getReplayDrifts() {
+        return replayDrifts;
+    }
+
+    public long getReplayCalls() {
+        return replayCalls.get();
+    }
+
+    public long getReplayMisses() {
+        return replayMisses.get();
+    }
+
+    public LatencyHistogram getWakeupLags() {
+        return wakeupLags;
+    }
+
+    public LatencyHistogram getCronLags() {
+        return cronLags;
+    }
+
+    public long getWakeupSuccesses() {
+        return wakeupSuccesses.get();
+    }
+
+    public long getCronSuccesses() {
+        return cronSuccesses.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getHangs() {
+        return hangs.get();
+    }
+
+    public long getUnauthorized() {
+        return unauthorized.get();
+    }
+
+    // ------------------------------------------------- Private Methods ----------------------------------------------
+
+    private class CallbackHandler extends AbstractHandler {
+
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException, ServletException {
+
+            long received = System.currentTimeMillis();
+            long receivedClock = clock.millis();
+            baseRequest.setHandled(true);
+
+            if (!secret.equals(request.getHeader(SchedSecretFilter.SCHED_SECRET_HEADER_NAME))) {
+                unauthorized.incrementAndGet();
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+
+            if (target.startsWith("/replay")) {
+                replay(request.getParameter("job"), receivedClock, response);
+                return;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (meanLatencyMs > 0) {
+                pause((long) (-meanLatencyMs * Math.log(1.0 - random.nextDouble())));
+            }
+
+            if (random.nextDouble() < hangRate) {
+                hangs.incrementAndGet();
+                pause(hangMs);
+            }
+
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+
+            if (target.startsWith("/wakeup")) {
+                long due = Long.parseLong(request.getParameter("due"));
+                wakeupLags.record(receivedClock - due);
+                wakeupSuccesses.incrementAndGet();
+
+            } else if (target.startsWith("/cron")) {
+                long period = Long.parseLong(request.getParameter("period"));
+                cronLags.record(received % period);
+                cronSuccesses.incrementAndGet();
+            }
+
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"ack\":true}");
+        }
+
+        private void replay(String jobId, long receivedClock, HttpServletResponse response) throws IOException {
+
+            replayCalls.incrementAndGet();
+
+            Queue<CaptureRecord> outcomes = replayOutcomes.get(jobId);
+            CaptureRecord outcome = (outcomes != null) ? outcomes.poll() : null;
+            if (outcome == null) {
+                // More callbacks than captured ones, acknowledge them
+                replayMisses.incrementAndGet();
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"ack\":true}");
+                return;
+            }
+
+            // The outcome is captured once the callback has returned
+            replayDrifts.record(Math.abs(receivedClock - (outcome.getTimestamp() - outcome.getLatency())));
+            pause((long) (outcome.getLatency() / replaySpeed));
+
+            if (!outcome.isSuccess()) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+
+            StringBuilder body = new StringBuilder("{\"ack\":").append(outcome.isAck());
+            if (outcome.getRetry() > 0) {
+                body.append(",\"retry\":").append(outcome.getRetry());
+            }
+            if (outcome.getRetryDate() > 0) {
+                body.append(",\"retryDate\":").append(outcome.getRetryDate());
+            }
+            body.append("}");
+
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("application/json");
+            response.getWriter().write(body.toString());
+        }
+
+        private void pause(long ms) {
+            try {
+                Thread.sleep(ms);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
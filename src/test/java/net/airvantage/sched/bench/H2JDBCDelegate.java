@@ -0,0 +1,20 @@
+package net.airvantage.sched.bench;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+
+/**
+ * Quartz delegate for the H2 database used by the load test harness.
+ * 
+ * The MySQL Quartz schema stores booleans in VARCHAR(1) columns, which H2 would fill with "TRUE" / "FALSE".
+ */
+public class H2JDBCDelegate extends StdJDBCDelegate {
+
+    @Override
+    protected void setBoolean(PreparedStatement ps, int index, boolean val) throws SQLException {
+        ps.setString(index, val ? "1" : "0");
+    }
+
+}
@@ -0,0 +1,92 @@
+package net.airvantage.sched.bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram. Values are recorded in milliseconds with a 1 ms precision up to 10 seconds, and a
+ * 100 ms precision up to 10 minutes. Larger values are counted in an overflow bucket.
+ */
+public class LatencyHistogram {
+
+    private static final long FINE_LIMIT = 10_000L;
+    private static final long COARSE_LIMIT = 600_000L;
+    private static final long COARSE_STEP = 100L;
+
+    private static final int NB_BUCKETS = (int) (FINE_LIMIT + (COARSE_LIMIT - FINE_LIMIT) / COARSE_STEP + 1);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(index(v));
+        count.incrementAndGet();
+
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Return the value at the given percentile (between 0 and 100).
+     */
+    public long percentile(double percentile) {
+
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(value(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    private static int index(long value) {
+
+        if (value < FINE_LIMIT) {
+            return (int) value;
+        }
+        if (value < COARSE_LIMIT) {
+            return (int) (FINE_LIMIT + (value - FINE_LIMIT) / COARSE_STEP);
+        }
+        return NB_BUCKETS - 1;
+    }
+
+    private static long value(int index) {
+
+        if (index < FINE_LIMIT) {
+            return index;
+        }
+        if (index < NB_BUCKETS - 1) {
+            return FINE_LIMIT + (index - FINE_LIMIT + 1) * COARSE_STEP;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%dms, p99=%dms, max=%dms", getCount(), percentile(50), percentile(99),
+                getMax());
+    }
+
+}
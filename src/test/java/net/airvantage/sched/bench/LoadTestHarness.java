@@ -0,0 +1,287 @@
+package net.airvantage.sched.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.airvantage.sched.TestUtils;
+import net.airvantage.sched.app.Launcher;
+import net.airvantage.sched.app.ServiceLocator;
+import net.airvantage.sched.app.exceptions.AppException;
+import net.airvantage.sched.capture.WorkloadCapture;
+import net.airvantage.sched.model.JobDef;
+import net.airvantage.sched.services.JobSchedulingService;
+
+import org.eclipse.jetty.server.Server;
+
+/**
+ * End-to-end load test harness.
+ * 
+ * <p>
+ * Boots the whole {@link Launcher} stack against an embedded H2 database (MySQL mode) and an in-process
+ * {@link FakeCallbackServer}, injects WAKEUP and CRON jobs and reports the throughput and the callbacks lag.
+ * </p>
+ * 
+ * <p>
+ * Options (all optional) :
+ * <ul>
+ * <li>--wakeups=100000 : number of WAKEUP jobs to inject.</li>
+ * <li>--spread-ms=60000 : WAKEUP due dates are spread over this period, starting at injection time.</li>
+ * <li>--crons=1000 : number of CRON jobs to inject.</li>
+ * <li>--cron-period-s=10 : CRON jobs fire every N seconds (N should divide 60).</li>
+ * <li>--cron-batch=0 : register the CRON jobs by lists of N jobs with the bulk registration, one by one if 0.</li>
+ * <li>--injectors=8 : number of threads used to inject the jobs.</li>
+ * <li>--latency-ms=5 : mean callback latency (exponential distribution).</li>
+ * <li>--error-rate=0.01 : ratio of callbacks returning an HTTP 500.</li>
+ * <li>--hang-rate=0.0001 : ratio of callbacks hanging for --hang-ms.</li>
+ * <li>--hang-ms=30000</li>
+ * <li>--callback-threads=500 : fake callback server thread pool size.</li>
+ * <li>--timeout-s=600 : give up waiting for the WAKEUP jobs completion after this delay.</li>
+ * <li>--duration-s=0 : run at least this long, e.g. to measure the CRON jobs lag with --wakeups=0.</li>
+ * <li>--db-url=jdbc:h2:mem:avsched;MODE=MySQL;DB_CLOSE_DELAY=-1</li>
+ * <li>--sim-speed=N : run the scheduler on a simulated clock N times faster than the real time. --spread-ms and the
+ * WAKEUP lags are then expressed in simulated time, e.g. --spread-ms=86400000 --sim-speed=3600 plays a day of
+ * wake-ups in 24 seconds. The wake-up job cron still fires in real time, so the simulated lag is at least its period
+ * times N.</li>
+ * <li>--conf.{key}={value} : any av-sched configuration property.</li>
+ * </ul>
+ * </p>
+ */
+public class LoadTestHarness {
+
+    static final String SECRET = "bench-secret";
+
+    public static void main(String[] args) throws Exception {
+
+        Map<String, String> options = parseOptions(args);
+
+        int wakeups = Integer.parseInt(options.getOrDefault("wakeups", "100000"));
+        long spreadMs = Long.parseLong(options.getOrDefault("spread-ms", "60000"));
+        int crons = Integer.parseInt(options.getOrDefault("crons", "1000"));
+        int cronPeriod = Integer.parseInt(options.getOrDefault("cron-period-s", "10"));
+        int cronBatch = Integer.parseInt(options.getOrDefault("cron-batch", "0"));
+        int injectors = Integer.parseInt(options.getOrDefault("injectors", "8"));
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-s", "600")) * 1000L;
+        long durationMs = Long.parseLong(options.getOrDefault("duration-s", "0")) * 1000L;
+
+        FakeCallbackServer callbacks = new FakeCallbackServer(SECRET, 
+                Long.parseLong(options.getOrDefault("latency-ms", "5")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0.01")),
+                Double.parseDouble(options.getOrDefault("hang-rate", "0.0001")),
+                Long.parseLong(options.getOrDefault("hang-ms", "30000")),
+                Integer.parseInt(options.getOrDefault("callback-threads", "500")));
+        callbacks.start();
+
+        configure(options);
+        Server server;
+        try {
+            server = Launcher.start(new String[] { "--clear" });
+        } catch (Exception e) {
+            // Quartz and callback threads would keep the JVM alive
+            e.printStackTrace();
+            callbacks.stop();
+            System.exit(1);
+            return;
+        }
+
+        // Inject the jobs
+
+        Clock clock = ServiceLocator.getInstance().getClock();
+        callbacks.setClock(clock);
+
+        JobSchedulingService jobService = ServiceLocator.getInstance().getJobSchedulingService();
+        ExecutorService executor = Executors.newFixedThreadPool(injectors);
+        AtomicLong injectErrors = new AtomicLong();
+
+        long injectStart = System.currentTimeMillis();
+        long dueStart = clock.millis();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < injectors; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                List<JobDef> batch = new ArrayList<>();
+                for (int i = thread; i < crons; i += injectors) {
+                    JobDef jobDef = TestUtils.cronJobDef("bench-cron-" + i, "0/" + cronPeriod + " * * * * ?");
+                    jobDef.getConfig().setUrl(callbacks.cronUrl(cronPeriod * 1000L));
+                    if (cronBatch > 0) {
+                        batch.add(jobDef);
+                        if (batch.size() == cronBatch || i + injectors >= crons) {
+                            scheduleAll(jobService, batch, injectErrors);
+                            batch.clear();
+                        }
+                    } else {
+                        schedule(jobService, jobDef, injectErrors);
+                    }
+                }
+                for (int i = thread; i < wakeups; i += injectors) {
+                    long due = dueStart + (spreadMs * i) / Math.max(1, wakeups);
+                    JobDef jobDef = TestUtils.wakeupJobDef("bench-wakeup-" + i, due);
+                    jobDef.getConfig().setUrl(callbacks.wakeupUrl(due));
+                    schedule(jobService, jobDef, injectErrors);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long injectDuration = Math.max(1, System.currentTimeMillis() - injectStart);
+        log("Injected %d jobs in %d ms (%.0f jobs/s, %d errors)", wakeups + crons, injectDuration,
+                (wakeups + crons) * 1000.0 / injectDuration, injectErrors.get());
+
+        // Wait for the wakeups completion
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long end = injectStart + durationMs;
+        while ((callbacks.getWakeupSuccesses() < wakeups || System.currentTimeMillis() < end)
+                && System.currentTimeMillis() < deadline) {
+            TimeUnit.SECONDS.sleep(5);
+            log("Progress : wakeups=%d/%d, crons=%d, errors=%d, hangs=%d", callbacks.getWakeupSuccesses(), wakeups,
+                    callbacks.getCronSuccesses(), callbacks.getErrors(), callbacks.getHangs());
+        }
+
+        long drainDuration = Math.max(1, System.currentTimeMillis() - injectStart);
+
+        // Report
+
+        log("=============================== REPORT ===============================");
+        log("Wakeups completed : %d/%d in %d ms (%.0f wakeups/s)", callbacks.getWakeupSuccesses(), wakeups,
+                drainDuration, callbacks.getWakeupSuccesses() * 1000.0 / drainDuration);
+        log("Wakeups lag       : %s", callbacks.getWakeupLags());
+        log("Crons lag         : %s", callbacks.getCronLags());
+        log("Crons by second   : %s", firesBySecond());
+        log("Callbacks         : errors=%d, hangs=%d, unauthorized=%d", callbacks.getErrors(), callbacks.getHangs(),
+                callbacks.getUnauthorized());
+        log("======================================================================");
+
+        server.stop();
+        ServiceLocator.getInstance().getSchedulerShards().shutdown(false);
+        callbacks.stop();
+        System.exit(0);
+    }
+
+    /**
+     * Summary of the distribution of the CRON fires over the seconds of the minute, e.g. to compare splay windows.
+     */
+    private static String firesBySecond() {
+
+        long[] fires = ServiceLocator.getInstance().geJobExecutionHelper().getCronFiresBySecond();
+        long total = 0;
+        long peak = 0;
+        int used = 0;
+        for (long count : fires) {
+            total += count;
+            peak = Math.max(peak, count);
+            used += (count > 0) ? 1 : 0;
+        }
+        return String.format("peak=%d, mean=%.0f, seconds used=%d/%d", peak, total / (double) fires.length, used,
+                fires.length);
+    }
+
+    private static void scheduleAll(JobSchedulingService jobService, List<JobDef> jobDefs, AtomicLong errors) {
+        try {
+            for (AppException error : jobService.scheduleJobs(jobDefs)) {
+                if (error != null) {
+                    errors.incrementAndGet();
+                }
+            }
+        } catch (Exception ex) {
+            errors.addAndGet(jobDefs.size());
+        }
+    }
+
+    private static void schedule(JobSchedulingService jobService, JobDef jobDef, AtomicLong errors) {
+        try {
+            jobService.scheduleJob(jobDef);
+
+            // The jobs are not injected through the API, capture them as JobDefServlet would do
+            WorkloadCapture capture = ServiceLocator.getInstance().getWorkloadCapture();
+            if (capture.isEnabled()) {
+                capture.jobDef(jobDef.getConfig().getId(),
+                        ServiceLocator.getInstance().getJsonMapper().writeValueAsString(jobDef));
+            }
+        } catch (Exception ex) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write a local configuration file in a temporary configuration directory.
+     */
+    static void configure(Map<String, String> options) throws Exception {
+
+        Properties props = new Properties();
+        props.setProperty("av-sched.secret", SECRET);
+        props.setProperty("av-sched.port", Integer.toString(freePort()));
+        if (options.containsKey("sim-speed")) {
+            props.setProperty("av-sched.clock.mode", "simulated");
+            props.setProperty("av-sched.clock.speed", options.get("sim-speed"));
+        }
+
+        String dbUrl = options.getOrDefault("db-url", "jdbc:h2:mem:avsched;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        props.setProperty("av-sched.db.url", dbUrl);
+        if (dbUrl.startsWith("jdbc:h2:")) {
+            props.setProperty("av-sched.db.driver", "org.h2.Driver");
+            props.setProperty("av-sched.db.quartzDelegate", H2JDBCDelegate.class.getName());
+        } else {
+            props.setProperty("av-sched.db.driver", "com.mysql.jdbc.Driver");
+        }
+        props.setProperty("av-sched.id.node", "1");
+        props.setProperty("av-sched.db.user", "sa");
+        props.setProperty("av-sched.db.password", "");
+
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (option.getKey().startsWith("conf.")) {
+                props.setProperty(option.getKey().substring("conf.".length()), option.getValue());
+            }
+        }
+
+        File confDir = Files.createTempDirectory("av-sched-bench").toFile();
+        confDir.deleteOnExit();
+        File confFile = new File(confDir, "deploy-sched-local.properties");
+        confFile.deleteOnExit();
+
+        try (OutputStream out = new FileOutputStream(confFile)) {
+            props.store(out, "av-sched load test harness");
+        }
+
+        System.setProperty("AVSCHED_CONF_DIR", confDir.getAbsolutePath());
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int idx = arg.indexOf('=');
+                options.put(arg.substring(2, idx), arg.substring(idx + 1));
+            }
+        }
+        return options;
+    }
+
+    static void log(String format, Object... args) {
+        System.out.println("[BENCH] " + String.format(format, args));
+    }
+
+}
@@ -0,0 +1,211 @@
+package net.airvantage.sched.bench;
+
+import static net.airvantage.sched.bench.LoadTestHarness.log;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.server.Server;
+
+import net.airvantage.sched.app.Launcher;
+import net.airvantage.sched.app.ServiceLocator;
+import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.CaptureLogReader;
+import net.airvantage.sched.capture.CaptureRecord;
+import net.airvantage.sched.capture.CaptureRecord.Type;
+import net.airvantage.sched.model.JobDef;
+import net.airvantage.sched.services.JobSchedulingService;
+
+/**
+ * Replays a workload captured with {@code av-sched.capture.enabled=true} against a local scheduler instance.
+ *
+ * <p>
+ * The scheduler runs on a simulated clock starting at the first captured record and running {@code --speed} times
+ * faster than the real time. The API calls are replayed at their captured (simulated) date, with the callbacks
+ * redirected to a {@link FakeCallbackServer} answering the captured outcomes of each job. The report gives the drift
+ * between the captured and the replayed callbacks.
+ * </p>
+ *
+ * <p>
+ * Options:
+ * <ul>
+ * <li>--capture-dir=capture : directory of the captured log segments.</li>
+ * <li>--speed=10 : replay speed factor. The wake-up job cron and the CRON jobs still fire in real time.</li>
+ * <li>--injectors=8 : number of threads replaying the API calls (calls of a given job keep their order).</li>
+ * <li>--timeout-s=600 : give up waiting for the replayed callbacks after this delay.</li>
+ * <li>--db-url and --conf.{key}={value} : see {@link LoadTestHarness}.</li>
+ * </ul>
+ * </p>
+ */
+public class WorkloadReplay {
+
+    public static void main(String[] args) throws Exception {
+
+        Map<String, String> options = LoadTestHarness.parseOptions(args);
+
+        Path directory = Paths.get(options.getOrDefault("capture-dir", "capture"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "10"));
+        int injectors = Integer.parseInt(options.getOrDefault("injectors", "8"));
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-s", "600")) * 1000L;
+
+        // Index the captured callback outcomes
+
+        Map<String, Queue<CaptureRecord>> outcomes = new ConcurrentHashMap<>();
+        long apiCalls = 0;
+        long callbackCount = 0;
+        long first = -1;
+        long last = -1;
+
+        try (CaptureLogReader reader = new CaptureLogReader(directory)) {
+            while (reader.hasNext()) {
+                CaptureRecord record = reader.next();
+                if (first < 0) {
+                    first = record.getTimestamp();
+                }
+                last = Math.max(last, record.getTimestamp());
+
+                if (record.getType() == Type.CALLBACK) {
+                    outcomes.computeIfAbsent(record.getJobId(), id -> new ConcurrentLinkedQueue<>()).add(record);
+                    callbackCount++;
+                } else {
+                    apiCalls++;
+                }
+            }
+        }
+
+        if (first < 0) {
+            log("No capture found in %s", directory.toAbsolutePath());
+            System.exit(1);
+            return;
+        }
+        log("Captured workload : %d API calls, %d callbacks over %d s", apiCalls, callbackCount,
+                (last - first) / 1000);
+
+        FakeCallbackServer callbacks = new FakeCallbackServer(LoadTestHarness.SECRET, 0, 0.0, 0.0, 0,
+                Integer.parseInt(options.getOrDefault("callback-threads", "500")));
+        callbacks.setReplayOutcomes(outcomes, speed);
+        callbacks.start();
+
+        options.put("sim-speed", Double.toString(speed));
+        options.put("conf.av-sched.clock.start", Long.toString(first));
+        LoadTestHarness.configure(options);
+
+        Server server;
+        try {
+            server = Launcher.start(new String[] { "--clear" });
+        } catch (Exception e) {
+            e.printStackTrace();
+            callbacks.stop();
+            System.exit(1);
+            return;
+        }
+
+        Clock clock = ServiceLocator.getInstance().getClock();
+        callbacks.setClock(clock);
+
+        JobSchedulingService jobService = ServiceLocator.getInstance().getJobSchedulingService();
+        JsonMapper jsonMapper = ServiceLocator.getInstance().getJsonMapper();
+
+        // One single thread executor by job id hash, to keep the order of the calls of a job
+        ExecutorService[] executors = new ExecutorService[injectors];
+        for (int i = 0; i < injectors; i++) {
+            executors[i] = Executors.newSingleThreadExecutor();
+        }
+        AtomicLong apiErrors = new AtomicLong();
+
+        // Replay the API calls at their captured date
+
+        long replayStart = System.currentTimeMillis();
+        try (CaptureLogReader reader = new CaptureLogReader(directory)) {
+            while (reader.hasNext()) {
+                CaptureRecord record = reader.next();
+                if (record.getType() == Type.CALLBACK) {
+                    continue;
+                }
+
+                long wait = (long) ((record.getTimestamp() - clock.millis()) / speed);
+                if (wait > 0) {
+                    TimeUnit.MILLISECONDS.sleep(wait);
+                }
+
+                executors[Math.abs(record.getJobId().hashCode() % injectors)].execute(() -> {
+                    try {
+                        replay(record, jobService, jsonMapper, callbacks);
+                    } catch (Exception ex) {
+                        apiErrors.incrementAndGet();
+                    }
+                });
+            }
+        }
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        log("Replayed %d API calls in %d ms (%d errors)", apiCalls, System.currentTimeMillis() - replayStart,
+                apiErrors.get());
+
+        // Wait for the callbacks
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (callbacks.getReplayCalls() < callbackCount && System.currentTimeMillis() < deadline) {
+            TimeUnit.SECONDS.sleep(5);
+            log("Progress : callbacks=%d/%d", callbacks.getReplayCalls(), callbackCount);
+        }
+
+        long replayDuration = Math.max(1, System.currentTimeMillis() - replayStart);
+
+        // Report
+
+        log("=============================== REPLAY ===============================");
+        log("Speed             : x%.1f, %d s captured replayed in %d s", speed, (last - first) / 1000,
+                replayDuration / 1000);
+        log("Callbacks         : %d/%d replayed (%d unexpected)", callbacks.getReplayCalls(), callbackCount,
+                callbacks.getReplayMisses());
+        log("Callbacks drift   : %s", callbacks.getReplayDrifts());
+        log("API errors        : %d", apiErrors.get());
+        log("======================================================================");
+
+        server.stop();
+        ServiceLocator.getInstance().getSchedulerShards().shutdown(false);
+        callbacks.stop();
+        System.exit(0);
+    }
+
+    private static void replay(CaptureRecord record, JobSchedulingService jobService, JsonMapper jsonMapper,
+            FakeCallbackServer callbacks) throws Exception {
+
+        switch (record.getType()) {
+        case JOB_DEF:
+            JobDef jobDef = jsonMapper.jobDef(new ByteArrayInputStream(record.getData()));
+            jobDef.getConfig().setUrl(callbacks.replayUrl(record.getJobId()));
+            jobService.scheduleJob(jobDef);
+            break;
+
+        case JOB_DELETE:
+            jobService.unscheduleJob(record.getJobId());
+            break;
+
+        case JOB_ACK:
+            jobService.ackJob(record.getJobId());
+            break;
+
+        case JOB_TRIGGER:
+            jobService.triggerJob(record.getJobId());
+            break;
+
+        default:
+            break;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.airvantage.sched.capture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.airvantage.sched.capture.CaptureRecord.Type;
+
+public class CaptureLogWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndRead_manySegments() throws Exception {
+
+        // INPUT
+
+        Path directory = folder.getRoot().toPath();
+        CaptureLogWriter writer = new CaptureLogWriter(directory, 1024, 1000);
+
+        // RUN
+
+        writer.start();
+        for (int i = 0; i < 100; i++) {
+            writer.append(record(i));
+        }
+        writer.close();
+
+        // VERIFY
+
+        assertEquals(100, writer.getWritten());
+        assertEquals(0, writer.getDropped());
+        assertTrue(CaptureLogReader.segments(directory).size() > 1);
+
+        List<CaptureRecord> records = new ArrayList<>();
+        try (CaptureLogReader reader = new CaptureLogReader(directory)) {
+            reader.forEachRemaining(records::add);
+        }
+
+        assertEquals(100, records.size());
+        for (int i = 0; i < 100; i++) {
+            CaptureRecord expected = record(i);
+            CaptureRecord actual = records.get(i);
+
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            assertEquals(expected.getJobId(), actual.getJobId());
+            assertEquals(new String(expected.getData(), StandardCharsets.UTF_8),
+                    new String(actual.getData(), StandardCharsets.UTF_8));
+            assertEquals(expected.isSuccess(), actual.isSuccess());
+            assertEquals(expected.getRetry(), actual.getRetry());
+            assertEquals(expected.getLatency(), actual.getLatency());
+        }
+    }
+
+    @Test
+    public void start_keepsPreviousCapture() throws Exception {
+
+        // INPUT
+
+        Path directory = folder.getRoot().toPath();
+
+        // RUN
+
+        for (int run = 0; run < 2; run++) {
+            CaptureLogWriter writer = new CaptureLogWriter(directory, 4096, 10);
+            writer.start();
+            writer.append(record(run));
+            writer.close();
+        }
+
+        // VERIFY
+
+        try (CaptureLogReader reader = new CaptureLogReader(directory)) {
+            assertEquals("job-0", reader.next().getJobId());
+            assertEquals("job-1", reader.next().getJobId());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    private CaptureRecord record(int i) {
+
+        CaptureRecord record = new CaptureRecord();
+        record.setTimestamp(1_400_000_000_000L + i);
+        record.setJobId("job-" + i);
+
+        if (i % 2 == 0) {
+            record.setType(Type.JOB_DEF);
+            record.setData(("{\"config\":{\"id\":\"job-" + i + "\"}}").getBytes(StandardCharsets.UTF_8));
+        } else {
+            record.setType(Type.CALLBACK);
+            record.setSuccess(i % 3 == 0);
+            record.setRetry(i * 1000L);
+            record.setLatency(i);
+        }
+        return record;
+    }
+
+}
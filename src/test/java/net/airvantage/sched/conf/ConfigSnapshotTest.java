@@ -0,0 +1,71 @@
+package net.airvantage.sched.conf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.commons.configuration.ConversionException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.junit.Test;
+
+public class ConfigSnapshotTest {
+
+    @Test
+    public void of_multiValuedKey() throws Exception {
+
+        // INPUT
+
+        PropertiesConfiguration conf = new PropertiesConfiguration();
+        conf.addProperty("urls", "jdbc:h2:mem:a, jdbc:h2:mem:b");
+
+        // RUN
+
+        ConfigSnapshot snapshot = ConfigSnapshot.of(conf, null);
+
+        // VERIFY
+
+        // The string is the first value, as with the configuration
+        assertEquals(conf.getString("urls"), snapshot.getString("urls"));
+        assertArrayEquals(new String[] { "jdbc:h2:mem:a", "jdbc:h2:mem:b" }, snapshot.getStringArray("urls"));
+        assertArrayEquals(new String[0], snapshot.getStringArray("missing"));
+    }
+
+    @Test
+    public void of_typedValues() throws Exception {
+
+        // INPUT
+
+        PropertiesConfiguration conf = new PropertiesConfiguration();
+        conf.addProperty("int", "42");
+        conf.addProperty("long", "3000000000");
+        conf.addProperty("flag", "true");
+        conf.addProperty("text", "abc");
+
+        // RUN
+
+        ConfigSnapshot snapshot = ConfigSnapshot.of(conf, null);
+
+        // VERIFY
+
+        assertEquals(42, snapshot.getInt("int"));
+        assertEquals(42L, snapshot.getLong("int"));
+        assertEquals(3000000000L, snapshot.getLong("long"));
+        assertEquals(true, snapshot.getBoolean("flag", false));
+        assertFalse(snapshot.getBoolean("missing", false));
+        assertEquals(1.5, snapshot.getDouble("missing", 1.5), 0.0);
+    }
+
+    @Test(expected = ConversionException.class)
+    public void getInt_notAnInteger() throws Exception {
+
+        // INPUT
+
+        PropertiesConfiguration conf = new PropertiesConfiguration();
+        conf.addProperty("long", "3000000000");
+
+        // RUN
+
+        ConfigSnapshot.of(conf, null).getInt("long");
+    }
+
+}
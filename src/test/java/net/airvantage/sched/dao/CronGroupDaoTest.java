@@ -0,0 +1,109 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.airvantage.sched.db.SchemaMigrator;
+
+public class CronGroupDaoTest {
+
+    private static final String CRON_EXPR = "0 * * * * ?";
+
+    private JdbcConnectionPool database;
+    private CronGroupDao cronGroupDao;
+
+    @Before
+    public void setUp() {
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).migrate();
+
+        cronGroupDao = new CronGroupDao(database);
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void findMembers_orderedById() throws Exception {
+
+        // INPUT
+
+        cronGroupDao.persist("job-c", CRON_EXPR, 0L);
+        cronGroupDao.persist("job-a", CRON_EXPR, 1_000L);
+        cronGroupDao.persist("job-d", "0 0 * * * ?", 0L);
+        cronGroupDao.persist("job-b", CRON_EXPR, 0L);
+
+        // RUN
+
+        Map<String, Long> first = cronGroupDao.findMembers(CRON_EXPR, "", 2);
+        Map<String, Long> next = cronGroupDao.findMembers(CRON_EXPR, "job-b", 2);
+
+        // VERIFY
+
+        // Pages of the members of the expression only, ordered by identifier, with their splay
+        assertEquals(Arrays.asList("job-a", "job-b"), new ArrayList<>(first.keySet()));
+        assertEquals(1_000L, (long) first.get("job-a"));
+        assertEquals(Arrays.asList("job-c"), new ArrayList<>(next.keySet()));
+    }
+
+    @Test
+    public void persist_movesJobToAnotherGroup() throws Exception {
+
+        // INPUT
+
+        cronGroupDao.persist("job-a", CRON_EXPR, 0L);
+
+        // RUN
+
+        cronGroupDao.persist("job-a", "0 0 * * * ?", 500L);
+
+        // VERIFY
+
+        assertEquals(0, cronGroupDao.findMembers(CRON_EXPR, "", 10).size());
+        assertEquals("0 0 * * * ?", cronGroupDao.find("job-a").getValue());
+        assertEquals(500L, (long) cronGroupDao.find("job-a").getSplay());
+
+        cronGroupDao.delete("job-a");
+        assertNull(cronGroupDao.find("job-a"));
+    }
+
+    @Test
+    public void claimFire_once() throws Exception {
+
+        // INPUT
+
+        cronGroupDao.persist("job-a", CRON_EXPR, 0L);
+        cronGroupDao.persist("job-b", CRON_EXPR, 0L);
+        cronGroupDao.addFires(Collections.singletonMap("job-a", 1_000L));
+
+        // RUN
+
+        boolean other = cronGroupDao.claimFire("job-a", 2_000L);
+        boolean first = cronGroupDao.claimFire("job-a", 1_000L);
+        boolean second = cronGroupDao.claimFire("job-a", 1_000L);
+
+        // VERIFY
+
+        assertFalse(other);
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(cronGroupDao.findFires(Long.MAX_VALUE, 10).isEmpty());
+    }
+
+}
@@ -0,0 +1,56 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * Also covers the {@link MysqlJobWakeupDao} queries, run by H2 in MySQL mode.
+ */
+public class EmbeddedJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected JobWakeupDao createDao() {
+        return new EmbeddedJobWakeupDao(folder.getRoot().toPath(), 4, 100, Clock.systemUTC());
+    }
+
+    @Test
+    public void open_movesCallbacksToEndpoints() throws Exception {
+
+        // INPUT
+
+        Path directory = folder.newFolder().toPath();
+        JdbcConnectionPool legacy = JdbcConnectionPool.create("jdbc:h2:" + directory.resolve("wakeups").toAbsolutePath()
+                + ";MODE=MySQL", "sa", "");
+        QueryExecutor executor = new QueryExecutor(legacy);
+        executor.update("CREATE TABLE sched_job_wakeups (id VARCHAR(255) PRIMARY KEY, wakeup_time BIGINT NOT NULL, "
+                + "callback VARCHAR(255), retry_count INT NOT NULL DEFAULT 0)");
+        executor.update("INSERT INTO sched_job_wakeups VALUES('w1', 1000, 'http://host/a', 0), "
+                + "('w2', 2000, 'http://host/a', 1), ('w3', 3000, 'http://host/b', 0)");
+        legacy.dispose();
+
+        // RUN
+
+        List<JobWakeup> wakeups = new EmbeddedJobWakeupDao(directory, 4, 100, Clock.systemUTC()).find(5000L, 10);
+
+        // VERIFY
+
+        assertEquals(3, wakeups.size());
+        assertEquals("http://host/a", wakeups.get(1).getCallback());
+        assertEquals(1, wakeups.get(1).getRetryCount());
+        assertEquals("http://host/b", wakeups.get(2).getCallback());
+    }
+
+}
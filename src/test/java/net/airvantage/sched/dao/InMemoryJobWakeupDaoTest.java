@@ -0,0 +1,12 @@
+package net.airvantage.sched.dao;
+
+import java.time.Clock;
+
+public class InMemoryJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    @Override
+    protected JobWakeupDao createDao() {
+        return new InMemoryJobWakeupDao(Clock.systemUTC());
+    }
+
+}
@@ -0,0 +1,88 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.model.JobLock;
+
+public class JobLockDaoTest {
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    private JdbcConnectionPool database;
+    private JobLockDao jobLockDao;
+
+    @Before
+    public void setUp() {
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).migrate();
+
+        jobLockDao = new JobLockDao(database);
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void restore_keepsLockDate() throws Exception {
+
+        // INPUT
+
+        jobLockDao.add("job-1", NOW - 60_000L, NOW - 1_000L);
+        long lockedAt = jobLockDao.findExpired(NOW, 10).get("job-1");
+        jobLockDao.deleteExpired(Collections.singletonList("job-1"), NOW);
+
+        // Taken again meanwhile
+        jobLockDao.add("job-2", NOW - 30_000L, NOW + 60_000L);
+
+        // RUN
+
+        jobLockDao.restore("job-1", lockedAt, NOW);
+        jobLockDao.restore("job-2", NOW - 90_000L, NOW);
+
+        // VERIFY
+
+        JobLock restored = jobLockDao.find("job-1");
+        assertEquals(NOW - 60_000L, (long) restored.getLockedAt());
+        assertEquals(NOW, (long) restored.getExpiresAt());
+
+        // Only the expiration date of the existing lock is changed
+        JobLock existing = jobLockDao.find("job-2");
+        assertEquals(NOW - 30_000L, (long) existing.getLockedAt());
+        assertEquals(NOW, (long) existing.getExpiresAt());
+    }
+
+    @Test
+    public void getMetrics_countedAgainAfterTtl() throws Exception {
+
+        // INPUT
+
+        jobLockDao.add("job-1", NOW - 10_000L, NOW + 60_000L);
+
+        // RUN
+
+        jobLockDao.getMetrics(NOW);
+        jobLockDao.add("job-2", NOW - 20_000L, NOW + 60_000L);
+
+        // VERIFY
+
+        // The cached count, with the age of the oldest lock at the given date
+        assertEquals(1L, jobLockDao.getMetrics(NOW + 1_000L).get("count"));
+        assertEquals(11_000L, jobLockDao.getMetrics(NOW + 1_000L).get("oldest.age.ms"));
+
+        assertEquals(2L, jobLockDao.getMetrics(NOW + 10_000L).get("count"));
+        assertEquals(30_000L, jobLockDao.getMetrics(NOW + 10_000L).get("oldest.age.ms"));
+    }
+
+}
@@ -0,0 +1,163 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * Behavior expected from every {@link JobWakeupDao} implementation.
+ */
+public abstract class JobWakeupDaoContractTest {
+
+    protected JobWakeupDao dao;
+
+    protected abstract JobWakeupDao createDao() throws Exception;
+
+    @Before
+    public void setUp() throws Exception {
+        dao = createDao();
+    }
+
+    @Test
+    public void find_dueWakeupsOrderedByTime() {
+
+        // INPUT
+
+        dao.persist(wakeup("w3", 3000L));
+        dao.persist(wakeup("w1", 1000L));
+        dao.persist(wakeup("w2", 2000L));
+        dao.persist(wakeup("w4", 4000L));
+
+        // RUN
+
+        List<JobWakeup> due = dao.find(3500L, 10);
+        List<JobWakeup> limited = dao.find(3500L, 2);
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w1", "w2", "w3"), ids(due));
+        assertEquals(Arrays.asList("w1", "w2"), ids(limited));
+        assertEquals("callback-w1", due.get(0).getCallback());
+    }
+
+    @Test
+    public void persist_updatesExistingWakeup() {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+
+        JobWakeup update = wakeup("w1", 5000L);
+        update.setRetryCount(3);
+
+        // RUN
+
+        dao.persist(update);
+
+        // VERIFY
+
+        assertTrue(dao.find(4000L, 10).isEmpty());
+
+        List<JobWakeup> due = dao.find(6000L, 10);
+        assertEquals(1, due.size());
+        assertEquals(5000L, due.get(0).getWakeupTime().longValue());
+        assertEquals(3, due.get(0).getRetryCount());
+    }
+
+    @Test
+    public void persist_keepsDeadline() {
+
+        // INPUT
+
+        JobWakeup flexible = wakeup("w1", 1000L);
+        flexible.setDeadline(4000L);
+
+        // RUN
+
+        dao.persist(Arrays.asList(flexible, wakeup("w2", 2000L)));
+
+        // VERIFY
+
+        List<JobWakeup> due = dao.find(3000L, 10);
+        assertEquals(Arrays.asList("w1", "w2"), ids(due));
+        assertEquals(4000L, due.get(0).getDeadline().longValue());
+        assertNull(due.get(1).getDeadline());
+    }
+
+    @Test
+    public void batchOperations() {
+
+        // INPUT
+
+        dao.persist(Arrays.asList(wakeup("w1", 1000L), wakeup("w2", 2000L), wakeup("w3", 3000L)));
+
+        // RUN
+
+        dao.delete(Arrays.asList("w1", "w3"));
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w2"), ids(dao.find(10_000L, 10)));
+
+        dao.deleteAll();
+        assertTrue(dao.find(10_000L, 10).isEmpty());
+    }
+
+    @Test
+    public void claim_onlyUnchangedWakeups() {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+        dao.persist(wakeup("w2", 2000L));
+
+        List<JobWakeup> found = dao.find(3000L, 10);
+
+        // Rescheduled after being found
+        dao.persist(wakeup("w2", 2500L));
+
+        // RUN
+
+        List<JobWakeup> claimed = dao.claim(found, 60_000L);
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w1"), ids(claimed));
+        assertEquals(1000L, claimed.get(0).getWakeupTime().longValue());
+
+        // The claimed wake-up is only due again after its lease
+        assertEquals(Arrays.asList("w2"), ids(dao.find(3000L, 10)));
+        assertEquals(Arrays.asList("w2", "w1"), ids(dao.find(60_001L, 10)));
+
+        // A claim is exclusive
+        assertTrue(dao.claim(found.subList(0, 1), 120_000L).isEmpty());
+    }
+
+    protected static JobWakeup wakeup(String id, long time) {
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(id);
+        wakeup.setWakeupTime(time);
+        wakeup.setCallback("callback-" + id);
+        return wakeup;
+    }
+
+    protected static List<String> ids(List<JobWakeup> wakeups) {
+
+        List<String> ids = new ArrayList<>();
+        for (JobWakeup wakeup : wakeups) {
+            ids.add(wakeup.getId());
+        }
+        return ids;
+    }
+
+}
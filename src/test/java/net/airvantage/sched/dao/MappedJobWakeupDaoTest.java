@@ -0,0 +1,164 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.airvantage.sched.model.JobWakeup;
+
+public class MappedJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected JobWakeupDao createDao() {
+        return open();
+    }
+
+    @After
+    public void tearDown() {
+        ((MappedJobWakeupDao) dao).close();
+    }
+
+    @Test
+    public void recover_replaysTheLog() {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+        dao.persist(wakeup("w2", 2000L));
+        dao.persist(wakeup("w3", 3000L));
+        dao.delete("w2");
+
+        JobWakeup retried = wakeup("w1", 4000L);
+        retried.setRetryCount(2);
+        dao.persist(retried);
+
+        JobWakeup flexible = wakeup("w3", 3000L);
+        flexible.setDeadline(8000L);
+        dao.persist(flexible);
+
+        // RUN
+
+        reopen();
+
+        // VERIFY
+
+        List<JobWakeup> due = dao.find(10_000L, 10);
+        assertEquals(Arrays.asList("w3", "w1"), ids(due));
+        assertEquals(4000L, due.get(1).getWakeupTime().longValue());
+        assertEquals(2, due.get(1).getRetryCount());
+        assertEquals("callback-w1", due.get(1).getCallback());
+        assertNull(due.get(1).getDeadline());
+        assertEquals(8000L, due.get(0).getDeadline().longValue());
+    }
+
+    @Test
+    public void recover_ignoresTornRecord() throws Exception {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+        dao.persist(wakeup("w2", 2000L));
+        ((MappedJobWakeupDao) dao).close();
+
+        // Corrupt the last byte of the last record (before the end marker)
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(file.length() - 5);
+            int last = file.read();
+            file.seek(file.length() - 5);
+            file.write(last ^ 0xFF);
+        }
+
+        // RUN
+
+        dao = open();
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w1"), ids(dao.find(10_000L, 10)));
+
+        // New records are appended to a new segment
+        dao.persist(wakeup("w3", 3000L));
+        reopen();
+        assertEquals(Arrays.asList("w1", "w3"), ids(dao.find(10_000L, 10)));
+    }
+
+    @Test
+    public void compaction_keepsLiveWakeups() throws Exception {
+
+        // INPUT
+
+        // Many updates of a few wake-ups, filling several segments
+        for (int i = 0; i < 30_000; i++) {
+            dao.persist(wakeup("w" + (i % 10), 1000L + i));
+        }
+
+        // RUN
+
+        reopen();
+
+        // VERIFY
+
+        assertEquals(10, ((MappedJobWakeupDao) dao).size());
+        assertTrue(segments().size() < 30_000 * 40 / SEGMENT_SIZE);
+
+        List<JobWakeup> due = dao.find(Long.MAX_VALUE, 100);
+        assertEquals(10, due.size());
+        assertEquals("w0", due.get(0).getId());
+        assertEquals(1000L + 29_990, due.get(0).getWakeupTime().longValue());
+    }
+
+    private MappedJobWakeupDao open() {
+        return new MappedJobWakeupDao(folder.getRoot().toPath(), SEGMENT_SIZE, false, Clock.systemUTC());
+    }
+
+    @Test
+    public void recover_clearedBeforeCompaction() throws Exception {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+        reopen();
+        dao.persist(wakeup("w2", 2000L));
+
+        // RUN
+
+        // Stopped after the clear record of a delete-all, before the previous segments were deleted
+        ((MappedJobWakeupDao) dao).writeClear();
+        dao.persist(wakeup("w3", 3000L));
+        reopen();
+
+        // VERIFY
+
+        assertTrue(segments().size() > 1);
+        assertEquals(Arrays.asList("w3"), ids(dao.find(10_000L, 10)));
+    }
+
+    private void reopen() {
+        ((MappedJobWakeupDao) dao).close();
+        dao = open();
+    }
+
+    private List<Path> segments() throws Exception {
+        return Files.list(folder.getRoot().toPath()).sorted().collect(Collectors.toList());
+    }
+
+}
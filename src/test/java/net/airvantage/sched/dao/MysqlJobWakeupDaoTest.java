@@ -0,0 +1,85 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Test;
+
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.model.JobWakeup;
+
+/**
+ * The {@link MysqlJobWakeupDao} queries, run by H2 in MySQL mode on the migrated schema.
+ */
+public class MysqlJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    private JdbcConnectionPool database;
+
+    @Override
+    protected JobWakeupDao createDao() {
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).migrate();
+
+        return new MysqlJobWakeupDao(database, 100, true, Clock.systemUTC());
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void find_previousVersionCallbacks() throws Exception {
+
+        // INPUT
+
+        dao.persist(wakeup("w1", 1000L));
+
+        // RUN
+
+        // Written by the nodes of the previous version, without the endpoints
+        QueryExecutor executor = new QueryExecutor(database);
+        executor.update("insert into sched_job_wakeups(id, wakeup_time, callback, retry_count) "
+                + "values('w2', 2000, 'http://host/previous', 0)");
+        executor.update("update sched_job_wakeups set callback='http://host/changed' where id='w1'");
+
+        // VERIFY
+
+        List<JobWakeup> due = dao.find(3000L, 10);
+        assertEquals("http://host/changed", due.get(0).getCallback());
+        assertEquals("http://host/previous", due.get(1).getCallback());
+    }
+
+    @Test
+    public void persist_withoutCallbackColumn() throws Exception {
+
+        // INPUT
+
+        new SchemaMigrator(database).then("schema_version_drop_callback", "db/drop-callback").migrate();
+        MysqlJobWakeupDao upgraded = new MysqlJobWakeupDao(database, 100, false, Clock.systemUTC());
+
+        // RUN
+
+        upgraded.persist(wakeup("w1", 1000L));
+        upgraded.persist(wakeup("w1", 1500L));
+
+        // VERIFY
+
+        List<JobWakeup> due = upgraded.find(3000L, 10);
+        assertEquals(1, due.size());
+        assertEquals(1500L, (long) due.get(0).getWakeupTime());
+        assertEquals("callback-w1", due.get(0).getCallback());
+
+        Number columns = new QueryExecutor(database).query("select count(*) from INFORMATION_SCHEMA.COLUMNS "
+                + "where TABLE_NAME='SCHED_JOB_WAKEUPS' and COLUMN_NAME='CALLBACK'", new ScalarHandler<Number>());
+        assertEquals(0, columns.intValue());
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * The {@link PartitionedJobWakeupDao} queries, run by H2 in MySQL mode on a table without partitions.
+ */
+public class PartitionedJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    private static final long HOUR = 3600_000L;
+
+    private JdbcConnectionPool database;
+
+    @Override
+    protected JobWakeupDao createDao() throws Exception {
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+
+        QueryExecutor executor = new QueryExecutor(database);
+        executor.update("CREATE TABLE sched_job_wakeups_part (id VARCHAR(255) NOT NULL, scheduled_time BIGINT NOT NULL, "
+                + "wakeup_time BIGINT NOT NULL, endpoint_id INT, retry_count INT NOT NULL DEFAULT 0, deadline BIGINT, "
+                + "PRIMARY KEY (id, scheduled_time))");
+        executor.update("CREATE TABLE sched_endpoints (id INT AUTO_INCREMENT PRIMARY KEY, url VARCHAR(255) NOT NULL "
+                + "UNIQUE)");
+
+        return new PartitionedJobWakeupDao(database, HOUR, 2 * HOUR, 100, Clock.systemUTC());
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void delete_removesPreviousRows() throws Exception {
+
+        // INPUT
+
+        dao.persist(Arrays.asList(wakeup("w1", 1000L), wakeup("w2", 2000L)));
+
+        // RUN
+
+        dao.persist(wakeup("w1", 5000L));
+        dao.delete("w2");
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w1"), ids(dao.find(10_000L, 10)));
+
+        Number rows = new QueryExecutor(database).query("select count(*) from sched_job_wakeups_part",
+                new ScalarHandler<Number>());
+        assertEquals(1, rows.intValue());
+    }
+
+    @Test
+    public void coveredAhead_lastPartitionWakeups() {
+
+        // INPUT
+
+        long now = 10 * HOUR;
+
+        // RUN & VERIFY
+
+        assertEquals(2 * HOUR, PartitionedJobWakeupDao.coveredAhead(now, null, HOUR, 2 * HOUR));
+        assertEquals(2 * HOUR, PartitionedJobWakeupDao.coveredAhead(now, now + HOUR, HOUR, 2 * HOUR));
+        assertEquals(30 * HOUR, PartitionedJobWakeupDao.coveredAhead(now, now + 30 * HOUR, HOUR, 2 * HOUR));
+        assertEquals(400 * HOUR, PartitionedJobWakeupDao.coveredAhead(now, now + 1000 * HOUR, HOUR, 2 * HOUR));
+    }
+
+    @Test
+    public void newBounds_coverAhead() {
+
+        // INPUT
+
+        long now = 10 * HOUR + HOUR / 2;
+
+        // RUN & VERIFY
+
+        assertEquals(Arrays.asList(11 * HOUR, 12 * HOUR, 13 * HOUR),
+                PartitionedJobWakeupDao.newBounds(0L, now, HOUR, 2 * HOUR));
+        assertEquals(Arrays.asList(13 * HOUR), PartitionedJobWakeupDao.newBounds(12 * HOUR, now, HOUR, 2 * HOUR));
+        assertEquals(Arrays.<Long> asList(), PartitionedJobWakeupDao.newBounds(13 * HOUR, now, HOUR, 2 * HOUR));
+    }
+
+}
@@ -0,0 +1,132 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Test;
+
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.model.JobWakeup;
+
+public class ShardedJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    private List<JdbcConnectionPool> databases = new ArrayList<>();
+    private List<MysqlJobWakeupDao> shards = new ArrayList<>();
+
+    @Override
+    protected JobWakeupDao createDao() {
+
+        for (int i = 0; i < 4; i++) {
+            shards.add(createShard());
+        }
+        return new ShardedJobWakeupDao(shards.subList(0, 3), Collections.<MysqlJobWakeupDao> emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        databases.forEach(JdbcConnectionPool::dispose);
+    }
+
+    @Test
+    public void persist_spreadOverShards() {
+
+        // INPUT
+
+        List<JobWakeup> wakeups = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            wakeups.add(wakeup("w" + i, i));
+        }
+
+        // RUN
+
+        dao.persist(wakeups);
+
+        // VERIFY
+
+        int total = 0;
+        for (MysqlJobWakeupDao shard : shards.subList(0, 3)) {
+            int count = shard.find(Long.MAX_VALUE, 1000).size();
+            assertTrue(count > 50);
+            total += count;
+        }
+        assertEquals(300, total);
+        assertEquals(300, dao.find(Long.MAX_VALUE, 1000).size());
+    }
+
+    @Test
+    public void reshard_movesWakeupsToNewShard() {
+
+        // INPUT
+
+        List<JobWakeup> wakeups = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            wakeups.add(wakeup("w" + i, i));
+        }
+        dao.persist(wakeups);
+
+        // RUN
+
+        ShardedJobWakeupDao migrating = new ShardedJobWakeupDao(shards, shards.subList(0, 3));
+        migrating.persist(wakeup("w0", 5000L));
+        migrating.delete("w1");
+
+        long moved = new WakeupResharder(shards, shards.subList(0, 3), 7).reshard();
+
+        // VERIFY
+
+        ShardedJobWakeupDao resharded = new ShardedJobWakeupDao(shards, Collections.<MysqlJobWakeupDao> emptyList());
+        List<JobWakeup> found = resharded.find(Long.MAX_VALUE, 1000);
+
+        assertEquals(299, found.size());
+        assertEquals("w0", found.get(found.size() - 1).getId());
+        assertEquals(5000L, (long) found.get(found.size() - 1).getWakeupTime());
+
+        int onNewShard = shards.get(3).find(Long.MAX_VALUE, 1000).size();
+        assertTrue(onNewShard > 25 && onNewShard < 150);
+        assertTrue(moved <= onNewShard);
+
+        assertEquals(0L, new WakeupResharder(shards, shards.subList(0, 3), 7).reshard());
+    }
+
+    @Test
+    public void find_whileResharding() {
+
+        // INPUT
+
+        dao.persist(Arrays.asList(wakeup("w1", 1000L), wakeup("w2", 2000L), wakeup("w3", 3000L)));
+
+        ShardedJobWakeupDao migrating = new ShardedJobWakeupDao(shards, shards.subList(0, 3));
+
+        // RUN
+
+        List<JobWakeup> due = migrating.find(2500L, 10);
+        List<String> claimed = ids(migrating.claim(due, 10_000L));
+        Collections.sort(claimed);
+
+        // VERIFY
+
+        assertEquals(Arrays.asList("w1", "w2"), ids(due));
+        assertEquals(Arrays.asList("w1", "w2"), claimed);
+        assertEquals(Arrays.asList("w3"), ids(migrating.find(5000L, 10)));
+    }
+
+    private MysqlJobWakeupDao createShard() {
+
+        JdbcConnectionPool database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL",
+                "sa", "");
+        databases.add(database);
+
+        new SchemaMigrator(database, "db/wakeup-shard", "schema_version_wakeup_shard").migrate();
+        return new MysqlJobWakeupDao(database, 100, true, Clock.systemUTC());
+    }
+
+}
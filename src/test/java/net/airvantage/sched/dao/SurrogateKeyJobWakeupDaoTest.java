@@ -0,0 +1,60 @@
+package net.airvantage.sched.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Test;
+
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.model.JobConfig;
+
+/**
+ * The {@link MysqlJobWakeupDao} and {@link JobConfigDao} queries on tables migrated to surrogate keys.
+ */
+public class SurrogateKeyJobWakeupDaoTest extends JobWakeupDaoContractTest {
+
+    private JdbcConnectionPool database;
+
+    @Override
+    protected JobWakeupDao createDao() {
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).then("schema_version_surrogate_keys", "db/surrogate-keys/wakeups",
+                "db/surrogate-keys/configs").migrate();
+
+        return new MysqlJobWakeupDao(database, 100, true, Clock.systemUTC());
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void jobConfig_persistAndUpdate() {
+
+        // INPUT
+
+        JobConfigDao configDao = new JobConfigDao(database);
+
+        JobConfig config = new JobConfig();
+        config.setId("job-1");
+        config.setUrl("http://test/1");
+        config.setTimeout(1000L);
+
+        // RUN
+
+        configDao.persist(config);
+        config.setUrl("http://test/2");
+        configDao.persist(config);
+
+        // VERIFY
+
+        assertEquals("http://test/2", configDao.find("job-1").getUrl());
+    }
+
+}
@@ -0,0 +1,126 @@
+package net.airvantage.sched.db;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.handlers.ColumnListHandler;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.airvantage.sched.dao.QueryExecutor;
+
+public class ReplicaSetTest {
+
+    private static final String TABLE = "create table sched_replica_heartbeats (node varchar(255) primary key, "
+            + "beat_time bigint not null)";
+
+    private JdbcConnectionPool primary;
+    private JdbcConnectionPool replica;
+
+    private ReplicaSet replicaSet;
+
+    @Before
+    public void setUp() throws Exception {
+
+        primary = createDatabase();
+        replica = createDatabase();
+
+        replicaSet = new ReplicaSet(primary, Arrays.<DataSource> asList(replica), 1_000L, "node-1", Clock.systemUTC());
+    }
+
+    @After
+    public void tearDown() {
+
+        primary.dispose();
+        replica.dispose();
+    }
+
+    @Test
+    public void select_notUsedBeforeFirstCheck() throws Exception {
+
+        // RUN
+        DataSource selected = replicaSet.select();
+
+        // VERIFY
+        Assert.assertNull(selected);
+        Assert.assertEquals(1L, replicaSet.getMetrics().get("fallbacks"));
+    }
+
+    @Test
+    public void select_freshReplica() throws Exception {
+
+        // INPUT
+        new QueryExecutor(replica).update("insert into sched_replica_heartbeats values('node-1', ?)",
+                System.currentTimeMillis());
+
+        // RUN
+        replicaSet.check();
+
+        // VERIFY
+        Assert.assertSame(replica, replicaSet.select());
+        Assert.assertEquals(true, replicaSet.getMetrics().get("0.fresh"));
+    }
+
+    @Test
+    public void select_laggingReplica() throws Exception {
+
+        // INPUT
+        new QueryExecutor(replica).update("insert into sched_replica_heartbeats values('node-1', ?)",
+                System.currentTimeMillis() - 60_000L);
+
+        // RUN
+        replicaSet.check();
+
+        // VERIFY
+        Assert.assertNull(replicaSet.select());
+        Assert.assertEquals(false, replicaSet.getMetrics().get("0.fresh"));
+        Assert.assertTrue((Long) replicaSet.getMetrics().get("0.lag.ms") >= 60_000L);
+    }
+
+    @Test
+    public void check_writesPrimaryHeartbeat() throws Exception {
+
+        // RUN
+        replicaSet.check();
+        replicaSet.check();
+
+        // VERIFY
+        Number count = new QueryExecutor(primary).query("select count(*) from sched_replica_heartbeats where node=?",
+                rs -> rs.next() ? (Number) rs.getObject(1) : null, "node-1");
+        Assert.assertEquals(1, count.intValue());
+    }
+
+    @Test
+    public void check_purgesStaleHeartbeats() throws Exception {
+
+        // INPUT
+        long now = System.currentTimeMillis();
+        QueryExecutor executor = new QueryExecutor(primary);
+        executor.update("insert into sched_replica_heartbeats values('node-0', ?)", now - 7_200_000L);
+        executor.update("insert into sched_replica_heartbeats values('node-2', ?)", now - 1_000L);
+
+        // RUN
+        replicaSet.check();
+
+        // VERIFY
+        List<String> nodes = executor.query("select node from sched_replica_heartbeats order by node",
+                new ColumnListHandler<String>());
+        Assert.assertEquals(Arrays.asList("node-1", "node-2"), nodes);
+    }
+
+    private static JdbcConnectionPool createDatabase() throws Exception {
+
+        JdbcConnectionPool pool = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa",
+                "");
+        new QueryExecutor(pool).update(TABLE);
+        return pool;
+    }
+
+}
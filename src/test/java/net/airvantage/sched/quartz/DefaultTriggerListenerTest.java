@@ -1,5 +1,7 @@
 package net.airvantage.sched.quartz;
 
+import java.time.Clock;
+
 import net.airvantage.sched.app.exceptions.AppException;
 import net.airvantage.sched.model.JobLock;
 import net.airvantage.sched.model.JobState;
@@ -26,7 +28,7 @@ public class DefaultTriggerListenerTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        service = new DefaultTriggerListener(jobStateService);
+        service = new DefaultTriggerListener(jobStateService, Clock.systemUTC());
     }
 
     @Test
@@ -109,7 +111,7 @@ public class DefaultTriggerListenerTest {
         Mockito.when(jobStateService.find(Mockito.eq(jobId))).thenReturn(jobState);
         Mockito.when(jobState.getLock()).thenReturn(jobLock);
         Mockito.when(jobLock.isLocked()).thenReturn(true);
-        Mockito.when(jobLock.isExpired()).thenReturn(true);
+        Mockito.when(jobLock.isExpired(Mockito.anyLong())).thenReturn(true);
 
         // RUN
 
@@ -0,0 +1,98 @@
+package net.airvantage.sched.quartz;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResizableThreadPoolTest {
+
+    private ResizableThreadPool pool;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() throws Exception {
+
+        pool = new ResizableThreadPool();
+        pool.setInstanceName("test-scheduler");
+        pool.setThreadCount(2);
+        pool.initialize();
+
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+
+        release.countDown();
+        pool.shutdown(true);
+    }
+
+    @Test
+    public void runInThread_rejectedWhenAllThreadsBusy() throws Exception {
+
+        // RUN
+        boolean first = pool.runInThread(this::block);
+        boolean second = pool.runInThread(this::block);
+        boolean third = pool.runInThread(this::block);
+
+        // VERIFY
+        Assert.assertTrue(first);
+        Assert.assertTrue(second);
+        Assert.assertFalse(third);
+        Assert.assertSame(pool, ResizableThreadPool.forScheduler("test-scheduler"));
+    }
+
+    @Test
+    public void setThreadCount_growWhileRunning() throws Exception {
+
+        // INPUT
+        pool.runInThread(this::block);
+        pool.runInThread(this::block);
+
+        // RUN
+        pool.setThreadCount(3);
+
+        // VERIFY
+        Assert.assertEquals(1, pool.blockForAvailableThreads());
+        Assert.assertTrue(pool.runInThread(this::block));
+        Assert.assertEquals(3, pool.getPoolSize());
+    }
+
+    @Test
+    public void setThreadCount_shrinkWaitsForRunningJobs() throws Exception {
+
+        // INPUT
+        CountDownLatch done = new CountDownLatch(2);
+        pool.runInThread(() -> {
+            block();
+            done.countDown();
+        });
+        pool.runInThread(() -> {
+            block();
+            done.countDown();
+        });
+
+        // RUN
+        pool.setThreadCount(1);
+
+        // VERIFY
+        Assert.assertFalse(pool.runInThread(this::block));
+
+        release.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, pool.blockForAvailableThreads());
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
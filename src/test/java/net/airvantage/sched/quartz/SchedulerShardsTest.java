@@ -0,0 +1,83 @@
+package net.airvantage.sched.quartz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+public class SchedulerShardsTest {
+
+    private SchedulerShards shards;
+
+    @Mock
+    private Scheduler first;
+
+    @Mock
+    private Scheduler second;
+
+    @Mock
+    private Scheduler third;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        shards = new SchedulerShards(Arrays.asList(first, second, third));
+    }
+
+    @Test
+    public void schedulerName_firstKeepsSingleName() {
+
+        assertEquals("av_sched_clustered", SchedulerShards.schedulerName(0));
+        assertEquals("av_sched_clustered_2", SchedulerShards.schedulerName(2));
+    }
+
+    @Test
+    public void shardOf_spreadsJobs() {
+
+        // RUN
+
+        int[] counts = new int[3];
+        for (int i = 0; i < 3000; i++) {
+            Scheduler shard = shards.shardOf("job-" + i);
+            counts[shard == first ? 0 : (shard == second ? 1 : 2)]++;
+
+            assertSame(shard, shards.shardOf("job-" + i));
+        }
+
+        // VERIFY
+
+        for (int count : counts) {
+            assertTrue(count > 800);
+        }
+    }
+
+    @Test
+    public void locate_jobOnAnotherShard() throws SchedulerException {
+
+        // INPUT
+
+        String jobId = "job-1";
+        Scheduler routed = shards.shardOf(jobId);
+        Scheduler other = (routed == third) ? first : third;
+
+        // MOCK
+
+        Mockito.when(other.checkExists(new JobKey(jobId))).thenReturn(true);
+
+        // RUN & VERIFY
+
+        assertSame(other, shards.locate(jobId));
+        assertSame(shards.shardOf("job-2"), shards.locate("job-2"));
+    }
+
+}
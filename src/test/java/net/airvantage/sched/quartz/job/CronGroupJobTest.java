@@ -0,0 +1,174 @@
+package net.airvantage.sched.quartz.job;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+
+import net.airvantage.sched.dao.CronGroupDao;
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.services.tech.FanOutDispatcher;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+
+public class CronGroupJobTest {
+
+    private static final String CRON_EXPR = "0 * * * * ?";
+
+    private CronGroupJob job;
+
+    private JdbcConnectionPool database;
+    private CronGroupDao cronGroupDao;
+
+    @Mock
+    private FanOutDispatcher fanOutDispatcher;
+
+    @Mock
+    private JobExecutionContext context;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).migrate();
+
+        cronGroupDao = new CronGroupDao(database);
+        job = new CronGroupJob(cronGroupDao, fanOutDispatcher, Clock.systemUTC());
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void execute_dispatchesAllPages() throws Exception {
+
+        // INPUT
+
+        // More members than a page, and a member of another group
+        int size = 2_500;
+        for (int i = 0; i < size; i++) {
+            cronGroupDao.persist(String.format("job-%05d", i), CRON_EXPR, 0L);
+        }
+        cronGroupDao.persist("job-other", "0 0 * * * ?", 0L);
+
+        // MOCK
+
+        mockContext();
+        Mockito.when(fanOutDispatcher.dispatch(Mockito.anyString(), Mockito.anyLong())).thenReturn(true);
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        // Each member of the group dispatched once
+        ArgumentCaptor<String> idCaptor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(fanOutDispatcher, Mockito.times(size)).dispatch(idCaptor.capture(), Mockito.anyLong());
+
+        Set<String> dispatched = new HashSet<>(idCaptor.getAllValues());
+        assertEquals(size, dispatched.size());
+        assertEquals(false, dispatched.contains("job-other"));
+    }
+
+    @Test
+    public void execute_skippedMembersDoNotStopTheGroup() throws Exception {
+
+        // INPUT
+
+        cronGroupDao.persist("job-1", CRON_EXPR, 0L);
+        cronGroupDao.persist("job-2", CRON_EXPR, 0L);
+
+        // MOCK
+
+        mockContext();
+
+        // The first member still running from the previous fire
+        Mockito.when(fanOutDispatcher.dispatch(Mockito.eq("job-1"), Mockito.anyLong())).thenReturn(false);
+        Mockito.when(fanOutDispatcher.dispatch(Mockito.eq("job-2"), Mockito.anyLong())).thenReturn(true);
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        Mockito.verify(fanOutDispatcher).dispatch(Mockito.eq("job-1"), Mockito.anyLong());
+        Mockito.verify(fanOutDispatcher).dispatch(Mockito.eq("job-2"), Mockito.anyLong());
+
+        // The skipped fire is not kept, the dispatched one is stored until claimed
+        Map<String, Long> fires = cronGroupDao.findFires(Long.MAX_VALUE, 10);
+        assertEquals(Collections.singleton("job-2"), fires.keySet());
+    }
+
+    @Test
+    public void execute_storesFiresAtSplayOffset() throws Exception {
+
+        // INPUT
+
+        cronGroupDao.persist("job-1", CRON_EXPR, 0L);
+        cronGroupDao.persist("job-2", CRON_EXPR, 30_000L);
+        cronGroupDao.persist("job-3", CRON_EXPR, 0L);
+
+        // A fire of the third member still pending
+        cronGroupDao.addFires(Collections.singletonMap("job-3", 1_000L));
+
+        // MOCK
+
+        Date fireTime = mockContext();
+        Mockito.when(fanOutDispatcher.dispatch(Mockito.anyString(), Mockito.anyLong())).thenReturn(true);
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        long splayed = fireTime.getTime() + RecurrenceHelper.splayOffset("job-2", 30_000L);
+
+        Map<String, Long> fires = cronGroupDao.findFires(Long.MAX_VALUE, 10);
+        assertEquals(fireTime.getTime(), (long) fires.get("job-1"));
+        assertEquals(splayed, (long) fires.get("job-2"));
+        assertEquals(1_000L, (long) fires.get("job-3"));
+
+        Mockito.verify(fanOutDispatcher).dispatch("job-1", fireTime.getTime());
+        Mockito.verify(fanOutDispatcher).dispatch("job-2", splayed);
+        Mockito.verify(fanOutDispatcher, Mockito.never()).dispatch(Mockito.eq("job-3"), Mockito.anyLong());
+    }
+
+    private Date mockContext() {
+
+        JobDetail detail = Mockito.mock(JobDetail.class);
+        Mockito.when(detail.getKey()).thenReturn(new JobKey("internal/cron-group/test"));
+
+        CronTrigger trigger = Mockito.mock(CronTrigger.class);
+        Mockito.when(trigger.getCronExpression()).thenReturn(CRON_EXPR);
+
+        Mockito.when(context.getJobDetail()).thenReturn(detail);
+        Mockito.when(context.getTrigger()).thenReturn(trigger);
+        Date fireTime = new Date();
+        Mockito.when(context.getScheduledFireTime()).thenReturn(fireTime);
+        return fireTime;
+    }
+
+}
@@ -0,0 +1,129 @@
+package net.airvantage.sched.quartz.job;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+
+import net.airvantage.sched.services.tech.JobExecutionHelper;
+import net.airvantage.sched.services.tech.RecurrenceHelper;
+
+public class CronJobTest {
+
+    private static final long SPLAY = 60_000L;
+
+    private CronJob job;
+
+    @Mock
+    private JobExecutionHelper jobExecutionHelper;
+
+    @Mock
+    private JobExecutionContext context;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Mock
+    private Trigger trigger;
+
+    @Before
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+        job = new CronJob(jobExecutionHelper);
+    }
+
+    @Test
+    public void execute_splayedFireStored() throws Exception {
+
+        // INPUT
+
+        long fireTime = 1_500_000_000_000L;
+        JobDataMap data = new JobDataMap();
+        data.put(CronJob.SPLAY, SPLAY);
+
+        // MOCK
+
+        mockContext("job-1", data, fireTime);
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        // Fired later by a one-shot trigger stored by Quartz, not at once
+        ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass(Trigger.class);
+        Mockito.verify(scheduler).scheduleJob(triggerCaptor.capture());
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.anyString());
+
+        Trigger splayed = triggerCaptor.getValue();
+        assertEquals(new JobKey("job-1"), splayed.getJobKey());
+        assertEquals(fireTime + RecurrenceHelper.splayOffset("job-1", SPLAY), splayed.getStartTime().getTime());
+        assertEquals(false, splayed.getJobDataMap().containsKey(CronJob.SPLAY));
+    }
+
+    @Test
+    public void execute_splayedFireStillPending() throws Exception {
+
+        // MOCK
+
+        JobDataMap data = new JobDataMap();
+        data.put(CronJob.SPLAY, SPLAY);
+        mockContext("job-1", data, System.currentTimeMillis());
+
+        Mockito.when(scheduler.scheduleJob(Mockito.any(Trigger.class)))
+                .thenThrow(new ObjectAlreadyExistsException("pending"));
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.anyString());
+    }
+
+    @Test
+    public void execute_withoutSplay() throws Exception {
+
+        // MOCK
+
+        mockContext("job-1", new JobDataMap(), System.currentTimeMillis());
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        Mockito.verify(jobExecutionHelper).execute("job-1");
+        Mockito.verify(scheduler, Mockito.never()).scheduleJob(Mockito.any(Trigger.class));
+    }
+
+    private void mockContext(String jobId, JobDataMap data, long fireTime) {
+
+        JobDetail detail = Mockito.mock(JobDetail.class);
+        Mockito.when(detail.getKey()).thenReturn(new JobKey(jobId));
+        Mockito.when(trigger.getJobDataMap()).thenReturn(data);
+
+        Mockito.when(context.getJobDetail()).thenReturn(detail);
+        Mockito.when(context.getTrigger()).thenReturn(trigger);
+        Mockito.when(context.getScheduler()).thenReturn(scheduler);
+        Mockito.when(context.getScheduledFireTime()).thenReturn(new Date(fireTime));
+    }
+
+}
@@ -0,0 +1,118 @@
+package net.airvantage.sched.quartz.job;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+
+import net.airvantage.sched.dao.InMemoryJobWakeupDao;
+import net.airvantage.sched.model.JobWakeup;
+import net.airvantage.sched.services.tech.JobExecutionHelper;
+import net.airvantage.sched.services.tech.SimulatedClock;
+import net.airvantage.sched.services.tech.WakeupLeveler;
+
+public class WakeupJobTest {
+
+    private static final long NOW = 1_500_000_000_000L;
+    private static final long LEASE = 300_000L;
+
+    private SimulatedClock clock;
+    private InMemoryJobWakeupDao jobWakeupDao;
+
+    @Mock
+    private JobExecutionHelper jobExecutionHelper;
+
+    @Mock
+    private JobExecutionContext context;
+
+    @Mock
+    private JobDetail jobDetail;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        clock = new SimulatedClock(NOW);
+        jobWakeupDao = new InMemoryJobWakeupDao(clock);
+
+        Mockito.when(context.getJobDetail()).thenReturn(jobDetail);
+        Mockito.when(jobDetail.getKey()).thenReturn(new JobKey("wakeup"));
+    }
+
+    @Test
+    public void execute_levelsFlexibleWakeups() throws Exception {
+
+        // INPUT
+
+        WakeupJob job = new WakeupJob(jobExecutionHelper, jobWakeupDao, 2, clock, LEASE, null, null,
+                new WakeupLeveler(2, clock));
+
+        jobWakeupDao.persist(wakeup("flexible-1", NOW + 60_000L));
+        jobWakeupDao.persist(wakeup("strict-1", null));
+        jobWakeupDao.persist(wakeup("flexible-2", NOW + 30_000L));
+        jobWakeupDao.persist(wakeup("strict-2", null));
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        ArgumentCaptor<JobWakeup> fired = ArgumentCaptor.forClass(JobWakeup.class);
+        Mockito.verify(jobExecutionHelper, Mockito.times(2)).execute(fired.capture());
+        Set<String> ids = new HashSet<>();
+        for (JobWakeup wakeup : fired.getAllValues()) {
+            ids.add(wakeup.getId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("strict-1", "strict-2")), ids);
+
+        // The flexible wake-ups are released with the next second, keeping their deadline
+        List<JobWakeup> postponed = jobWakeupDao.find(NOW + 1001L, 10);
+        assertEquals(2, postponed.size());
+        assertEquals(NOW + 1000L, (long) postponed.get(0).getWakeupTime());
+        assertEquals("flexible-1", postponed.get(0).getId());
+        assertEquals(NOW + 60_000L, (long) postponed.get(0).getDeadline());
+    }
+
+    @Test
+    public void execute_withoutLeveler() throws Exception {
+
+        // INPUT
+
+        WakeupJob job = new WakeupJob(jobExecutionHelper, jobWakeupDao, 2, clock, LEASE, null, null, null);
+
+        jobWakeupDao.persist(wakeup("flexible-1", NOW + 60_000L));
+        jobWakeupDao.persist(wakeup("strict-1", null));
+
+        // RUN
+
+        job.execute(context);
+
+        // VERIFY
+
+        Mockito.verify(jobExecutionHelper, Mockito.times(2)).execute(Mockito.any(JobWakeup.class));
+    }
+
+    private static JobWakeup wakeup(String id, Long deadline) {
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(id);
+        wakeup.setCallback("http://localhost/callback");
+        wakeup.setWakeupTime(NOW - 1000L);
+        wakeup.setDeadline(deadline);
+        return wakeup;
+    }
+
+}
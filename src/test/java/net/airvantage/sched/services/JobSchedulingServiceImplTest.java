@@ -3,6 +3,14 @@ package net.airvantage.sched.services;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,23 +19,32 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
 
 import net.airvantage.sched.TestUtils;
 import net.airvantage.sched.app.exceptions.AppException;
+import net.airvantage.sched.dao.CronGroupDao;
 import net.airvantage.sched.dao.JobConfigDao;
 import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobRecurrenceDao;
 import net.airvantage.sched.dao.JobSchedulingDao;
 import net.airvantage.sched.dao.JobWakeupDao;
 import net.airvantage.sched.model.JobConfig;
 import net.airvantage.sched.model.JobDef;
+import net.airvantage.sched.model.JobRecurrence;
 import net.airvantage.sched.model.JobScheduling;
+import net.airvantage.sched.model.JobSchedulingType;
 import net.airvantage.sched.model.JobWakeup;
+import net.airvantage.sched.quartz.SchedulerShards;
+import net.airvantage.sched.quartz.job.CronGroupJob;
 import net.airvantage.sched.quartz.job.CronJob;
 import net.airvantage.sched.services.impl.JobSchedulingServiceImpl;
+import net.airvantage.sched.services.tech.IdGenerator;
 
 public class JobSchedulingServiceImplTest {
 
@@ -57,8 +74,9 @@ public class JobSchedulingServiceImplTest {
     public void setUp() {
 
         MockitoAnnotations.initMocks(this);
-        service = new JobSchedulingServiceImpl(scheduler, jobStateService, jobConfigDao, jobLockDao, jobSchedulingDao,
-                jobWakeupDao, CRON_EXPR);
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), null, null, 0L, null, null, false);
     }
 
     @Test
@@ -75,7 +93,7 @@ public class JobSchedulingServiceImplTest {
 
         // VERIFY
 
-        Mockito.verify(jobConfigDao).persist(Mockito.eq(jobDef.getConfig()));
+        Mockito.verify(jobConfigDao).persist(Mockito.eq(jobDef.getConfig()), Mockito.anyLong());
 
         ArgumentCaptor<JobDetail> detailCaptor = ArgumentCaptor.forClass(JobDetail.class);
         Mockito.verify(this.scheduler).addJob(detailCaptor.capture(), Mockito.eq(true));
@@ -90,6 +108,206 @@ public class JobSchedulingServiceImplTest {
         Trigger trigger = triggerCaptor.getValue();
         Assert.assertEquals(CronScheduleBuilder.class, trigger.getScheduleBuilder().getClass());
         Assert.assertEquals(detail.getKey(), trigger.getJobKey());
+        Assert.assertEquals(Trigger.MISFIRE_INSTRUCTION_SMART_POLICY, trigger.getMisfireInstruction());
+    }
+
+    @Test
+    public void scheduleJob_cronSkipMisfires() throws Exception {
+
+        // INPUT
+
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), null, null, 0L, null, null, true);
+
+        JobDef jobDef = TestUtils.cronJobDef("jobid", CRON_EXPR);
+
+        // RUN
+
+        service.scheduleJob(jobDef);
+
+        // VERIFY
+
+        ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass(Trigger.class);
+        Mockito.verify(this.scheduler).scheduleJob(triggerCaptor.capture());
+
+        Assert.assertEquals(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING, triggerCaptor.getValue().getMisfireInstruction());
+    }
+
+    @Test
+    public void scheduleJob_cronUnchanged() throws Exception {
+
+        // INPUT
+
+        String jobId = "jobid";
+        service.scheduleJob(TestUtils.cronJobDef(jobId, CRON_EXPR));
+
+        ArgumentCaptor<Long> hashCaptor = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(jobConfigDao).persist(Mockito.any(JobConfig.class), hashCaptor.capture());
+
+        // MOCK
+
+        Mockito.when(jobConfigDao.findDefHashes(Arrays.asList(jobId)))
+                .thenReturn(Collections.singletonMap(jobId, hashCaptor.getValue()));
+
+        // RUN
+
+        service.scheduleJob(TestUtils.cronJobDef(jobId, CRON_EXPR));
+        service.scheduleJob(TestUtils.cronJobDef(jobId, "0 0 7 1 1/12 ? *"));
+
+        // VERIFY
+
+        // The same job registered again is not written, a changed one is
+        Mockito.verify(this.scheduler, Mockito.times(2)).addJob(Mockito.any(JobDetail.class), Mockito.eq(true));
+        Mockito.verify(jobConfigDao, Mockito.times(2)).persist(Mockito.any(JobConfig.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void scheduleJob_cronGroup() throws Exception {
+
+        // INPUT
+
+        CronGroupDao cronGroupDao = Mockito.mock(CronGroupDao.class);
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), null, cronGroupDao, 0L, null, null, false);
+
+        JobDef first = TestUtils.cronJobDef("job-1", CRON_EXPR);
+        JobDef second = TestUtils.cronJobDef("job-2", CRON_EXPR);
+
+        // MOCK
+
+        // The Quartz job of the group exists once added
+        Set<JobKey> added = new HashSet<>();
+        Mockito.doAnswer(invocation -> added.add(((JobDetail) invocation.getArguments()[0]).getKey()))
+                .when(scheduler).addJob(Mockito.any(JobDetail.class), Mockito.eq(true));
+        Mockito.when(scheduler.checkExists(Mockito.any(JobKey.class)))
+                .thenAnswer(invocation -> added.contains(invocation.getArguments()[0]));
+
+        // RUN
+
+        service.scheduleJob(first);
+        service.scheduleJob(second);
+
+        // VERIFY
+
+        Mockito.verify(jobConfigDao).persist(Mockito.eq(first.getConfig()));
+        Mockito.verify(cronGroupDao).persist("job-1", CRON_EXPR, 0L);
+        Mockito.verify(cronGroupDao).persist("job-2", CRON_EXPR, 0L);
+
+        // A single Quartz job and trigger, shared by the group
+        ArgumentCaptor<JobDetail> detailCaptor = ArgumentCaptor.forClass(JobDetail.class);
+        Mockito.verify(this.scheduler).addJob(detailCaptor.capture(), Mockito.eq(true));
+        Mockito.verify(this.scheduler).scheduleJob(Mockito.any(Trigger.class));
+
+        Assert.assertEquals(CronGroupJob.class, detailCaptor.getValue().getJobClass());
+    }
+
+    @Test
+    public void unscheduleJob_lastCronGroupMember() throws Exception {
+
+        // INPUT
+
+        CronGroupDao cronGroupDao = Mockito.mock(CronGroupDao.class);
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), null, cronGroupDao, 0L, null, null, false);
+
+        JobScheduling member = new JobScheduling();
+        member.setType(JobSchedulingType.CRON);
+        member.setValue(CRON_EXPR);
+
+        // MOCK
+
+        Mockito.when(cronGroupDao.find("job-1")).thenReturn(member);
+        Mockito.when(cronGroupDao.find("job-2")).thenReturn(member);
+        Mockito.when(cronGroupDao.findMembers(CRON_EXPR, "", 1))
+                .thenReturn(Collections.singletonMap("job-2", 0L), Collections.<String, Long> emptyMap());
+
+        // RUN
+
+        Assert.assertTrue(service.unscheduleJob("job-1"));
+        Assert.assertTrue(service.unscheduleJob("job-2"));
+
+        // VERIFY
+
+        // Only the Quartz job of the group is deleted, once its last member is removed
+        Mockito.verify(cronGroupDao).delete("job-1");
+        Mockito.verify(cronGroupDao).delete("job-2");
+
+        ArgumentCaptor<JobKey> keyCaptor = ArgumentCaptor.forClass(JobKey.class);
+        Mockito.verify(scheduler, Mockito.times(3)).deleteJob(keyCaptor.capture());
+        Assert.assertEquals(Arrays.asList("job-1", "job-2"), Arrays.asList(keyCaptor.getAllValues().get(0).getName(),
+                keyCaptor.getAllValues().get(1).getName()));
+        Assert.assertTrue(keyCaptor.getAllValues().get(2).getName().startsWith("internal/cron-group/"));
+    }
+
+    @Test
+    public void rescheduleJob_cronGroupMoved() throws Exception {
+
+        // INPUT
+
+        CronGroupDao cronGroupDao = Mockito.mock(CronGroupDao.class);
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), null, cronGroupDao, 0L, null, null, false);
+
+        JobScheduling member = new JobScheduling();
+        member.setType(JobSchedulingType.CRON);
+        member.setValue(CRON_EXPR);
+
+        String otherExpr = "0 0 7 1 1/12 ? *";
+        JobScheduling conf = TestUtils.cronJobDef("job-1", otherExpr).getScheduling();
+
+        // MOCK
+
+        Mockito.when(cronGroupDao.find("job-1")).thenReturn(member);
+        Mockito.when(cronGroupDao.findMembers(CRON_EXPR, "", 1)).thenReturn(Collections.<String, Long> emptyMap());
+
+        // RUN
+
+        service.rescheduleJob("job-1", conf);
+
+        // VERIFY
+
+        // The group of the new expression is created, the one left empty is deleted
+        Mockito.verify(cronGroupDao).persist("job-1", otherExpr, 0L);
+
+        ArgumentCaptor<JobDetail> detailCaptor = ArgumentCaptor.forClass(JobDetail.class);
+        Mockito.verify(scheduler).addJob(detailCaptor.capture(), Mockito.eq(true));
+        Assert.assertEquals(CronGroupJob.class, detailCaptor.getValue().getJobClass());
+
+        ArgumentCaptor<JobKey> keyCaptor = ArgumentCaptor.forClass(JobKey.class);
+        Mockito.verify(scheduler).deleteJob(keyCaptor.capture());
+        Assert.assertTrue(keyCaptor.getValue().getName().startsWith("internal/cron-group/"));
+        Assert.assertNotEquals(detailCaptor.getValue().getKey(), keyCaptor.getValue());
+    }
+
+    @Test
+    public void scheduleJob_cronTable() throws Exception {
+
+        // INPUT
+
+        JobRecurrenceDao jobRecurrenceDao = Mockito.mock(JobRecurrenceDao.class);
+        service = new JobSchedulingServiceImpl(new SchedulerShards(Arrays.asList(scheduler)), jobStateService,
+                jobConfigDao, jobLockDao, jobSchedulingDao, jobWakeupDao, CRON_EXPR, Clock.systemUTC(),
+                new IdGenerator(1, Clock.systemUTC()), jobRecurrenceDao, null, 0L, null, null, false);
+
+        JobDef jobDef = TestUtils.cronJobDef("job-1", CRON_EXPR);
+
+        // MOCK
+
+        // Scheduled with Quartz before the table engine was enabled
+        Mockito.when(scheduler.checkExists(new JobKey("job-1"))).thenReturn(true);
+
+        // RUN
+
+        service.scheduleJob(jobDef);
+
+        // VERIFY
+
+        Mockito.verify(jobRecurrenceDao).persist(Mockito.any(JobRecurrence.class));
+        Mockito.verify(scheduler).deleteJob(new JobKey("job-1"));
     }
 
     @Test
@@ -115,6 +333,32 @@ public class JobSchedulingServiceImplTest {
         Assert.assertEquals(jobId, wakeup.getId());
         Assert.assertEquals(jobDef.getScheduling().getValue(), wakeup.getWakeupTime().toString());
         Assert.assertEquals(jobDef.getConfig().getUrl(), wakeup.getCallback());
+        Assert.assertNull(wakeup.getDeadline());
+    }
+
+    @Test
+    public void scheduleJob_wakeupTolerance() throws Exception {
+
+        // INPUT
+
+        long startAt = System.currentTimeMillis();
+
+        JobDef jobDef = TestUtils.wakeupJobDef("jobid", startAt);
+        jobDef.getScheduling().setTolerance(30_000L);
+
+        // RUN
+
+        service.scheduleJob(jobDef);
+
+        // VERIFY
+
+        // Stored at its time with its deadline, leveled by the wake-ups timer
+        ArgumentCaptor<JobWakeup> wakeupCaptor = ArgumentCaptor.forClass(JobWakeup.class);
+        Mockito.verify(jobWakeupDao).persist(wakeupCaptor.capture());
+
+        JobWakeup wakeup = wakeupCaptor.getValue();
+        Assert.assertEquals(startAt, (long) wakeup.getWakeupTime());
+        Assert.assertEquals(startAt + 30_000L, (long) wakeup.getDeadline());
     }
 
     @Test
@@ -135,7 +379,7 @@ public class JobSchedulingServiceImplTest {
 
         // VERIFY
 
-        Mockito.verify(jobConfigDao).persist(Mockito.eq(jobDef.getConfig()));
+        Mockito.verify(jobConfigDao).persist(Mockito.eq(jobDef.getConfig()), Mockito.anyLong());
 
         ArgumentCaptor<JobDetail> detailCaptor = ArgumentCaptor.forClass(JobDetail.class);
         Mockito.verify(this.scheduler).addJob(detailCaptor.capture(), Mockito.eq(true));
@@ -172,6 +416,74 @@ public class JobSchedulingServiceImplTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void scheduleJobs_cron() throws Exception {
+
+        // INPUT
+
+        JobDef first = TestUtils.cronJobDef("job-1", CRON_EXPR);
+        JobDef second = TestUtils.cronJobDef("job-2", CRON_EXPR);
+        JobDef invalid = TestUtils.cronJobDef("job-3", "foo");
+
+        // RUN
+
+        List<AppException> errors = service.scheduleJobs(Arrays.asList(first, invalid, second));
+
+        // VERIFY
+
+        Assert.assertEquals(3, errors.size());
+        Assert.assertNull(errors.get(0));
+        Assert.assertEquals("invalid.schedule.value", errors.get(1).getError());
+        Assert.assertNull(errors.get(2));
+
+        // A single Quartz transaction and a single batch of configurations
+        ArgumentCaptor<Map> jobsCaptor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(this.scheduler).scheduleJobs(jobsCaptor.capture(), Mockito.eq(true));
+        Mockito.verify(this.scheduler, Mockito.never()).addJob(Mockito.any(JobDetail.class), Mockito.anyBoolean());
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = jobsCaptor.getValue();
+        Assert.assertEquals(2, jobs.size());
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> job : jobs.entrySet()) {
+            Assert.assertEquals(CronJob.class, job.getKey().getJobClass());
+            Assert.assertEquals(job.getKey().getKey(), job.getValue().iterator().next().getJobKey());
+        }
+
+        ArgumentCaptor<List> configsCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jobConfigDao).persistAll(configsCaptor.capture(), Mockito.anyList());
+        Assert.assertEquals(Arrays.asList(first.getConfig(), second.getConfig()), configsCaptor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void scheduleJobs_invalidElements() throws Exception {
+
+        // INPUT
+
+        JobDef valid = TestUtils.cronJobDef("job-1", CRON_EXPR);
+        JobDef duplicate = TestUtils.cronJobDef("job-2", CRON_EXPR);
+        JobDef other = TestUtils.cronJobDef("job-2", "0 0 7 1 1/12 ? *");
+        JobDef noScheduling = TestUtils.cronJobDef("job-3", CRON_EXPR);
+        noScheduling.setScheduling(null);
+
+        // RUN
+
+        List<AppException> errors = service.scheduleJobs(Arrays.asList(valid, null, duplicate, noScheduling, other));
+
+        // VERIFY
+
+        // Each invalid element fails alone, both registrations of a duplicated job are rejected
+        Assert.assertNull(errors.get(0));
+        Assert.assertEquals("missing.job.def", errors.get(1).getError());
+        Assert.assertEquals("duplicated.job.id", errors.get(2).getError());
+        Assert.assertEquals("missing.job.def", errors.get(3).getError());
+        Assert.assertEquals("duplicated.job.id", errors.get(4).getError());
+
+        ArgumentCaptor<List> configsCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jobConfigDao).persistAll(configsCaptor.capture(), Mockito.anyList());
+        Assert.assertEquals(Arrays.asList(valid.getConfig()), configsCaptor.getValue());
+    }
+
     // TODO(pht) test that validation raises exceptions on invalid job def
     // TODO(pht) maybe, just one change detector test for schedule Job ?
 
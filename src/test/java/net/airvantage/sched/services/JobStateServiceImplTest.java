@@ -0,0 +1,182 @@
+package net.airvantage.sched.services;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import net.airvantage.sched.dao.JobConfigDao;
+import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobSchedulingDao;
+import net.airvantage.sched.model.JobConfig;
+import net.airvantage.sched.model.JobLock;
+import net.airvantage.sched.quartz.SchedulerShards;
+import net.airvantage.sched.services.impl.JobStateServiceImpl;
+
+public class JobStateServiceImplTest {
+
+    private static final long LOCKED_AT = 1_400_000_000_000L;
+
+    private JobStateServiceImpl service;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Mock
+    private JobConfigDao jobConfigDao;
+
+    @Mock
+    private JobLockDao jobLockDao;
+
+    @Mock
+    private JobSchedulingDao jobSchedulingDao;
+
+    @Before
+    public void setUp() throws Exception {
+
+        MockitoAnnotations.initMocks(this);
+        service = new JobStateServiceImpl(jobConfigDao, jobLockDao, jobSchedulingDao,
+                new SchedulerShards(Arrays.asList(scheduler)), Clock.systemUTC());
+
+        JobConfig config = new JobConfig();
+        config.setId("job-1");
+        config.setTimeout(60_000L);
+
+        Mockito.when(jobConfigDao.find("job-1")).thenReturn(config);
+        Mockito.when(jobLockDao.find("job-1")).thenReturn(new JobLock());
+    }
+
+    @Test
+    public void lockJob_pausesTriggers() throws Exception {
+
+        // INPUT
+
+        JobKey key = new JobKey("job-1");
+        Mockito.when(scheduler.checkExists(key)).thenReturn(true);
+        Mockito.when(jobLockDao.delete("job-1")).thenReturn(true);
+
+        // RUN
+
+        service.lockJob("job-1");
+        service.unlockJob("job-1");
+
+        // VERIFY
+
+        Mockito.verify(jobLockDao).add(Mockito.eq("job-1"), Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verify(scheduler).pauseJob(key);
+
+        Mockito.verify(jobLockDao).delete("job-1");
+        Mockito.verify(scheduler).resumeJob(key);
+    }
+
+    @Test
+    public void lockJob_withoutQuartzJob() throws Exception {
+
+        // RUN
+
+        service.lockJob("job-1");
+
+        // VERIFY
+
+        Mockito.verify(jobLockDao).add(Mockito.eq("job-1"), Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verify(scheduler, Mockito.never()).pauseJob(Mockito.any(JobKey.class));
+    }
+
+    @Test
+    public void unlockJob_notLocked() throws Exception {
+
+        // MOCK
+
+        Mockito.when(scheduler.checkExists(Mockito.any(JobKey.class))).thenReturn(true);
+        Mockito.when(jobLockDao.delete("job-1")).thenReturn(false);
+
+        // RUN
+
+        service.unlockJob("job-1");
+
+        // VERIFY
+
+        // No Quartz write for a job never paused
+        Mockito.verify(scheduler, Mockito.never()).resumeJob(Mockito.any(JobKey.class));
+    }
+
+    @Test
+    public void releaseExpiredLocks_resumesDeletedLocksOnly() throws Exception {
+
+        // INPUT
+
+        long now = 1_500_000_000_000L;
+        JobKey key1 = new JobKey("job-1");
+        JobKey key2 = new JobKey("job-2");
+
+        // MOCK
+
+        Mockito.when(jobLockDao.findExpired(now, 10)).thenReturn(expired("job-1", "job-2"));
+        // job-2 has been locked again meanwhile
+        Mockito.when(jobLockDao.deleteExpired(Arrays.asList("job-1", "job-2"), now))
+                .thenReturn(Collections.singletonList("job-1"));
+        Mockito.when(scheduler.checkExists(Mockito.any(JobKey.class))).thenReturn(true);
+
+        // RUN
+
+        int released = service.releaseExpiredLocks(now, 10);
+
+        // VERIFY
+
+        assertEquals(1, released);
+        Mockito.verify(scheduler).resumeJob(key1);
+        Mockito.verify(scheduler, Mockito.never()).resumeJob(key2);
+    }
+
+    @Test
+    public void releaseExpiredLocks_resumeFailure() throws Exception {
+
+        // INPUT
+
+        long now = 1_500_000_000_000L;
+        JobKey key1 = new JobKey("job-1");
+        JobKey key2 = new JobKey("job-2");
+
+        // MOCK
+
+        Mockito.when(jobLockDao.findExpired(now, 10)).thenReturn(expired("job-1", "job-2"));
+        Mockito.when(jobLockDao.deleteExpired(Arrays.asList("job-1", "job-2"), now))
+                .thenReturn(Arrays.asList("job-1", "job-2"));
+        Mockito.when(scheduler.checkExists(Mockito.any(JobKey.class))).thenReturn(true);
+        Mockito.doThrow(new SchedulerException("failure")).when(scheduler).resumeJob(key1);
+
+        // RUN
+
+        service.releaseExpiredLocks(now, 10);
+
+        // VERIFY
+
+        // The batch goes on, the job not resumed gets an expired lock to be released again, with its lock date
+        Mockito.verify(scheduler).resumeJob(key2);
+        Mockito.verify(jobLockDao).restore(Mockito.eq("job-1"), Mockito.eq(LOCKED_AT), Mockito.anyLong());
+        Mockito.verify(jobLockDao, Mockito.never()).restore(Mockito.eq("job-2"), Mockito.anyLong(),
+                Mockito.anyLong());
+    }
+
+    private static Map<String, Long> expired(String... ids) {
+
+        Map<String, Long> expired = new LinkedHashMap<>();
+        for (String id : ids) {
+            expired.put(id, LOCKED_AT);
+        }
+        return expired;
+    }
+
+}
@@ -2,6 +2,9 @@ package net.airvantage.sched.services;
 
 import static org.junit.Assert.*;
 
+import java.time.Clock;
+import java.time.Duration;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -18,6 +21,7 @@ import net.airvantage.sched.model.JobWakeup;
 import net.airvantage.sched.quartz.job.JobResult;
 import net.airvantage.sched.quartz.job.JobResult.CallbackStatus;
 import net.airvantage.sched.services.tech.RetryPolicyHelper;
+import net.airvantage.sched.services.tech.SimulatedClock;
 
 public class RetryPolicyServiceImplTest {
 
@@ -35,7 +39,7 @@ public class RetryPolicyServiceImplTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        service = new RetryPolicyHelper(jobStateService, jobSchedulingService, jobWakeupDao);
+        service = new RetryPolicyHelper(jobStateService, jobSchedulingService, jobWakeupDao, Clock.systemUTC());
     }
 
     @Test
@@ -218,6 +222,53 @@ public class RetryPolicyServiceImplTest {
         Assert.assertTrue(wakeupTime <= actual.getWakeupTime());
     }
 
+    @Test
+    public void jobExecuted_wakeupJobRetryUntilMaxCount() throws AppException {
+
+        // INPUT
+
+        String jobId = "job.id";
+        long start = 1_400_000_000_000L;
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(jobId);
+        wakeup.setWakeupTime(start);
+        wakeup.setCallback("callback.url");
+
+        SimulatedClock clock = new SimulatedClock(start);
+        service = new RetryPolicyHelper(jobStateService, jobSchedulingService, jobWakeupDao, clock);
+
+        // MOCK
+
+        JobResult result = Mockito.mock(JobResult.class);
+        Mockito.when(result.getStatus()).thenReturn(CallbackStatus.FAILURE);
+        Mockito.when(result.getJobId()).thenReturn(jobId);
+
+        // RUN
+
+        // Each retry is fired exactly at its wake-up time
+        for (int retry = 1; retry <= 32; retry++) {
+            service.handleResult(wakeup, result);
+
+            long delay = Math.min(60 * 60 * 1000L, Math.max(1000L, (long) Math.pow(2, retry)));
+            assertEquals(retry, wakeup.getRetryCount());
+            assertEquals(((clock.millis() + delay) / 1000) * 1000, wakeup.getWakeupTime().longValue());
+
+            clock.advance(Duration.ofMillis(wakeup.getWakeupTime() - clock.millis()));
+        }
+
+        service.handleResult(wakeup, result);
+
+        // VERIFY
+
+        Mockito.verify(jobWakeupDao, Mockito.times(32)).persist(wakeup);
+        Mockito.verify(jobWakeupDao).delete(jobId);
+
+        // Delays are at least 1s, rounded down to the second, and capped to one hour from 2^22 ms
+        assertEquals(start + 10 * 1_000L + 2_000L + 4_000L + 8_000L + 16_000L + 32_000L + 65_000L + 131_000L
+                + 262_000L + 524_000L + 1_048_000L + 2_097_000L + 11 * 3_600_000L, clock.millis());
+    }
+
     @Test
     public void triggerComplete_cronJobFailed() throws AppException {
 
@@ -0,0 +1,36 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.airvantage.sched.model.Endpoint;
+
+public class EndpointCacheTest {
+
+    @Test
+    public void get_keepsMostRecentlyUsed() throws Exception {
+
+        // INPUT
+
+        EndpointCache cache = new EndpointCache(2);
+
+        // RUN
+
+        Endpoint first = cache.get("http://host/1");
+        Endpoint second = cache.get("http://host/2");
+        cache.get("http://host/1");
+        Endpoint third = cache.get("http://host/3");
+
+        // VERIFY
+
+        // A new URL is still cached once full, the least recently used one is evicted
+        assertTrue(cache.size() <= 2);
+        assertSame(first, cache.get("http://host/1"));
+        assertSame(third, cache.get("http://host/3"));
+        assertNotSame(second, cache.get("http://host/2"));
+    }
+
+}
@@ -0,0 +1,165 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import net.airvantage.sched.dao.CronGroupDao;
+
+public class FanOutDispatcherTest {
+
+    private FanOutDispatcher dispatcher;
+
+    @Mock
+    private RecurrenceHelper recurrenceHelper;
+
+    @Mock
+    private CronGroupDao cronGroupDao;
+
+    @Before
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+        dispatcher = new FanOutDispatcher(recurrenceHelper, cronGroupDao, 2, Clock.systemUTC());
+
+        Mockito.when(cronGroupDao.claimFire(Mockito.anyString(), Mockito.anyLong())).thenReturn(true);
+    }
+
+    @Test
+    public void dispatch_skippedWhilePending() throws Exception {
+
+        // MOCK
+
+        // The first fire of the job blocks until released
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(recurrenceHelper).fire("job-1");
+
+        CountDownLatch otherFired = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            otherFired.countDown();
+            return null;
+        }).when(recurrenceHelper).fire("job-2");
+
+        // RUN
+
+        assertTrue(dispatcher.dispatch("job-1", 0L));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        boolean whileRunning = dispatcher.dispatch("job-1", 0L);
+        boolean otherJob = dispatcher.dispatch("job-2", 0L);
+
+        release.countDown();
+
+        // VERIFY
+
+        // Skipped while running, another job is not affected
+        assertFalse(whileRunning);
+        assertTrue(otherJob);
+        assertEquals(1L, dispatcher.getSkipped());
+
+        assertTrue(otherFired.await(5, TimeUnit.SECONDS));
+
+        // Dispatched again once the previous fire is completed
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (dispatcher.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, dispatcher.getPending());
+        assertTrue(dispatcher.dispatch("job-1", 0L));
+
+        deadline = System.currentTimeMillis() + 5_000L;
+        while (dispatcher.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Mockito.verify(recurrenceHelper, Mockito.times(2)).fire("job-1");
+    }
+
+    @Test
+    public void dispatch_skippedWhileQueued() throws Exception {
+
+        // RUN
+
+        assertTrue(dispatcher.dispatch("job-1", System.currentTimeMillis() + 60_000L));
+        boolean whileQueued = dispatcher.dispatch("job-1", 0L);
+
+        // VERIFY
+
+        assertFalse(whileQueued);
+        assertEquals(1, dispatcher.getPending());
+        Mockito.verify(recurrenceHelper, Mockito.never()).fire("job-1");
+    }
+
+    @Test
+    public void dispatch_notFiredOnceClaimed() throws Exception {
+
+        // MOCK
+
+        // The fire already claimed by another node
+        CountDownLatch claimed = new CountDownLatch(1);
+        Mockito.when(cronGroupDao.claimFire("job-1", 1_000L)).thenAnswer(invocation -> {
+            claimed.countDown();
+            return false;
+        });
+
+        // RUN
+
+        assertTrue(dispatcher.dispatch("job-1", 1_000L));
+
+        // VERIFY
+
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (dispatcher.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, dispatcher.getPending());
+        Mockito.verify(recurrenceHelper, Mockito.never()).fire("job-1");
+    }
+
+    @Test
+    public void recover_firesLateFires() throws Exception {
+
+        // MOCK
+
+        Mockito.when(cronGroupDao.findFires(Mockito.anyLong(), Mockito.anyInt())).thenReturn(Collections.singletonMap("job-1", 1_000L));
+
+        CountDownLatch fired = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            fired.countDown();
+            return null;
+        }).when(recurrenceHelper).fire("job-1");
+
+        // RUN
+
+        int recovered = dispatcher.recover();
+
+        // VERIFY
+
+        assertEquals(1, recovered);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<Long> beforeCaptor = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(cronGroupDao).findFires(beforeCaptor.capture(), Mockito.anyInt());
+        assertTrue(beforeCaptor.getValue() <= System.currentTimeMillis() - FanOutDispatcher.RECOVERY_DELAY);
+        Mockito.verify(cronGroupDao).claimFire("job-1", 1_000L);
+    }
+
+}
@@ -0,0 +1,96 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class IdGeneratorTest {
+
+    @Test
+    public void nextId_timeOrdered() {
+
+        // INPUT
+
+        SimulatedClock clock = new SimulatedClock(1500000000000L);
+        IdGenerator generator = new IdGenerator(3, clock);
+
+        // RUN
+
+        String first = generator.nextId();
+        String second = generator.nextId();
+        clock.advance(Duration.ofMillis(1));
+        String third = generator.nextId();
+
+        // VERIFY
+
+        assertEquals(13, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(third) < 0);
+    }
+
+    @Test
+    public void nextId_monotonicWhenClockGoesBackwards() {
+
+        // INPUT
+
+        SimulatedClock clock = new SimulatedClock(1500000000000L);
+        IdGenerator generator = new IdGenerator(3, clock);
+
+        // RUN
+
+        String before = generator.nextId();
+        clock.advance(Duration.ofSeconds(-10));
+        String after = generator.nextId();
+
+        // VERIFY
+
+        assertTrue(before.compareTo(after) < 0);
+    }
+
+    @Test
+    public void nextId_uniqueBeyondSequence() {
+
+        // INPUT
+
+        IdGenerator generator = new IdGenerator(3, new SimulatedClock(1500000000000L));
+        Set<String> ids = new HashSet<>();
+
+        // RUN
+
+        String last = "";
+        for (int i = 0; i < 10000; i++) {
+            String id = generator.nextId();
+            assertTrue(last.compareTo(id) < 0);
+            ids.add(id);
+            last = id;
+        }
+
+        // VERIFY
+
+        assertEquals(10000, ids.size());
+    }
+
+    @Test
+    public void nextId_nodesDoNotCollide() {
+
+        // INPUT
+
+        SimulatedClock clock = new SimulatedClock(1500000000000L);
+
+        // RUN
+
+        long node1 = new IdGenerator(1, clock).next();
+        long node2 = new IdGenerator(2, clock).next();
+
+        // VERIFY
+
+        assertTrue(node1 != node2);
+        assertEquals(IdGenerator.format(node1).substring(0, 9), IdGenerator.format(node2).substring(0, 9));
+    }
+
+}
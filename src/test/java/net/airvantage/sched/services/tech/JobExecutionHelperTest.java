@@ -2,11 +2,13 @@ package net.airvantage.sched.services.tech;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
+import java.time.Clock;
 import java.util.Map;
 
 import net.airvantage.sched.app.mapper.JsonMapper;
+import net.airvantage.sched.capture.WorkloadCapture;
 import net.airvantage.sched.dao.JobConfigDao;
+import net.airvantage.sched.model.Endpoint;
 import net.airvantage.sched.model.JobConfig;
 import net.airvantage.sched.model.JobWakeup;
 import net.airvantage.sched.model.PostHttpJobResult;
@@ -54,7 +56,7 @@ public class JobExecutionHelperTest {
 
         MockitoAnnotations.initMocks(this);
         service = new JobExecutionHelper(jobStateService, connector, schedSecret, jsonMapper, jobConfigDao,
-                retryPolicyHelper);
+                retryPolicyHelper, WorkloadCapture.disabled(), new EndpointCache(100), Clock.systemUTC());
     }
 
     @Test
@@ -65,7 +67,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         PostHttpJobResult callbackResult = new PostHttpJobResult();
         callbackResult.setAck(true);
@@ -115,7 +117,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         JobWakeup wakeup = new JobWakeup();
         wakeup.setWakeupTime(System.currentTimeMillis());
@@ -176,7 +178,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         // MOCK
 
@@ -218,7 +220,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         JobWakeup wakeup = new JobWakeup();
         wakeup.setWakeupTime(System.currentTimeMillis());
@@ -271,7 +273,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         // MOCK
 
@@ -306,7 +308,7 @@ public class JobExecutionHelperTest {
 
         String jobId = "job.id";
         String callback = "http://callback.service.url";
-        URI url = new URI(callback);
+        Endpoint url = Endpoint.parse(callback);
 
         // MOCK
 
@@ -0,0 +1,171 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import net.airvantage.sched.dao.JobLockDao;
+import net.airvantage.sched.dao.JobRecurrenceDao;
+import net.airvantage.sched.db.SchemaMigrator;
+import net.airvantage.sched.model.JobRecurrence;
+
+public class RecurrenceHelperTest {
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    private RecurrenceHelper service;
+
+    private JdbcConnectionPool database;
+    private JobRecurrenceDao jobRecurrenceDao;
+    private JobLockDao jobLockDao;
+
+    @Mock
+    private JobExecutionHelper jobExecutionHelper;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        database = JdbcConnectionPool.create("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        new SchemaMigrator(database).migrate();
+
+        jobRecurrenceDao = new JobRecurrenceDao(database);
+        jobLockDao = new JobLockDao(database);
+        service = new RecurrenceHelper(jobExecutionHelper, jobLockDao, jobRecurrenceDao,
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+    }
+
+    @After
+    public void tearDown() {
+        database.dispose();
+    }
+
+    @Test
+    public void nextFireTime_afterStartAt() {
+
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        try {
+
+            // RUN & VERIFY
+
+            assertEquals(NOW + 60_000L, (long) RecurrenceHelper.nextFireTime("0 * * * * ?", 0L, NOW));
+            assertEquals(NOW + 60_000L, (long) RecurrenceHelper.nextFireTime("0 * * * * ?", NOW + 60_000L, NOW));
+            assertEquals(NOW + 120_000L, (long) RecurrenceHelper.nextFireTime("0 * * * * ?", NOW + 61_000L, NOW));
+            assertNull(RecurrenceHelper.nextFireTime("0 0 0 1 1 ? 2000", 0L, NOW));
+
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+    }
+
+    @Test
+    public void execute_schedulesNextFire() throws Exception {
+
+        // INPUT
+
+        jobRecurrenceDao.persist(recurrence("job-1", NOW - 1000L));
+        jobRecurrenceDao.persist(recurrence("job-2", NOW + 60_000L));
+
+        // RUN
+
+        List<JobRecurrence> due = jobRecurrenceDao.findDue(NOW, 10);
+        List<JobRecurrence> claimed = jobRecurrenceDao.claim(due, NOW + 300_000L);
+        List<JobRecurrence> claimedAgain = jobRecurrenceDao.claim(due, NOW + 300_000L);
+
+        service.execute(claimed.get(0), NOW + 300_000L);
+
+        // VERIFY
+
+        assertEquals(1, claimed.size());
+        assertTrue(claimedAgain.isEmpty());
+
+        Mockito.verify(jobExecutionHelper).execute("job-1");
+        assertEquals(NOW + 60_000L, jobRecurrenceDao.find("job-1").getNextFireTime());
+        assertTrue(jobRecurrenceDao.findDue(NOW + 1, 10).isEmpty());
+    }
+
+    @Test
+    public void execute_lockedJobNotExecuted() throws Exception {
+
+        // INPUT
+
+        JobRecurrence recurrence = recurrence("job-1", NOW - 1000L);
+        jobRecurrenceDao.persist(recurrence);
+        jobLockDao.add("job-1", NOW, NOW + 3_600_000L);
+
+        // RUN
+
+        List<JobRecurrence> claimed = jobRecurrenceDao.claim(Arrays.asList(recurrence), NOW + 300_000L);
+        service.execute(claimed.get(0), NOW + 300_000L);
+
+        // VERIFY
+
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.anyString());
+        assertEquals(NOW + 60_000L, jobRecurrenceDao.find("job-1").getNextFireTime());
+    }
+
+    @Test
+    public void splayOffset_spreadsJobsOverWindow() {
+
+        // RUN
+
+        int[] counts = new int[10];
+        for (int i = 0; i < 10_000; i++) {
+            long offset = RecurrenceHelper.splayOffset("job-" + i, 10_000L);
+            counts[(int) (offset / 1000)]++;
+
+            assertEquals(offset, RecurrenceHelper.splayOffset("job-" + i, 10_000L));
+        }
+
+        // VERIFY
+
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+        assertEquals(0L, RecurrenceHelper.splayOffset("job-1", 0L));
+    }
+
+    @Test
+    public void nextFireTime_delayedByOffset() {
+
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        try {
+
+            // RUN & VERIFY
+
+            assertEquals(NOW + 7_000L, (long) RecurrenceHelper.nextFireTime("0 * * * * ?", 0L, 7_000L, NOW));
+            assertEquals(NOW + 67_000L, (long) RecurrenceHelper.nextFireTime("0 * * * * ?", 0L, 7_000L, NOW + 7_000L));
+
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+    }
+
+    private static JobRecurrence recurrence(String id, long nextFireTime) {
+
+        JobRecurrence recurrence = new JobRecurrence();
+        recurrence.setId(id);
+        recurrence.setCron("0 * * * * ?");
+        recurrence.setNextFireTime(nextFireTime);
+        return recurrence;
+    }
+
+}
@@ -0,0 +1,139 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import net.airvantage.sched.dao.InMemoryJobWakeupDao;
+import net.airvantage.sched.dao.JobWakeupDao;
+import net.airvantage.sched.model.JobWakeup;
+
+public class WakeupDispatcherTest {
+
+    private static final long WINDOW = 10_000L;
+    private static final long LEASE = 300_000L;
+
+    private WakeupDispatcher dispatcher;
+    private JobWakeupDao jobWakeupDao;
+
+    @Mock
+    private JobExecutionHelper jobExecutionHelper;
+
+    @Before
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+        jobWakeupDao = new InMemoryJobWakeupDao(Clock.systemUTC());
+        dispatcher = new WakeupDispatcher(() -> jobExecutionHelper, jobWakeupDao, 2, WINDOW, LEASE,
+                Clock.systemUTC());
+    }
+
+    @Test
+    public void dispatch_dueWakeup() throws Exception {
+
+        // INPUT
+
+        long now = System.currentTimeMillis();
+        JobWakeup wakeup = wakeup("wakeup-1", now - 1000L);
+
+        // RUN
+
+        boolean dispatched = dispatcher.dispatch(wakeup);
+
+        // VERIFY
+
+        assertTrue(dispatched);
+
+        // Persisted claimed : not found by the wake-ups timer before the lease, with the original time fired
+        assertTrue(jobWakeupDao.find(now + WINDOW, 10).isEmpty());
+        assertEquals(1, jobWakeupDao.find(now + LEASE + WINDOW, 10).size());
+
+        Mockito.verify(jobExecutionHelper, Mockito.timeout(5_000)).execute(wakeup);
+        assertEquals(now - 1000L, (long) wakeup.getWakeupTime());
+    }
+
+    @Test
+    public void dispatch_laterWakeup() throws Exception {
+
+        // INPUT
+
+        long now = System.currentTimeMillis();
+        JobWakeup wakeup = wakeup("wakeup-1", now + 3_600_000L);
+
+        // RUN
+
+        boolean dispatched = dispatcher.dispatch(wakeup);
+
+        // VERIFY
+
+        // Left to the caller, to be persisted as usual
+        assertFalse(dispatched);
+        assertTrue(jobWakeupDao.find(now + LEASE + 3_600_000L, 10).isEmpty());
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.any(JobWakeup.class));
+    }
+
+    @Test
+    public void dispatch_registeredAgainWhileQueued() throws Exception {
+
+        // INPUT
+
+        long now = System.currentTimeMillis();
+        JobWakeup wakeup = wakeup("wakeup-1", now + 500L);
+        JobWakeup later = wakeup("wakeup-1", now + 3_600_000L);
+
+        // RUN
+
+        boolean dispatched = dispatcher.dispatch(wakeup);
+        jobWakeupDao.persist(later);
+
+        // VERIFY
+
+        assertTrue(dispatched);
+
+        // The queued fire is skipped, the new registration is kept
+        Thread.sleep(1_500L);
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.any(JobWakeup.class));
+
+        List<JobWakeup> stored = jobWakeupDao.find(now + 3_600_001L, 10);
+        assertEquals(1, stored.size());
+        assertEquals(now + 3_600_000L, (long) stored.get(0).getWakeupTime());
+    }
+
+    @Test
+    public void clear_dropsQueuedWakeups() throws Exception {
+
+        // INPUT
+
+        long now = System.currentTimeMillis();
+        dispatcher.dispatch(wakeup("wakeup-1", now + 500L));
+
+        // RUN
+
+        dispatcher.clear();
+
+        // VERIFY
+
+        assertEquals(0, dispatcher.getQueued());
+        Thread.sleep(1_000L);
+        Mockito.verify(jobExecutionHelper, Mockito.never()).execute(Mockito.any(JobWakeup.class));
+    }
+
+    private static JobWakeup wakeup(String id, long wakeupTime) {
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(id);
+        wakeup.setCallback("http://localhost/callback");
+        wakeup.setWakeupTime(wakeupTime);
+        return wakeup;
+    }
+
+}
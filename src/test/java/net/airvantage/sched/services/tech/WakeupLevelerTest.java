@@ -0,0 +1,107 @@
+package net.airvantage.sched.services.tech;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.airvantage.sched.model.JobWakeup;
+
+public class WakeupLevelerTest {
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    @Test
+    public void level_strictWakeupsFirst() {
+
+        // INPUT
+
+        WakeupLeveler leveler = new WakeupLeveler(3, new SimulatedClock(NOW));
+
+        List<JobWakeup> due = new ArrayList<>();
+        due.add(wakeup("flexible-late", NOW + 60_000L));
+        due.add(wakeup("flexible-soon", NOW + 10_000L));
+        due.add(wakeup("strict-1", null));
+        due.add(wakeup("flexible-other", NOW + 30_000L));
+        due.add(wakeup("strict-2", null));
+
+        // RUN
+
+        List<JobWakeup> postponed = new ArrayList<>();
+        List<JobWakeup> dispatched = leveler.level(due, postponed);
+
+        // VERIFY
+
+        // The strict wake-ups are counted first, then the flexible ones by deadline up to the target
+        assertEquals(Arrays.asList("strict-1", "strict-2", "flexible-soon"), ids(dispatched));
+        assertEquals(Arrays.asList("flexible-other", "flexible-late"), ids(postponed));
+        assertEquals(NOW + 1000L, (long) postponed.get(0).getWakeupTime());
+        assertEquals(3, leveler.getDispatched());
+    }
+
+    @Test
+    public void level_strictAboveTargetRate() {
+
+        // INPUT
+
+        WakeupLeveler leveler = new WakeupLeveler(1, new SimulatedClock(NOW));
+
+        // RUN
+
+        List<JobWakeup> postponed = new ArrayList<>();
+        List<JobWakeup> dispatched = leveler.level(Arrays.asList(wakeup("strict-1", null), wakeup("strict-2", null),
+                wakeup("reached", NOW + 500L), wakeup("flexible", NOW + 5000L)), postponed);
+
+        // VERIFY
+
+        // A wake-up whose deadline is within the current second is strict
+        assertEquals(Arrays.asList("strict-1", "strict-2", "reached"), ids(dispatched));
+        assertEquals(Arrays.asList("flexible"), ids(postponed));
+    }
+
+    @Test
+    public void level_countsPerSecond() {
+
+        // INPUT
+
+        SimulatedClock clock = new SimulatedClock(NOW);
+        WakeupLeveler leveler = new WakeupLeveler(1, clock);
+        leveler.level(Arrays.asList(wakeup("flexible-1", NOW + 5000L)), new ArrayList<>());
+
+        // RUN
+
+        List<JobWakeup> postponed = new ArrayList<>();
+        List<JobWakeup> sameSecond = leveler.level(Arrays.asList(wakeup("flexible-2", NOW + 5000L)), postponed);
+
+        clock.advance(Duration.ofSeconds(1));
+        List<JobWakeup> nextSecond = leveler.level(postponed, new ArrayList<>());
+
+        // VERIFY
+
+        assertEquals(0, sameSecond.size());
+        assertEquals(Arrays.asList("flexible-2"), ids(nextSecond));
+    }
+
+    private static JobWakeup wakeup(String id, Long deadline) {
+
+        JobWakeup wakeup = new JobWakeup();
+        wakeup.setId(id);
+        wakeup.setWakeupTime(NOW - 1000L);
+        wakeup.setDeadline(deadline);
+        return wakeup;
+    }
+
+    private static List<String> ids(List<JobWakeup> wakeups) {
+
+        List<String> ids = new ArrayList<>();
+        for (JobWakeup wakeup : wakeups) {
+            ids.add(wakeup.getId());
+        }
+        return ids;
+    }
+
+}